@@ -0,0 +1,49 @@
+package com.busbooking.system.config;
+
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.model.Trip;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Moves id sequences past rows written while their tables still used IDENTITY ids.
+ * ddl-auto creates a sequence at 1, which would collide with them. This runs once the
+ * schema exists and before startup code or requests insert anything.
+ */
+@Configuration
+public class IdSequenceConfig implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceConfig.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceConfig(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        align("booking", Booking.ID_SEQUENCE, Booking.ID_ALLOCATION_SIZE);
+        align("bus", Bus.ID_SEQUENCE, Bus.ID_ALLOCATION_SIZE);
+        align("trip", Trip.ID_SEQUENCE, Trip.ID_ALLOCATION_SIZE);
+    }
+
+    private void align(String table, String sequence, int allocationSize) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        Long next = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?",
+                Long.class, sequence.toUpperCase());
+        // The pooled optimizer hands out the block ending at the value it reads,
+        // so the next value must be a full block above the highest id in use
+        long required = (maxId == null ? 0 : maxId) + allocationSize + 1;
+        if (next != null && next >= required) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + required);
+        logger.info("{} id sequence restarted at {}", table, required);
+    }
+}
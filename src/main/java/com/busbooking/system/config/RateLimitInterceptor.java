@@ -0,0 +1,67 @@
+package com.busbooking.system.config;
+
+import com.busbooking.system.service.RateLimiter;
+import com.busbooking.system.service.SessionTokenService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Turns away login attempts and checkouts over their limit with a 429, before the
+ * session check and before any service or database is touched. Behind a proxy, set
+ * server.forward-headers-strategy so that the client address is the real one.
+ * <p>
+ * A checkout is counted against the user its signed session cookie names, never the
+ * username parameter, so that nobody can spend another user's checkout tokens. Without
+ * a valid session it only counts against the client address, and the session check
+ * turns it away next.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    static final String LOGIN_PATH = "/login";
+    static final String PAYMENT_PATH = "/process-payment";
+
+    private static final String USERNAME_PARAM = "username";
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final RateLimiter rateLimiter;
+    private final SessionTokenService sessionTokenService;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter, SessionTokenService sessionTokenService) {
+        this.rateLimiter = rateLimiter;
+        this.sessionTokenService = sessionTokenService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+
+        // The async login's result comes back through a second dispatch, which was counted already
+        if (!"POST".equals(request.getMethod()) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        String clientIp = request.getRemoteAddr();
+        long retryAfterSeconds = LOGIN_PATH.equals(request.getServletPath())
+                ? rateLimiter.checkLogin(clientIp, request.getParameter(USERNAME_PARAM))
+                : rateLimiter.checkPayment(clientIp, sessionTokenService.verify(SessionInterceptor.tokenOf(request))
+                        .map(SessionTokenService.Session::username)
+                        .orElse(null));
+        if (retryAfterSeconds == 0) {
+            return true;
+        }
+
+        // A short plain answer, so a denial costs next to nothing
+        response.setStatus(TOO_MANY_REQUESTS);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many attempts, please try again in " + retryAfterSeconds + " seconds");
+        return false;
+    }
+}
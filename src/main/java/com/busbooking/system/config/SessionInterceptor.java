@@ -0,0 +1,71 @@
+package com.busbooking.system.config;
+
+import com.busbooking.system.service.SessionTokenService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Checks the signed session cookie on every page behind login. Pages still carry the
+ * username as a request parameter, but it now has to match the signed token, and the
+ * /admin pages need an ADMIN token.
+ */
+@Component
+public class SessionInterceptor implements HandlerInterceptor {
+
+    public static final String SESSION_ATTRIBUTE = "session";
+
+    private static final String USERNAME_PARAM = "username";
+
+    private final SessionTokenService sessionTokenService;
+
+    public SessionInterceptor(SessionTokenService sessionTokenService) {
+        this.sessionTokenService = sessionTokenService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+
+        Optional<SessionTokenService.Session> found = sessionTokenService.verify(tokenOf(request));
+        if (found.isEmpty()) {
+            response.sendRedirect(request.getContextPath() + "/login");
+            return false;
+        }
+        SessionTokenService.Session session = found.get();
+
+        if (request.getRequestURI().startsWith(request.getContextPath() + "/admin")) {
+            if (!session.isAdmin()) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return false;
+            }
+        } else {
+            // On the admin pages a username parameter is a search filter, elsewhere it names the signed-in user
+            String username = request.getParameter(USERNAME_PARAM);
+            if (username != null && !username.equals(session.username())) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return false;
+            }
+        }
+        request.setAttribute(SESSION_ATTRIBUTE, session);
+        return true;
+    }
+
+    static String tokenOf(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (SessionTokenService.COOKIE_NAME.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
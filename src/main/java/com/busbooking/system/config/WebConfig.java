@@ -0,0 +1,31 @@
+package com.busbooking.system.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Rate-limits logins and checkouts, then puts every page except the public ones
+ * behind the session check
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final SessionInterceptor sessionInterceptor;
+
+    public WebConfig(RateLimitInterceptor rateLimitInterceptor, SessionInterceptor sessionInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.sessionInterceptor = sessionInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor)
+                .addPathPatterns(RateLimitInterceptor.LOGIN_PATH, RateLimitInterceptor.PAYMENT_PATH);
+        registry.addInterceptor(sessionInterceptor)
+                .addPathPatterns("/**")
+                .excludePathPatterns("/", "/login", "/register", "/register/**", "/logout", "/error", "/favicon.ico",
+                        "/gtfs/**", "/css/**", "/js/**", "/images/**");
+    }
+}
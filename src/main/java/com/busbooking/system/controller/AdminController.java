@@ -1,17 +1,36 @@
 package com.busbooking.system.controller;
 
+import com.busbooking.system.dto.BusImportReport;
+import com.busbooking.system.dto.DailyStats;
 import com.busbooking.system.model.Bus;
 import com.busbooking.system.model.User;
+import com.busbooking.system.service.BookingStatsService;
+import com.busbooking.system.service.CartSweeper;
+import com.busbooking.system.service.CredentialService;
+import com.busbooking.system.service.BusImportService;
 import com.busbooking.system.service.BusService;
+import com.busbooking.system.service.OccupancyFeedService;
+import com.busbooking.system.service.RateLimiter;
 import com.busbooking.system.service.UserRequestService;
 import com.busbooking.system.service.UserService;
+import com.busbooking.system.service.UserCache;
+import com.busbooking.system.service.UsernameFilter;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalTime;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Admin Controller - Handles all admin-related operations
@@ -31,6 +50,8 @@ public class AdminController {
     private static final String ERROR_ATTRIBUTE = "error";
     private static final String USER_ROLES_ATTRIBUTE = "userRoles";
     private static final String REDIRECT_ADMIN_USERS = "redirect:/admin/users";
+    private static final String ADMIN_IMPORT_BUSES_VIEW = "admin-import-buses";
+    private static final int TOP_ROUTES = 5;
 
     // Ireland locations - fixed naming convention
     private final List<String> irelandLocations = Arrays.asList(
@@ -48,11 +69,31 @@ public class AdminController {
     private final BusService busService;
     private final UserService userService;
     private final UserRequestService userRequestService;
+    private final BusImportService busImportService;
+    private final BookingStatsService bookingStatsService;
+    private final OccupancyFeedService occupancyFeedService;
+    private final CartSweeper cartSweeper;
+    private final CredentialService credentialService;
+    private final UserCache userCache;
+    private final UsernameFilter usernameFilter;
+    private final RateLimiter rateLimiter;
 
-    public AdminController(BusService busService, UserService userService, UserRequestService userRequestService) {
+    public AdminController(BusService busService, UserService userService, UserRequestService userRequestService,
+                           BusImportService busImportService, BookingStatsService bookingStatsService,
+                           OccupancyFeedService occupancyFeedService, CartSweeper cartSweeper,
+                           CredentialService credentialService, UserCache userCache,
+                           UsernameFilter usernameFilter, RateLimiter rateLimiter) {
         this.busService = busService;
         this.userService = userService;
         this.userRequestService = userRequestService;
+        this.busImportService = busImportService;
+        this.bookingStatsService = bookingStatsService;
+        this.occupancyFeedService = occupancyFeedService;
+        this.cartSweeper = cartSweeper;
+        this.credentialService = credentialService;
+        this.userCache = userCache;
+        this.usernameFilter = usernameFilter;
+        this.rateLimiter = rateLimiter;
     }
 
     // ==================== BUS MANAGEMENT ====================
@@ -60,11 +101,55 @@ public class AdminController {
     // Bus Dashboard - UPDATED: Added pending requests count
     @GetMapping("/dashboard")
     public String busDashboard(Model model) {
-        model.addAttribute("buses", busService.getAllBuses());
+        List<Bus> buses = busService.getAllBuses();
+        model.addAttribute("buses", buses);
+        // Lets the live occupancy table name buses without another query per update
+        Map<Long, String> busNames = new HashMap<>();
+        for (Bus bus : buses) {
+            busNames.put(bus.getId(), bus.getBusName() + " (" + bus.getSource() + " → " + bus.getDestination() + ")");
+        }
+        model.addAttribute("busNames", busNames);
         model.addAttribute("pendingRequestsCount", userRequestService.getPendingRequestsCount());
+
+        // Revenue and ridership come from the route/day counters, never from the booking table
+        LocalDate today = LocalDate.now();
+        List<DailyStats> upcomingDays = bookingStatsService.getDailyTotals(today, today.plusDays(6));
+        DailyStats todayStats = upcomingDays.stream()
+                .filter(day -> day.getTravelDate().equals(today))
+                .findFirst()
+                .orElse(new DailyStats(today, 0L, 0L, 0.0));
+        model.addAttribute("todayStats", todayStats);
+        model.addAttribute("upcomingDays", upcomingDays);
+        model.addAttribute("topRoutes", bookingStatsService.getTopRoutes(null, null, TOP_ROUTES));
+        model.addAttribute("cartSweep", cartSweeper.getMetrics());
+        model.addAttribute("loginPool", credentialService.getMetrics());
+        model.addAttribute("userCache", userCache.getMetrics());
+        model.addAttribute("usernameFilter", usernameFilter.getMetrics());
+        model.addAttribute("rateLimits", rateLimiter.getMetrics());
         return "admin-dashboard";
     }
 
+    // Live seat occupancy for the dashboard, pushed as Server-Sent Events
+    @GetMapping(path = "/occupancy/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter occupancyStream() {
+        return occupancyFeedService.subscribe();
+    }
+
+    // Reconcile the revenue and ridership counters against the booking table
+    @PostMapping("/stats/rebuild")
+    public String rebuildStats() {
+        int corrected = bookingStatsService.rebuild();
+        return REDIRECT_ADMIN_DASHBOARD + "?success=Statistics reconciled: " + corrected + " counters corrected";
+    }
+
+    // Purge abandoned cart rows now instead of waiting for the scheduled sweep
+    @PostMapping("/carts/sweep")
+    public String sweepCarts() {
+        int purged = cartSweeper.sweep();
+        return REDIRECT_ADMIN_DASHBOARD + "?success=Cart sweep purged " + purged + " abandoned cart rows";
+    }
+
     // Add bus form
     @GetMapping("/add-bus")
     public String addBusForm(Model model) {
@@ -141,6 +226,46 @@ public class AdminController {
         }
     }
 
+    // Bulk timetable import form
+    @GetMapping("/import-buses")
+    public String importBusesForm(Model model) {
+        model.addAttribute("format", "csv");
+        return ADMIN_IMPORT_BUSES_VIEW;
+    }
+
+    // Bulk timetable import: rows with errors are reported, the rest are saved
+    @PostMapping("/import-buses")
+    public String importBuses(@RequestParam MultipartFile file,
+                              @RequestParam(defaultValue = "csv") String format,
+                              Model model) {
+        model.addAttribute("format", format);
+        if (file.isEmpty()) {
+            model.addAttribute(ERROR_ATTRIBUTE, "Please choose a file to import");
+            return ADMIN_IMPORT_BUSES_VIEW;
+        }
+        try {
+            BusImportReport report;
+            if ("gtfs".equalsIgnoreCase(format)) {
+                // Zip entries are read by random access, so the upload goes to disk first
+                Path zip = Files.createTempFile("gtfs-import", ".zip");
+                try {
+                    file.transferTo(zip);
+                    report = busImportService.importGtfs(zip);
+                } finally {
+                    Files.deleteIfExists(zip);
+                }
+            } else {
+                try (InputStream in = file.getInputStream()) {
+                    report = busImportService.importCsv(in);
+                }
+            }
+            model.addAttribute("report", report);
+        } catch (IOException e) {
+            model.addAttribute(ERROR_ATTRIBUTE, "Import failed: " + e.getMessage());
+        }
+        return ADMIN_IMPORT_BUSES_VIEW;
+    }
+
     // ==================== USER MANAGEMENT ====================
 
     // User Management Dashboard - FIXED: Show actual users
@@ -1,13 +1,22 @@
 package com.busbooking.system.controller;
 
 import com.busbooking.system.model.User;
+import com.busbooking.system.service.CredentialService;
+import com.busbooking.system.service.SessionTokenService;
 import com.busbooking.system.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Authentication Controller - Handles user login, registration, and authentication
  */
@@ -21,12 +30,23 @@ public class AuthController {
     private static final String USERNAME_PARAM = "username";
     private static final String REDIRECT_DASHBOARD = "redirect:/dashboard?";
     private static final String REDIRECT_LOGIN = "redirect:/login?";
+    private static final String REDIRECT_ADMIN_DASHBOARD = "redirect:/admin/dashboard";
+    private static final String ADMIN_ROLE = "ADMIN";
 
     // Constructor injection instead of field injection
     private final UserService userService;
+    private final CredentialService credentialService;
+    private final SessionTokenService sessionTokenService;
+    private final boolean secureCookie;
 
-    public AuthController(UserService userService) {
+    public AuthController(UserService userService,
+                          CredentialService credentialService,
+                          SessionTokenService sessionTokenService,
+                          @Value("${auth.session.secure-cookie:false}") boolean secureCookie) {
         this.userService = userService;
+        this.credentialService = credentialService;
+        this.sessionTokenService = sessionTokenService;
+        this.secureCookie = secureCookie;
     }
 
     // 🏠 Home page
@@ -42,33 +62,44 @@ public class AuthController {
         return "login";
     }
 
-    // 🔐 Handle login - FIXED: Redirect to user dashboard
+    // 🔐 Handle login - the password check runs on the verification pool, not on this request thread
     @PostMapping("/login")
-    public String login(@RequestParam String username,
-                        @RequestParam String password,
-                        Model model) {
+    public CompletableFuture<String> login(@RequestParam String username,
+                                           @RequestParam String password,
+                                           HttpServletResponse response,
+                                           Model model) {
 
         logger.info("Login attempt");
 
-        // 🔐 Admin login check
-        if ("admin".equals(username) && "admin123".equals(password)) {
-            logger.info("Admin login successful");
-            return "redirect:/admin/dashboard";
-        }
-
-        // 🧾 Validate user credentials from DB
-        boolean isValid = userService.validateUser(username, password);
-        logger.info("User validation result: {}", isValid);
-
-        if (isValid) {
+        return credentialService.authenticate(username, password).handle((user, error) -> {
+            if (error != null) {
+                logger.warn("Login not checked: {}", error.getMessage());
+                model.addAttribute(ERROR_ATTRIBUTE, "Too many logins right now, please try again in a moment");
+                return "login";
+            }
+            if (user.isEmpty()) {
+                // ❌ Invalid credentials
+                logger.info("Login failed - Invalid credentials");
+                model.addAttribute(ERROR_ATTRIBUTE, "Invalid username or password");
+                return "login";
+            }
+            // 🎫 Signed session cookie, checked on every later request without a lookup
+            String token = sessionTokenService.issue(user.get().getUsername(), user.get().getRole());
+            response.addHeader(HttpHeaders.SET_COOKIE, sessionCookie(token, sessionTokenService.getTtlSeconds()));
+            if (ADMIN_ROLE.equals(user.get().getRole())) {
+                logger.info("Admin login successful");
+                return REDIRECT_ADMIN_DASHBOARD;
+            }
             logger.info("User login successful - Redirecting to user dashboard");
-            return REDIRECT_DASHBOARD + USERNAME_PARAM + "=" + username; // Redirect to user dashboard
-        }
+            return REDIRECT_DASHBOARD + USERNAME_PARAM + "=" + username;
+        });
+    }
 
-        // ❌ Invalid credentials
-        logger.info("Login failed - Invalid credentials");
-        model.addAttribute(ERROR_ATTRIBUTE, "Invalid username or password");
-        return "login";
+    // 🚪 Logout - the token is stateless, so the browser just forgets it
+    @GetMapping("/logout")
+    public String logout(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.SET_COOKIE, sessionCookie("", 0));
+        return REDIRECT_LOGIN + "success=You have been logged out.";
     }
 
     // 🧾 Registration page
@@ -78,6 +109,13 @@ public class AuthController {
         return "register";
     }
 
+    // ✔️ Username availability, checked as the user types - free names are answered without a query
+    @GetMapping("/register/available")
+    @ResponseBody
+    public Map<String, Boolean> usernameAvailable(@RequestParam String username) {
+        return Map.of("available", userService.isUsernameAvailable(username));
+    }
+
     // 🧍‍♀️ Handle registration - FIXED: Better error handling
     @PostMapping("/register")
     public String register(@ModelAttribute User user, Model model) {
@@ -96,4 +134,15 @@ public class AuthController {
             return "register";
         }
     }
-}
\ No newline at end of file
+
+    private String sessionCookie(String token, long maxAgeSeconds) {
+        return ResponseCookie.from(SessionTokenService.COOKIE_NAME, token)
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(maxAgeSeconds)
+                .build()
+                .toString();
+    }
+}
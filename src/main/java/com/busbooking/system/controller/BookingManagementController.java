@@ -1,16 +1,27 @@
 package com.busbooking.system.controller;
 
+import com.busbooking.system.dto.BookingFilter;
+import com.busbooking.system.dto.BookingPage;
 import com.busbooking.system.model.Booking;
 import com.busbooking.system.model.Bus;
+import com.busbooking.system.service.BookingExportService;
 import com.busbooking.system.service.BookingService;
 import com.busbooking.system.service.BusService;
+import com.busbooking.system.service.SeatInventoryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Controller for admin booking management
@@ -22,53 +33,94 @@ public class BookingManagementController {
 
     private static final Logger logger = LoggerFactory.getLogger(BookingManagementController.class);
 
+    private static final String STALE_EDIT_MESSAGE =
+            "This booking was changed by someone else. Please reload it and try again.";
+
     // Constructor injection instead of field injection
     private final BookingService bookingService;
     private final BusService busService;
+    private final SeatInventoryService seatInventoryService;
+    private final BookingExportService bookingExportService;
 
-    public BookingManagementController(BookingService bookingService, BusService busService) {
+    public BookingManagementController(BookingService bookingService, BusService busService,
+                                       SeatInventoryService seatInventoryService,
+                                       BookingExportService bookingExportService) {
         this.bookingService = bookingService;
         this.busService = busService;
+        this.seatInventoryService = seatInventoryService;
+        this.bookingExportService = bookingExportService;
     }
 
     /**
-     * View all bookings for management
+     * View bookings for management, one keyset page at a time
      */
     @GetMapping("/bookings")
-    public String viewAllBookings(Model model) {
+    public String viewAllBookings(@RequestParam(required = false) String username,
+                                  @RequestParam(required = false) String source,
+                                  @RequestParam(required = false) String destination,
+                                  @RequestParam(required = false) String fromDate,
+                                  @RequestParam(required = false) String toDate,
+                                  @RequestParam(required = false) String status,
+                                  @RequestParam(required = false) Long cursor,
+                                  @RequestParam(defaultValue = "25") int size,
+                                  Model model) {
+        BookingFilter filter = new BookingFilter(username, source, destination,
+                parseDate(fromDate), parseDate(toDate), status);
+        model.addAttribute("filter", filter);
+        model.addAttribute("size", size);
+        model.addAttribute("sources", busService.getAllSources());
+        model.addAttribute("destinations", busService.getAllDestinations());
         try {
-            List<Booking> bookings = bookingService.getAllBookings();
-            model.addAttribute("bookings", bookings);
-            logger.info("Loaded {} bookings for management", bookings.size());
+            BookingPage page = bookingService.getBookingPage(filter, cursor, size);
+            model.addAttribute("bookings", page.getBookings());
+            model.addAttribute("nextCursor", page.getNextCursor());
+            model.addAttribute("firstPage", cursor == null);
+            logger.info("Loaded {} bookings for management", page.getBookings().size());
             return "admin-bookings";
         } catch (Exception e) {
             logger.error("Error loading bookings: {}", e.getMessage());
+            model.addAttribute("bookings", List.of());
             model.addAttribute("error", "Error loading bookings: " + e.getMessage());
             return "admin-bookings";
         }
     }
 
+    /**
+     * Stream the booking ledger as CSV or NDJSON (format=csv|ndjson) for finance
+     */
+    @GetMapping("/bookings/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(@RequestParam(defaultValue = "csv") String format,
+                                                               @RequestParam(required = false) String fromDate,
+                                                               @RequestParam(required = false) String toDate) {
+        BookingExportService.Format exportFormat = "ndjson".equalsIgnoreCase(format)
+                ? BookingExportService.Format.NDJSON
+                : BookingExportService.Format.CSV;
+        LocalDate from = parseDate(fromDate);
+        LocalDate to = parseDate(toDate);
+        boolean csv = exportFormat == BookingExportService.Format.CSV;
+
+        StreamingResponseBody body = out -> bookingExportService.exportBookings(exportFormat, from, to, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bookings." + (csv ? "csv" : "ndjson") + "\"")
+                .contentType(csv ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                        : MediaType.parseMediaType("application/x-ndjson;charset=UTF-8"))
+                .body(body);
+    }
+
     /**
      * Show edit booking form
      */
     @GetMapping("/edit-booking/{id}")
     public String editBookingForm(@PathVariable Long id, Model model) {
         try {
-            // For now, we'll use a workaround since getBookingById might not exist
-            List<Booking> allBookings = bookingService.getAllBookings();
-            Booking booking = allBookings.stream()
-                    .filter(b -> b.getId().equals(id))
-                    .findFirst()
-                    .orElse(null);
-                    
+            Booking booking = bookingService.getBookingById(id);
             if (booking == null) {
-                model.addAttribute("error", "Booking not found!");
-                return "redirect:/admin/bookings";
+                return "redirect:/admin/bookings?error=Booking not found!";
             }
-            
-            List<Bus> buses = busService.getAllBuses();
+
             model.addAttribute("booking", booking);
-            model.addAttribute("buses", buses);
+            model.addAttribute("buses", busService.getBusSummaries());
             logger.info("Loaded booking for editing: {}", booking.getId());
             return "admin-edit-booking";
         } catch (Exception e) {
@@ -78,10 +130,11 @@ public class BookingManagementController {
     }
 
     /**
-     * Update booking details - FIXED: Proper parameter binding
+     * Update booking details, refusing the change if another admin edited the booking first
      */
     @PostMapping("/update-booking")
     public String updateBooking(@RequestParam("bookingId") Long bookingId,
+                               @RequestParam("version") Long version,
                                @RequestParam("busId") Long busId,
                                @RequestParam("travelDate") String travelDate,
                                @RequestParam("passengers") int passengers,
@@ -89,50 +142,148 @@ public class BookingManagementController {
                                Model model) {
         try {
             logger.info("Starting booking update");
-            
-            // Workaround to find booking
-            List<Booking> allBookings = bookingService.getAllBookings();
-            Booking booking = allBookings.stream()
-                    .filter(b -> b.getId().equals(bookingId))
-                    .findFirst()
-                    .orElse(null);
-                    
+
+            Booking booking = bookingService.getBookingById(bookingId);
             if (booking == null) {
                 logger.error("Booking not found with ID: {}", bookingId);
                 return "redirect:/admin/bookings?error=Booking not found!";
             }
+            if (!version.equals(booking.getVersion())) {
+                logger.warn("Stale edit of booking {}", bookingId);
+                return "redirect:/admin/bookings?error=" + STALE_EDIT_MESSAGE;
+            }
 
             Bus bus = busService.getBusById(busId);
-            if (bus != null) {
-                booking.setBusName(bus.getBusName());
-                booking.setSource(bus.getSource());
-                booking.setDestination(bus.getDestination());
-                logger.info("Bus updated: {}", bus.getBusName());
-            } else {
-                logger.warn("Bus not found with ID: {}", busId);
-            }
+            LocalDate newTravelDate = LocalDate.parse(travelDate);
 
-            booking.setTravelDate(LocalDate.parse(travelDate));
-            booking.setPassengers(passengers);
-            
-            // Calculate total price if bus is found
-            if (bus != null) {
-                double totalPrice = bus.getPrice() * passengers;
-                booking.setTotalPrice(totalPrice);
-                logger.info("Total price calculated: €{}", totalPrice);
+            // Seats the edit needs are claimed before the booking is touched, so a refusal leaves it
+            // unchanged; seats it gives up are released only once the edit is saved
+            SeatChange change = SeatChange.between(SeatHold.of(booking),
+                    new SeatHold(bus != null ? bus.getId() : booking.getBusId(), newTravelDate, passengers, status));
+            if (!reserve(change.claim())) {
+                return "redirect:/admin/bookings?error=Not enough seats available for this change!";
+            }
+            boolean saved = false;
+            try {
+                Booking updatedBooking = saveEdit(booking, version, bus, busId, newTravelDate, passengers, status);
+                saved = true;
+                logger.info("Booking updated successfully: {}", updatedBooking.getId());
+            } catch (OptimisticLockingFailureException e) {
+                logger.warn("Concurrent edit of booking {}", bookingId);
+                return "redirect:/admin/bookings?error=" + STALE_EDIT_MESSAGE;
+            } finally {
+                // Whichever way the save went, the seats of the booking as stored are kept
+                release(saved ? change.freed() : change.claim());
             }
-            
-            booking.setStatus(status);
 
-            // Save the updated booking
-            Booking updatedBooking = bookingService.saveBooking(booking);
-            logger.info("Booking updated successfully: {}", updatedBooking.getId());
-            
             return "redirect:/admin/bookings?success=Booking updated successfully!";
-            
+
         } catch (Exception e) {
             logger.error("Error updating booking: {}", e.getMessage());
             return "redirect:/admin/bookings?error=Error updating booking: " + e.getMessage();
         }
     }
-}
\ No newline at end of file
+
+    private Booking saveEdit(Booking booking, Long version, Bus bus, Long busId, LocalDate newTravelDate,
+                             int passengers, String status) {
+        if (bus != null) {
+            booking.setBusId(bus.getId());
+            booking.setBusName(bus.getBusName());
+            booking.setSource(bus.getSource());
+            booking.setDestination(bus.getDestination());
+            logger.info("Bus updated: {}", bus.getBusName());
+        } else {
+            logger.warn("Bus not found with ID: {}", busId);
+        }
+
+        booking.setTravelDate(newTravelDate);
+        booking.setPassengers(passengers);
+
+        // Calculate total price if bus is found
+        if (bus != null) {
+            double totalPrice = bus.getPrice() * passengers;
+            booking.setTotalPrice(totalPrice);
+            logger.info("Total price calculated: €{}", totalPrice);
+        }
+
+        booking.setStatus(status);
+        return bookingService.updateBooking(booking, version);
+    }
+
+    private LocalDate parseDate(String date) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            logger.warn("Ignoring invalid date filter: {}", date);
+            return null;
+        }
+    }
+
+    /**
+     * Seats a booking holds in the seat ledger; cancelled bookings hold none
+     */
+    private record SeatHold(Long busId, LocalDate travelDate, int passengers, String status) {
+
+        static SeatHold of(Booking booking) {
+            return new SeatHold(booking.getBusId(), booking.getTravelDate(), booking.getPassengers(), booking.getStatus());
+        }
+
+        boolean holdsSeats() {
+            return busId != null && passengers > 0 && !Booking.STATUS_CANCELLED.equals(status);
+        }
+
+        boolean sameDeparture(SeatHold other) {
+            return busId.equals(other.busId) && Objects.equals(travelDate, other.travelDate);
+        }
+
+        SeatHold withPassengers(int seats) {
+            return new SeatHold(busId, travelDate, seats, status);
+        }
+    }
+
+    /**
+     * What an edit does to the seat ledger: seats to claim before it is saved, and seats
+     * to give back after. Staying on the same departure only moves the difference.
+     */
+    private record SeatChange(SeatHold claim, SeatHold freed) {
+
+        static SeatChange between(SeatHold from, SeatHold to) {
+            if (from.holdsSeats() && to.holdsSeats() && from.sameDeparture(to)) {
+                int delta = to.passengers() - from.passengers();
+                return new SeatChange(to.withPassengers(Math.max(0, delta)), from.withPassengers(Math.max(0, -delta)));
+            }
+            return new SeatChange(to, from);
+        }
+    }
+
+    /**
+     * @return false if the departure does not have enough seats
+     */
+    private boolean reserve(SeatHold hold) {
+        if (hold.holdsSeats() && !seatInventoryService.reserveSeats(hold.busId(), hold.travelDate(),
+                hold.passengers())) {
+            logger.warn("Not enough seats on bus {} for {}", hold.busId(), hold.travelDate());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Give seats back; a failure is logged rather than thrown, since the edit itself has already
+     * been decided by then and the ledger only keeps seats it should not, never fewer
+     */
+    private void release(SeatHold hold) {
+        if (!hold.holdsSeats()) {
+            return;
+        }
+        try {
+            seatInventoryService.releaseSeats(hold.busId(), hold.travelDate(), hold.passengers());
+        } catch (RuntimeException e) {
+            logger.error("Could not release {} seats on bus {} for {}; the ledger still counts them: {}",
+                    hold.passengers(), hold.busId(), hold.travelDate(), e.getMessage());
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.busbooking.system.controller;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,12 +20,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import com.busbooking.system.dto.CartSummary;
 import com.busbooking.system.model.Booking;
 import com.busbooking.system.model.Bus;
 import com.busbooking.system.model.Cart;
+import com.busbooking.system.service.BookingPipeline;
 import com.busbooking.system.service.BookingService;
 import com.busbooking.system.service.BusService;
 import com.busbooking.system.service.CartService;
+import com.busbooking.system.service.JourneyPlannerService;
+import com.busbooking.system.service.SeatHoldService;
+import com.busbooking.system.service.SeatInventoryService;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -39,6 +51,8 @@ public class BusController {
     private static final String BOOKINGS_ATTRIBUTE = "bookings";
     private static final String PAYMENT_METHOD_ATTRIBUTE = "paymentMethod";
     private static final String BOOKING_COUNT_ATTRIBUTE = "bookingCount";
+    private static final String HELD_UNTIL_ATTRIBUTE = "heldUntil";
+    private static final String SUMMARY_ATTRIBUTE = "summary";
 
     private static final String BUSES_VIEW = "buses";
     private static final String BOOKING_FORM_VIEW = "booking-form";
@@ -47,12 +61,15 @@ public class BusController {
     private static final String BOOKING_SUCCESS_VIEW = "booking-success";
     private static final String MY_BOOKINGS_VIEW = "my-bookings";
     private static final String DASHBOARD_VIEW = "dashboard";
+    private static final String JOURNEYS_VIEW = "journeys";
 
     private static final String REDIRECT_BUSES = "redirect:/buses";
     private static final String REDIRECT_CART = "redirect:/cart";
     private static final String REDIRECT_PAYMENT = "redirect:/payment";
     private static final String REDIRECT_BOOK = "redirect:/book/";
 
+    private static final DateTimeFormatter HOLD_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private final List<String> irelandLocations = Arrays.asList(
             "Dublin", "Cork", "Galway", "Limerick", "Waterford", "Drogheda",
             "Dundalk", "Swords", "Bray", "Navan", "Kilkenny", "Ennis", "Carlow",
@@ -63,13 +80,25 @@ public class BusController {
     private final BusService busService;
     private final BookingService bookingService;
     private final CartService cartService;
+    private final SeatInventoryService seatInventoryService;
+    private final JourneyPlannerService journeyPlannerService;
+    private final BookingPipeline bookingPipeline;
+    private final SeatHoldService seatHoldService;
 
     public BusController(BusService busService,
                          BookingService bookingService,
-                         CartService cartService) {
+                         CartService cartService,
+                         SeatInventoryService seatInventoryService,
+                         JourneyPlannerService journeyPlannerService,
+                         BookingPipeline bookingPipeline,
+                         SeatHoldService seatHoldService) {
         this.busService = busService;
         this.bookingService = bookingService;
         this.cartService = cartService;
+        this.seatInventoryService = seatInventoryService;
+        this.journeyPlannerService = journeyPlannerService;
+        this.bookingPipeline = bookingPipeline;
+        this.seatHoldService = seatHoldService;
     }
 
     @GetMapping("/dashboard")
@@ -107,6 +136,32 @@ public class BusController {
         }
     }
 
+    @GetMapping("/journeys")
+    public String planJourney(@RequestParam(required = false) String source,
+                              @RequestParam(required = false) String destination,
+                              @RequestParam(required = false) String date,
+                              @RequestParam String username,
+                              Model model) {
+
+        model.addAttribute(USERNAME_ATTRIBUTE, username);
+        model.addAttribute(LOCATIONS_ATTRIBUTE, irelandLocations);
+        model.addAttribute("selectedSource", source);
+        model.addAttribute("selectedDestination", destination);
+        model.addAttribute("selectedDate", date);
+
+        if (source == null || source.isEmpty() || destination == null || destination.isEmpty()) {
+            return JOURNEYS_VIEW;
+        }
+
+        LocalDate travelDate = isValidTravelDate(date) ? LocalDate.parse(date) : LocalDate.now().plusDays(1);
+        LocalTime earliestDeparture = travelDate.equals(LocalDate.now()) ? LocalTime.now() : null;
+
+        model.addAttribute("searched", true);
+        model.addAttribute("journey",
+                journeyPlannerService.findEarliestArrival(source, destination, travelDate, earliestDeparture));
+        return JOURNEYS_VIEW;
+    }
+
     @GetMapping("/book/{id}")
     public String showBookingForm(@PathVariable Long id,
                                   @RequestParam String username,
@@ -155,7 +210,14 @@ public class BusController {
                 bus.getPrice() * passengers
         );
 
-        cartService.addToCart(cart);
+        // The seats are held for the item while it sits in the cart
+        Cart saved = cartService.addToCart(cart);
+        if (!seatHoldService.hold(saved)) {
+            cartService.removeFromCart(saved.getId(), saved.getUsername());
+            return REDIRECT_CART + "?" + USERNAME_ATTRIBUTE + "=" + username + "&" + ERROR_ATTRIBUTE
+                    + "=Only " + seatInventoryService.getAvailableSeats(busId, LocalDate.parse(travelDate))
+                    + " seats left on " + bus.getBusName() + " for " + travelDate;
+        }
         return REDIRECT_CART + "?" + USERNAME_ATTRIBUTE + "=" + username;
     }
 
@@ -174,11 +236,20 @@ public class BusController {
                            @RequestParam(required = false) String error,
                            Model model) {
 
-        List<Cart> cartItems = cartService.getCartByUser(username);
-        double total = cartService.getCartTotal(username);
+        CartSummary summary = cartService.getCartSummary(username);
 
-        model.addAttribute(CART_ITEMS_ATTRIBUTE, cartItems);
-        model.addAttribute(TOTAL_ATTRIBUTE, total);
+        Map<Long, String> heldUntil = new HashMap<>();
+        for (Cart item : summary.getItems()) {
+            Instant expiry = seatHoldService.getExpiry(item.getId());
+            if (expiry != null) {
+                heldUntil.put(item.getId(), HOLD_TIME_FORMAT.format(expiry.atZone(ZoneId.systemDefault())));
+            }
+        }
+
+        model.addAttribute(CART_ITEMS_ATTRIBUTE, summary.getItems());
+        model.addAttribute(HELD_UNTIL_ATTRIBUTE, heldUntil);
+        model.addAttribute(TOTAL_ATTRIBUTE, summary.getTotal());
+        model.addAttribute(SUMMARY_ATTRIBUTE, summary);
         model.addAttribute(USERNAME_ATTRIBUTE, username);
         model.addAttribute(MESSAGE_ATTRIBUTE, message);
         model.addAttribute(ERROR_ATTRIBUTE, error);
@@ -190,20 +261,24 @@ public class BusController {
     public String removeFromCart(@PathVariable Long id,
                                  @RequestParam String username) {
 
-        cartService.removeFromCart(id);
+        // The session check has matched username to the signed-in user; the item must be theirs too
+        if (!cartService.removeFromCart(id, username)) {
+            logger.warn("{} tried to remove cart item {} that is not in their cart", username, id);
+        }
         return REDIRECT_CART + "?" + USERNAME_ATTRIBUTE + "=" + username;
     }
 
     @GetMapping("/payment")
     public String showPayment(@RequestParam String username, Model model) {
 
-        List<Cart> cartItems = cartService.getCartByUser(username);
-        if (cartItems.isEmpty()) {
+        CartSummary summary = cartService.getCartSummary(username);
+        if (summary.isEmpty()) {
             return REDIRECT_CART + "?" + USERNAME_ATTRIBUTE + "=" + username;
         }
 
-        model.addAttribute(CART_ITEMS_ATTRIBUTE, cartItems);
-        model.addAttribute(TOTAL_ATTRIBUTE, cartService.getCartTotal(username));
+        model.addAttribute(CART_ITEMS_ATTRIBUTE, summary.getItems());
+        model.addAttribute(TOTAL_ATTRIBUTE, summary.getTotal());
+        model.addAttribute(SUMMARY_ATTRIBUTE, summary);
         model.addAttribute(USERNAME_ATTRIBUTE, username);
 
         return PAYMENT_VIEW;
@@ -221,6 +296,8 @@ public class BusController {
             return REDIRECT_CART + "?" + USERNAME_ATTRIBUTE + "=" + username;
         }
 
+        List<Booking> bookings = new ArrayList<>();
+        List<Long> cartIds = new ArrayList<>();
         for (Cart cart : cartItems) {
 
             String dateStr = cart.getTravelDate();
@@ -245,11 +322,54 @@ public class BusController {
                     cart.getPassengers(),
                     cart.getTotalPrice()
             );
+            booking.setBusId(cart.getBusId());
+            bookings.add(booking);
+            cartIds.add(cart.getId());
+        }
 
-            bookingService.saveBooking(booking);
+        // Claim seats for the whole cart before anything is written. Items whose hold
+        // has lapsed go first, so a sold-out item fails the checkout before any hold is spent.
+        List<Booking> claimed = new ArrayList<>();
+        boolean[] held = new boolean[bookings.size()];
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            held[i] = seatHoldService.isHeld(cartIds.get(i));
+            if (held[i]) {
+                continue;
+            }
+            if (!claimSeats(booking)) {
+                releaseSeats(claimed);
+                return notEnoughSeats(username, booking);
+            }
+            claimed.add(booking);
+        }
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            // Held seats become booked seats; a hold that expired just now claims afresh
+            if (held[i] && !seatHoldService.confirm(cartIds.get(i)) && !claimSeats(booking)) {
+                releaseSeats(claimed);
+                return notEnoughSeats(username, booking);
+            }
+            if (held[i]) {
+                claimed.add(booking);
+            }
         }
 
-        cartService.clearCart(username);
+        try {
+            if (bookingPipeline.isEnabled()) {
+                bookingPipeline.confirm(username, bookings);
+            } else {
+                bookingService.confirmBookings(username, bookings);
+            }
+        } catch (BookingPipeline.CommitInProgressException e) {
+            // The bookings may yet be committed, so their seats stay claimed
+            logger.error("Checkout for {} did not finish in time: {}", username, e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            // Nothing was committed, so every claimed seat goes back
+            releaseSeats(claimed);
+            throw e;
+        }
 
         model.addAttribute(USERNAME_ATTRIBUTE, username);
         model.addAttribute(TOTAL_ATTRIBUTE, total);
@@ -260,6 +380,24 @@ public class BusController {
         return BOOKING_SUCCESS_VIEW;
     }
 
+    private boolean claimSeats(Booking booking) {
+        return booking.getBusId() == null || seatInventoryService.reserveSeats(
+                booking.getBusId(), booking.getTravelDate(), booking.getPassengers());
+    }
+
+    private String notEnoughSeats(String username, Booking booking) {
+        return REDIRECT_CART + "?" + USERNAME_ATTRIBUTE + "=" + username + "&" + ERROR_ATTRIBUTE
+                + "=Not enough seats left on " + booking.getBusName() + " for " + booking.getTravelDate();
+    }
+
+    private void releaseSeats(List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            if (booking.getBusId() != null) {
+                seatInventoryService.releaseSeats(booking.getBusId(), booking.getTravelDate(), booking.getPassengers());
+            }
+        }
+    }
+
     @GetMapping("/my-bookings")
     public String myBookings(@RequestParam String username,
                              @RequestParam(required = false) String message,
@@ -0,0 +1,44 @@
+package com.busbooking.system.controller;
+
+import com.busbooking.system.service.GtfsFeedService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+
+/**
+ * Controller for the public GTFS timetable feed used by journey-planning partners
+ */
+@Controller
+public class GtfsFeedController {
+
+    private final GtfsFeedService gtfsFeedService;
+
+    public GtfsFeedController(GtfsFeedService gtfsFeedService) {
+        this.gtfsFeedService = gtfsFeedService;
+    }
+
+    /**
+     * Download the feed. Clients that send back the ETag get 304 until the timetable changes.
+     */
+    @GetMapping("/gtfs/feed.zip")
+    public ResponseEntity<Resource> downloadFeed(WebRequest request) throws IOException {
+        GtfsFeedService.Feed feed = gtfsFeedService.getFeed();
+        String etag = '"' + feed.etag() + '"';
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"gtfs.zip\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .contentLength(feed.size())
+                .body(new FileSystemResource(feed.file()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.busbooking.system.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Admin booking filters; blank text fields mean "any"
+ */
+public class BookingFilter {
+
+    private final String username;
+    private final String source;
+    private final String destination;
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+    private final String status;
+
+    public BookingFilter(String username, String source, String destination,
+                         LocalDate fromDate, LocalDate toDate, String status) {
+        this.username = blankToNull(username);
+        this.source = blankToNull(source);
+        this.destination = blankToNull(destination);
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.status = blankToNull(status);
+    }
+
+    public static BookingFilter none() {
+        return new BookingFilter(null, null, null, null, null, null);
+    }
+
+    public String getUsername() { return username; }
+
+    public String getSource() { return source; }
+
+    public String getDestination() { return destination; }
+
+    public LocalDate getFromDate() { return fromDate; }
+
+    public LocalDate getToDate() { return toDate; }
+
+    public String getStatus() { return status; }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
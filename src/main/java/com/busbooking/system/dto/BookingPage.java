@@ -0,0 +1,28 @@
+package com.busbooking.system.dto;
+
+import com.busbooking.system.model.Booking;
+
+import java.util.List;
+
+/**
+ * One page of bookings, newest first. The next page starts below nextCursor,
+ * which is the id of the last booking on this page.
+ */
+public class BookingPage {
+
+    private final List<Booking> bookings;
+    private final Long nextCursor;
+
+    public BookingPage(List<Booking> bookings, Long nextCursor) {
+        this.bookings = List.copyOf(bookings);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Booking> getBookings() { return bookings; }
+
+    public Long getNextCursor() { return nextCursor; }
+
+    public boolean isHasNext() { return nextCursor != null; }
+
+    public boolean isEmpty() { return bookings.isEmpty(); }
+}
@@ -0,0 +1,63 @@
+package com.busbooking.system.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk bus import. Rows that failed validation or could not be saved
+ * are listed with their line number; the rest of the file is still imported.
+ */
+public class BusImportReport {
+
+    /**
+     * One rejected row
+     */
+    public static class RowError {
+        private final int line;
+        private final String message;
+
+        public RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public int getLine() { return line; }
+
+        public String getMessage() { return message; }
+    }
+
+    private final int rowsRead;
+    private final int inserted;
+    private final int updated;
+    private final int failed;
+    private final List<RowError> errors;
+    private final long elapsedMillis;
+
+    public BusImportReport(int rowsRead, int inserted, int updated, int failed,
+                           List<RowError> errors, long elapsedMillis) {
+        this.rowsRead = rowsRead;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.failed = failed;
+        this.errors = List.copyOf(errors);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getRowsRead() { return rowsRead; }
+
+    public int getInserted() { return inserted; }
+
+    public int getUpdated() { return updated; }
+
+    public int getFailed() { return failed; }
+
+    /**
+     * The first errors of the run; getFailed() counts all of them
+     */
+    public List<RowError> getErrors() { return errors; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? rowsRead : rowsRead * 1000L / elapsedMillis;
+    }
+}
@@ -0,0 +1,27 @@
+package com.busbooking.system.dto;
+
+/**
+ * The few bus fields a picker needs, without loading whole Bus entities
+ */
+public class BusSummary {
+
+    private final Long id;
+    private final String busName;
+    private final String source;
+    private final String destination;
+
+    public BusSummary(Long id, String busName, String source, String destination) {
+        this.id = id;
+        this.busName = busName;
+        this.source = source;
+        this.destination = destination;
+    }
+
+    public Long getId() { return id; }
+
+    public String getBusName() { return busName; }
+
+    public String getSource() { return source; }
+
+    public String getDestination() { return destination; }
+}
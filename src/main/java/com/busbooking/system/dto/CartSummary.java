@@ -0,0 +1,37 @@
+package com.busbooking.system.dto;
+
+import com.busbooking.system.model.Cart;
+
+import java.util.List;
+
+/**
+ * A user's cart items with the figures the cart and payment pages show
+ */
+public class CartSummary {
+
+    private final List<Cart> items;
+    private final double total;
+    private final long passengers;
+
+    public CartSummary(List<Cart> items, double total, long passengers) {
+        this.items = List.copyOf(items);
+        this.total = total;
+        this.passengers = passengers;
+    }
+
+    public static CartSummary of(List<Cart> items) {
+        return new CartSummary(items,
+                items.stream().mapToDouble(Cart::getTotalPrice).sum(),
+                items.stream().mapToLong(Cart::getPassengers).sum());
+    }
+
+    public List<Cart> getItems() { return items; }
+
+    public double getTotal() { return total; }
+
+    public int getItemCount() { return items.size(); }
+
+    public long getPassengers() { return passengers; }
+
+    public boolean isEmpty() { return items.isEmpty(); }
+}
@@ -0,0 +1,29 @@
+package com.busbooking.system.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Confirmed bookings, passengers and revenue across all routes on one travel date
+ */
+public class DailyStats {
+
+    private final LocalDate travelDate;
+    private final long bookings;
+    private final long passengers;
+    private final double revenue;
+
+    public DailyStats(LocalDate travelDate, Long bookings, Long passengers, Double revenue) {
+        this.travelDate = travelDate;
+        this.bookings = bookings == null ? 0 : bookings;
+        this.passengers = passengers == null ? 0 : passengers;
+        this.revenue = revenue == null ? 0 : revenue;
+    }
+
+    public LocalDate getTravelDate() { return travelDate; }
+
+    public long getBookings() { return bookings; }
+
+    public long getPassengers() { return passengers; }
+
+    public double getRevenue() { return revenue; }
+}
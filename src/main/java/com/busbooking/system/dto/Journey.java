@@ -0,0 +1,32 @@
+package com.busbooking.system.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Earliest-arrival journey made of one or more connecting bus legs
+ */
+public class Journey {
+
+    private final List<JourneyLeg> legs;
+    private final LocalDateTime departure;
+    private final LocalDateTime arrival;
+
+    public Journey(List<JourneyLeg> legs, LocalDateTime departure, LocalDateTime arrival) {
+        this.legs = List.copyOf(legs);
+        this.departure = departure;
+        this.arrival = arrival;
+    }
+
+    public List<JourneyLeg> getLegs() { return legs; }
+
+    public LocalDateTime getDeparture() { return departure; }
+
+    public LocalDateTime getArrival() { return arrival; }
+
+    public int getTransfers() { return legs.size() - 1; }
+
+    public double getTotalPrice() {
+        return legs.stream().mapToDouble(JourneyLeg::getPrice).sum();
+    }
+}
@@ -0,0 +1,47 @@
+package com.busbooking.system.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * One bus ride within a planned journey
+ */
+public class JourneyLeg {
+
+    private final Long busId;
+    private final String busName;
+    private final String source;
+    private final String destination;
+    private final LocalDate travelDate;
+    private final LocalTime departureTime;
+    private final LocalTime arrivalTime;
+    private final double price;
+
+    public JourneyLeg(Long busId, String busName, String source, String destination,
+                      LocalDate travelDate, LocalTime departureTime, LocalTime arrivalTime, double price) {
+        this.busId = busId;
+        this.busName = busName;
+        this.source = source;
+        this.destination = destination;
+        this.travelDate = travelDate;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.price = price;
+    }
+
+    public Long getBusId() { return busId; }
+
+    public String getBusName() { return busName; }
+
+    public String getSource() { return source; }
+
+    public String getDestination() { return destination; }
+
+    public LocalDate getTravelDate() { return travelDate; }
+
+    public LocalTime getDepartureTime() { return departureTime; }
+
+    public LocalTime getArrivalTime() { return arrivalTime; }
+
+    public double getPrice() { return price; }
+}
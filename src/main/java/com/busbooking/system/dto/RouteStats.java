@@ -0,0 +1,31 @@
+package com.busbooking.system.dto;
+
+/**
+ * Confirmed bookings, passengers and revenue of one route over a range of travel dates
+ */
+public class RouteStats {
+
+    private final String source;
+    private final String destination;
+    private final long bookings;
+    private final long passengers;
+    private final double revenue;
+
+    public RouteStats(String source, String destination, Long bookings, Long passengers, Double revenue) {
+        this.source = source;
+        this.destination = destination;
+        this.bookings = bookings == null ? 0 : bookings;
+        this.passengers = passengers == null ? 0 : passengers;
+        this.revenue = revenue == null ? 0 : revenue;
+    }
+
+    public String getSource() { return source; }
+
+    public String getDestination() { return destination; }
+
+    public long getBookings() { return bookings; }
+
+    public long getPassengers() { return passengers; }
+
+    public double getRevenue() { return revenue; }
+}
@@ -1,22 +1,37 @@
 package com.busbooking.system.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "booking")
+@Table(name = "booking", indexes = {
+        // Keyset pages walk id downwards; each filter gets an index ending in id
+        @Index(name = "idx_booking_user_id", columnList = "username, id"),
+        @Index(name = "idx_booking_status_id", columnList = "status, id"),
+        @Index(name = "idx_booking_route_id", columnList = "source, destination, id"),
+        @Index(name = "idx_booking_travel_date", columnList = "travelDate")
+})
 public class Booking {
 
     // Constants for status literals
     public static final String STATUS_CONFIRMED = "CONFIRMED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
     public static final String PAYMENT_STATUS_PAID = "PAID";
 
+    // Ids come from a pooled sequence so a checkout's inserts can be JDBC-batched;
+    // IDENTITY needs a round trip per row to learn the generated key
+    public static final String ID_SEQUENCE = "booking_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private String username;
+    private Long busId;
     private String busName;
     private String source;
     private String destination;
@@ -30,6 +45,11 @@ public class Booking {
     @Column(length = 1000)
     private String adminNotes;
 
+    // Optimistic lock for admin edits; the default fills rows that predate the column
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     public Booking() {
         // default constructor for JPA
     }
@@ -92,6 +112,14 @@ public class Booking {
         this.username = username;
     }
 
+    public Long getBusId() {
+        return busId;
+    }
+
+    public void setBusId(Long busId) {
+        this.busId = busId;
+    }
+
     public String getBusName() {
         return busName;
     }
@@ -171,4 +199,12 @@ public class Booking {
     public void setAdminNotes(String adminNotes) {
         this.adminNotes = adminNotes;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
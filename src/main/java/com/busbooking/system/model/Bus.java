@@ -3,13 +3,23 @@ package com.busbooking.system.model;
 import jakarta.persistence.*;
 import java.time.LocalTime;
 import java.time.LocalDate;
+import java.util.Locale;
 
 @Entity
-@Table(name = "bus")
+@Table(name = "bus", indexes = {
+    @Index(name = "idx_bus_active_route_key", columnList = "active, sourceKey, destinationKey"),
+    @Index(name = "idx_bus_active_dates", columnList = "active, startDate, endDate"),
+    @Index(name = "idx_bus_natural_key", columnList = "busName, source, destination, departureTime")
+})
 public class Bus {
 
+    // Pooled sequence ids, so bulk imports can batch their inserts
+    public static final String ID_SEQUENCE = "bus_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private String busName;
@@ -27,6 +37,10 @@ public class Bus {
     private LocalDate endDate;
     private String operatingDays; // e.g., "MON,TUE,WED,THU,FRI,SAT,SUN"
 
+    // Lower-cased copies of source and destination, so route searches compare indexed values as they are
+    private String sourceKey;
+    private String destinationKey;
+
     public Bus() {}
 
     // Alternative constructor with fewer parameters for SonarQube
@@ -99,4 +113,22 @@ public class Bus {
 
     public String getOperatingDays() { return operatingDays; }
     public void setOperatingDays(String operatingDays) { this.operatingDays = operatingDays; }
-}
\ No newline at end of file
+
+    public String getSourceKey() { return sourceKey; }
+
+    public String getDestinationKey() { return destinationKey; }
+
+    @PrePersist
+    @PreUpdate
+    void updateRouteKeys() {
+        this.sourceKey = routeKey(source);
+        this.destinationKey = routeKey(destination);
+    }
+
+    /**
+     * The form a place name is stored and searched in: trimmed and lower-cased
+     */
+    public static String routeKey(String place) {
+        return place == null || place.isBlank() ? null : place.trim().toLowerCase(Locale.ROOT);
+    }
+}
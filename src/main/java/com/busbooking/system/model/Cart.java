@@ -1,9 +1,14 @@
 package com.busbooking.system.model;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cart")
+@Table(name = "cart", indexes = {
+    @Index(name = "idx_cart_username", columnList = "username"),
+    @Index(name = "idx_cart_created_at", columnList = "createdAt"),
+    @Index(name = "idx_cart_travel_date", columnList = "travelDate")
+})
 public class Cart {
 
     @Id
@@ -18,6 +23,7 @@ public class Cart {
     private String travelDate;
     private int passengers;
     private double totalPrice;
+    private LocalDateTime createdAt;
 
     public Cart() {}
 
@@ -36,6 +42,7 @@ public class Cart {
         this.travelDate = travelDate;
         this.passengers = passengers;
         this.totalPrice = totalPrice;
+        this.createdAt = LocalDateTime.now();
     }
 
     // ******** GETTERS & SETTERS ********
@@ -75,4 +82,8 @@ public class Cart {
     public double getTotalPrice() { return totalPrice; }
 
     public void setTotalPrice(double totalPrice) { this.totalPrice = totalPrice; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
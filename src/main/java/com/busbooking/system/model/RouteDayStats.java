@@ -0,0 +1,82 @@
+package com.busbooking.system.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Running totals of the confirmed bookings for one route on one travel date.
+ * Kept current by relative updates as bookings are written, and reconciled
+ * against the booking table by a periodic rebuild.
+ */
+@Entity
+@Table(name = "route_day_stats",
+       uniqueConstraints = @UniqueConstraint(name = "uk_route_day_stats",
+               columnNames = {"source", "destination", "travelDate"}),
+       indexes = @Index(name = "idx_route_day_stats_date", columnList = "travelDate"))
+public class RouteDayStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String source;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(nullable = false)
+    private LocalDate travelDate;
+
+    private long bookings;
+    private long passengers;
+    private double revenue;
+
+    public RouteDayStats() {}
+
+    public RouteDayStats(String source, String destination, LocalDate travelDate) {
+        this.source = source;
+        this.destination = destination;
+        this.travelDate = travelDate;
+    }
+
+    // Aggregate query results; SUM and COUNT come back boxed
+    public RouteDayStats(String source, String destination, LocalDate travelDate,
+                         Long bookings, Long passengers, Double revenue) {
+        this(source, destination, travelDate);
+        this.bookings = bookings == null ? 0 : bookings;
+        this.passengers = passengers == null ? 0 : passengers;
+        this.revenue = revenue == null ? 0 : revenue;
+    }
+
+    /**
+     * Take the totals of another row for the same route and date
+     * @return true if any total changed (revenue to the cent)
+     */
+    public boolean copyTotals(RouteDayStats other) {
+        boolean changed = bookings != other.bookings || passengers != other.passengers
+                || Math.abs(revenue - other.revenue) >= 0.005;
+        this.bookings = other.bookings;
+        this.passengers = other.passengers;
+        this.revenue = other.revenue;
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return bookings == 0 && passengers == 0 && Math.abs(revenue) < 0.005;
+    }
+
+    public Long getId() { return id; }
+
+    public String getSource() { return source; }
+
+    public String getDestination() { return destination; }
+
+    public LocalDate getTravelDate() { return travelDate; }
+
+    public long getBookings() { return bookings; }
+
+    public long getPassengers() { return passengers; }
+
+    public double getRevenue() { return revenue; }
+}
@@ -0,0 +1,51 @@
+package com.busbooking.system.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Persisted seat ledger for one departure of a bus on a travel date
+ */
+@Entity
+@Table(name = "seat_inventory",
+       uniqueConstraints = @UniqueConstraint(name = "uk_seat_inventory_trip", columnNames = {"busId", "travelDate"}))
+public class SeatInventory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long busId;
+
+    @Column(nullable = false)
+    private LocalDate travelDate;
+
+    private int capacity;
+    private int seatsBooked;
+
+    public SeatInventory() {}
+
+    public SeatInventory(Long busId, LocalDate travelDate, int capacity) {
+        this.busId = busId;
+        this.travelDate = travelDate;
+        this.capacity = capacity;
+        this.seatsBooked = 0;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getBusId() { return busId; }
+    public void setBusId(Long busId) { this.busId = busId; }
+
+    public LocalDate getTravelDate() { return travelDate; }
+    public void setTravelDate(LocalDate travelDate) { this.travelDate = travelDate; }
+
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    public int getSeatsBooked() { return seatsBooked; }
+    public void setSeatsBooked(int seatsBooked) { this.seatsBooked = seatsBooked; }
+}
@@ -0,0 +1,99 @@
+package com.busbooking.system.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * A concrete departure of a bus on one travel date, materialized from the bus schedule
+ */
+@Entity
+@Table(name = "trip",
+       uniqueConstraints = @UniqueConstraint(name = "uk_trip_bus_date", columnNames = {"busId", "travelDate"}),
+       indexes = @Index(name = "idx_trip_date_route", columnList = "travelDate, source, destination"))
+public class Trip {
+
+    // Pooled sequence ids, so materializing an imported timetable batches its inserts
+    public static final String ID_SEQUENCE = "trip_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long busId;
+
+    @Column(nullable = false)
+    private LocalDate travelDate;
+
+    private String busName;
+    private String source;
+    private String destination;
+    private LocalTime departureTime;
+    private LocalTime arrivalTime;
+    private int capacity;
+    private double price;
+
+    public Trip() {}
+
+    public Trip(Long busId, LocalDate travelDate) {
+        this.busId = busId;
+        this.travelDate = travelDate;
+    }
+
+    /**
+     * Copy schedule details from the bus
+     * @return true if any field changed
+     */
+    public boolean copyFrom(Bus bus) {
+        boolean changed = !Objects.equals(busName, bus.getBusName())
+                || !Objects.equals(source, bus.getSource())
+                || !Objects.equals(destination, bus.getDestination())
+                || !Objects.equals(departureTime, bus.getDepartureTime())
+                || !Objects.equals(arrivalTime, bus.getArrivalTime())
+                || capacity != bus.getSeats()
+                || Double.compare(price, bus.getPrice()) != 0;
+        this.busName = bus.getBusName();
+        this.source = bus.getSource();
+        this.destination = bus.getDestination();
+        this.departureTime = bus.getDepartureTime();
+        this.arrivalTime = bus.getArrivalTime();
+        this.capacity = bus.getSeats();
+        this.price = bus.getPrice();
+        return changed;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getBusId() { return busId; }
+    public void setBusId(Long busId) { this.busId = busId; }
+
+    public LocalDate getTravelDate() { return travelDate; }
+    public void setTravelDate(LocalDate travelDate) { this.travelDate = travelDate; }
+
+    public String getBusName() { return busName; }
+    public void setBusName(String busName) { this.busName = busName; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+
+    public LocalTime getDepartureTime() { return departureTime; }
+    public void setDepartureTime(LocalTime departureTime) { this.departureTime = departureTime; }
+
+    public LocalTime getArrivalTime() { return arrivalTime; }
+    public void setArrivalTime(LocalTime arrivalTime) { this.arrivalTime = arrivalTime; }
+
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    public double getPrice() { return price; }
+    public void setPrice(double price) { this.price = price; }
+}
@@ -1,11 +1,43 @@
 package com.busbooking.system.repository;
 
 import com.busbooking.system.model.Booking;
+import com.busbooking.system.model.RouteDayStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking> {
     
     // Find all bookings by username
     List<Booking> findByUsername(String username);
-}
\ No newline at end of file
+
+    // Export cursor: rows are fetched from the driver in chunks instead of all at once
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Booking b WHERE (:fromDate IS NULL OR b.travelDate >= :fromDate) "
+            + "AND (:toDate IS NULL OR b.travelDate <= :toDate) ORDER BY b.id")
+    Stream<Booking> streamForExport(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    // Confirmed totals per route and travel date, to reconcile RouteDayStats against
+    @Query("SELECT new com.busbooking.system.model.RouteDayStats(b.source, b.destination, b.travelDate, "
+            + "COUNT(b), SUM(b.passengers), SUM(b.totalPrice)) FROM Booking b "
+            + "WHERE b.travelDate BETWEEN :from AND :to AND b.source IS NOT NULL AND b.destination IS NOT NULL "
+            + "AND (b.status IS NULL OR b.status <> '" + Booking.STATUS_CANCELLED + "') "
+            + "GROUP BY b.source, b.destination, b.travelDate")
+    List<RouteDayStats> sumByRouteAndDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT MIN(b.travelDate) FROM Booking b")
+    LocalDate findFirstTravelDate();
+
+    @Query("SELECT MAX(b.travelDate) FROM Booking b")
+    LocalDate findLastTravelDate();
+}
@@ -0,0 +1,50 @@
+package com.busbooking.system.repository;
+
+import com.busbooking.system.dto.BookingFilter;
+import com.busbooking.system.model.Booking;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria for the admin bookings page. Only the filters that are set become
+ * predicates, so each query can use the index that matches it.
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    /**
+     * Bookings matching the filter with an id below the cursor (null for the first page)
+     */
+    public static Specification<Booking> matching(BookingFilter filter, Long cursor) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (cursor != null) {
+                predicates.add(cb.lessThan(root.get("id"), cursor));
+            }
+            if (filter.getUsername() != null) {
+                predicates.add(cb.equal(root.get("username"), filter.getUsername()));
+            }
+            if (filter.getSource() != null) {
+                predicates.add(cb.equal(root.get("source"), filter.getSource()));
+            }
+            if (filter.getDestination() != null) {
+                predicates.add(cb.equal(root.get("destination"), filter.getDestination()));
+            }
+            if (filter.getFromDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("travelDate"), filter.getFromDate()));
+            }
+            if (filter.getToDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("travelDate"), filter.getToDate()));
+            }
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
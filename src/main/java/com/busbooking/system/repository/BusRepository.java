@@ -1,7 +1,57 @@
 package com.busbooking.system.repository;
 
+import com.busbooking.system.dto.BusSummary;
 import com.busbooking.system.model.Bus;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
 
-public interface BusRepository extends JpaRepository<Bus, Long> {
+public interface BusRepository extends JpaRepository<Bus, Long>, JpaSpecificationExecutor<Bus> {
+
+    // Uses idx_bus_active_route_key on its leading column
+    List<Bus> findByActiveTrueOrderByIdAsc();
+
+    // Active buses on an optional route whose schedule covers an optional travel date
+    default List<Bus> searchActive(String source, String destination, LocalDate travelDate) {
+        return findAll(BusSpecifications.activeOn(source, destination, travelDate), Sort.by("id"));
+    }
+
+    // Rows saved before the route key columns existed
+    @Transactional
+    @Modifying
+    @Query("UPDATE Bus b SET b.sourceKey = LOWER(TRIM(b.source)), b.destinationKey = LOWER(TRIM(b.destination)) " +
+           "WHERE (b.sourceKey IS NULL AND b.source IS NOT NULL) " +
+           "OR (b.destinationKey IS NULL AND b.destination IS NOT NULL)")
+    int backfillRouteKeys();
+
+    @Query("SELECT DISTINCT b.source FROM Bus b WHERE b.source IS NOT NULL ORDER BY b.source")
+    List<String> findDistinctSources();
+
+    @Query("SELECT DISTINCT b.destination FROM Bus b WHERE b.destination IS NOT NULL ORDER BY b.destination")
+    List<String> findDistinctDestinations();
+
+    @Query("SELECT new com.busbooking.system.dto.BusSummary(b.id, b.busName, b.source, b.destination) "
+            + "FROM Bus b ORDER BY b.id")
+    List<BusSummary> findAllSummaries();
+
+    /**
+     * Identity of a bus for imports: the same name on the same route at the same time is the same bus
+     */
+    interface NaturalKey {
+        Long getId();
+        String getBusName();
+        String getSource();
+        String getDestination();
+        LocalTime getDepartureTime();
+    }
+
+    @Query("SELECT b.id AS id, b.busName AS busName, b.source AS source, b.destination AS destination, "
+            + "b.departureTime AS departureTime FROM Bus b")
+    List<NaturalKey> findAllNaturalKeys();
 }
@@ -0,0 +1,45 @@
+package com.busbooking.system.repository;
+
+import com.busbooking.system.model.Bus;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria for bus search. Only the filters that are set become predicates, and the
+ * route is compared on the lower-cased key columns, so a route search is an index
+ * lookup on idx_bus_active_route_key and a date-only search can use idx_bus_active_dates.
+ */
+public final class BusSpecifications {
+
+    private BusSpecifications() {
+    }
+
+    /**
+     * Active buses on an optional route whose schedule covers an optional travel date
+     */
+    public static Specification<Bus> activeOn(String source, String destination, LocalDate travelDate) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isTrue(root.get("active")));
+            String sourceKey = Bus.routeKey(source);
+            if (sourceKey != null) {
+                predicates.add(cb.equal(root.get("sourceKey"), sourceKey));
+            }
+            String destinationKey = Bus.routeKey(destination);
+            if (destinationKey != null) {
+                predicates.add(cb.equal(root.get("destinationKey"), destinationKey));
+            }
+            if (travelDate != null) {
+                predicates.add(cb.or(cb.isNull(root.get("startDate")),
+                        cb.lessThanOrEqualTo(root.get("startDate"), travelDate)));
+                predicates.add(cb.or(cb.isNull(root.get("endDate")),
+                        cb.greaterThanOrEqualTo(root.get("endDate"), travelDate)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
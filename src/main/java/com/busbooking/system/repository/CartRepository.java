@@ -4,12 +4,28 @@ import com.busbooking.system.model.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     List<Cart> findByUsername(String username);
-    
+
+    /**
+     * The user's cart rows, each carrying the cart's total price and passenger count
+     * @return rows of (Cart, Double total, Long passengers)
+     */
+    @Query("SELECT c, SUM(c.totalPrice) OVER (), SUM(c.passengers) OVER () FROM Cart c "
+            + "WHERE c.username = :username ORDER BY c.id")
+    List<Object[]> findWithTotalsByUsername(@Param("username") String username);
+
+
+    // Scoped to the owner, so an item id alone cannot remove someone else's item
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.id = :id AND c.username = :username")
+    int deleteByIdAndUsername(@Param("id") Long id, @Param("username") String username);
+
     @Transactional
     @Modifying
     @Query("DELETE FROM Cart c WHERE c.username = :username")
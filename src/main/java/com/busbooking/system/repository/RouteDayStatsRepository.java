@@ -0,0 +1,55 @@
+package com.busbooking.system.repository;
+
+import com.busbooking.system.dto.DailyStats;
+import com.busbooking.system.dto.RouteStats;
+import com.busbooking.system.model.RouteDayStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RouteDayStatsRepository extends JpaRepository<RouteDayStats, Long> {
+
+    /**
+     * Add to the totals in place, so concurrent writers never overwrite each other
+     * @return 0 if the route has no row for that date yet
+     */
+    @Modifying
+    @Query("UPDATE RouteDayStats s SET s.bookings = s.bookings + :bookings, "
+            + "s.passengers = s.passengers + :passengers, s.revenue = s.revenue + :revenue "
+            + "WHERE s.source = :source AND s.destination = :destination AND s.travelDate = :travelDate")
+    int increment(@Param("source") String source,
+                  @Param("destination") String destination,
+                  @Param("travelDate") LocalDate travelDate,
+                  @Param("bookings") long bookings,
+                  @Param("passengers") long passengers,
+                  @Param("revenue") double revenue);
+
+    // Held by a rebuild so bookings committing meanwhile wait instead of being overwritten
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM RouteDayStats s WHERE s.travelDate BETWEEN :from AND :to")
+    List<RouteDayStats> lockRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT MIN(s.travelDate) FROM RouteDayStats s")
+    LocalDate findFirstTravelDate();
+
+    @Query("SELECT MAX(s.travelDate) FROM RouteDayStats s")
+    LocalDate findLastTravelDate();
+
+    @Query("SELECT new com.busbooking.system.dto.RouteStats(s.source, s.destination, "
+            + "SUM(s.bookings), SUM(s.passengers), SUM(s.revenue)) FROM RouteDayStats s "
+            + "WHERE (:from IS NULL OR s.travelDate >= :from) AND (:to IS NULL OR s.travelDate <= :to) "
+            + "GROUP BY s.source, s.destination HAVING SUM(s.bookings) > 0 ORDER BY SUM(s.revenue) DESC")
+    List<RouteStats> sumByRoute(@Param("from") LocalDate from, @Param("to") LocalDate to, Limit limit);
+
+    @Query("SELECT new com.busbooking.system.dto.DailyStats(s.travelDate, "
+            + "SUM(s.bookings), SUM(s.passengers), SUM(s.revenue)) FROM RouteDayStats s "
+            + "WHERE s.travelDate BETWEEN :from AND :to "
+            + "GROUP BY s.travelDate HAVING SUM(s.bookings) > 0 ORDER BY s.travelDate")
+    List<DailyStats> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,45 @@
+package com.busbooking.system.repository;
+
+import com.busbooking.system.model.SeatInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface SeatInventoryRepository extends JpaRepository<SeatInventory, Long> {
+
+    Optional<SeatInventory> findByBusIdAndTravelDate(Long busId, LocalDate travelDate);
+
+    List<SeatInventory> findByTravelDateGreaterThanEqual(LocalDate travelDate);
+
+    // Relative update so concurrent writers never overwrite each other's counts; guarded so
+    // that a release made twice can never take the count below zero
+    @Transactional
+    @Modifying
+    @Query("UPDATE SeatInventory s SET s.seatsBooked = s.seatsBooked - :seats " +
+           "WHERE s.busId = :busId AND s.travelDate = :travelDate AND s.seatsBooked >= :seats")
+    int releaseSeats(@Param("busId") Long busId,
+                     @Param("travelDate") LocalDate travelDate,
+                     @Param("seats") int seats);
+
+    // Guarded so that instances with stale counters cannot push a departure past capacity
+    @Transactional
+    @Modifying
+    @Query("UPDATE SeatInventory s SET s.seatsBooked = s.seatsBooked + :seats " +
+           "WHERE s.busId = :busId AND s.travelDate = :travelDate AND s.seatsBooked + :seats <= s.capacity")
+    int claimSeats(@Param("busId") Long busId,
+                   @Param("travelDate") LocalDate travelDate,
+                   @Param("seats") int seats);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SeatInventory s SET s.capacity = :capacity " +
+           "WHERE s.busId = :busId AND s.travelDate >= :from AND s.capacity <> :capacity")
+    int updateCapacity(@Param("busId") Long busId,
+                       @Param("from") LocalDate from,
+                       @Param("capacity") int capacity);
+}
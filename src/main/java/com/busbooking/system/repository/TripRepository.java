@@ -0,0 +1,24 @@
+package com.busbooking.system.repository;
+
+import com.busbooking.system.model.Trip;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface TripRepository extends JpaRepository<Trip, Long> {
+
+    Optional<Trip> findByBusIdAndTravelDate(Long busId, LocalDate travelDate);
+
+    List<Trip> findByBusIdAndTravelDateBetween(Long busId, LocalDate from, LocalDate to);
+
+    List<Trip> findByBusIdInAndTravelDateBetween(Collection<Long> busIds, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM Trip t WHERE t.busId = :busId AND t.travelDate >= :from")
+    int deleteUpcoming(@Param("busId") Long busId, @Param("from") LocalDate from);
+}
@@ -1,10 +1,13 @@
 package com.busbooking.system.repository;
 
 import com.busbooking.system.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,12 +17,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Returns list of users with matching username
     List<User> findByUsername(String username);
     
+    // Existence check only, without loading the user
+    boolean existsByUsername(String username);
+
     // Returns first user with matching username
     @Query("SELECT u FROM User u WHERE u.username = :username")
     Optional<User> findFirstByUsername(@Param("username") String username);
     
-    // Direct query for validation
-    @Query("SELECT u FROM User u WHERE u.username = :username AND u.password = :password")
-    Optional<User> findByUsernameAndPassword(@Param("username") String username, 
-                                           @Param("password") String password);
+    // Users whose password is still stored in plain text, in id order after the given id
+    @Query("SELECT u FROM User u WHERE u.id > :after AND u.password IS NOT NULL " +
+           "AND u.password NOT LIKE 'pbkdf2$%' ORDER BY u.id")
+    List<User> findPlainTextPasswords(@Param("after") Long after, Limit limit);
+
+    // Replaces a password only if it is still the one that was checked
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id AND u.password = :previous")
+    int updatePassword(@Param("id") Long id, @Param("previous") String previous,
+                       @Param("password") String password);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.busbooking.system.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Streams the booking ledger for finance without holding it in memory
+ */
+public interface BookingExportService {
+
+    enum Format { CSV, NDJSON }
+
+    /**
+     * Write every booking, oldest first, to the output stream
+     * @param format CSV with a header row, or one JSON object per line
+     * @param fromDate First travel date to include (optional)
+     * @param toDate Last travel date to include (optional)
+     * @return Number of bookings written
+     */
+    long exportBookings(Format format, LocalDate fromDate, LocalDate toDate, OutputStream out) throws IOException;
+}
@@ -0,0 +1,130 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.repository.BookingRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Walks a database cursor over the booking table and writes each row as it arrives.
+ * Rows are detached once written, so the persistence context never grows and heap
+ * use stays flat however many bookings there are.
+ */
+@Service
+public class BookingExportServiceImpl implements BookingExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingExportServiceImpl.class);
+
+    private static final String CSV_HEADER = "id,username,busId,busName,source,destination,travelDate,"
+            + "bookingDate,passengers,totalPrice,status,paymentStatus";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final BookingRepository bookingRepository;
+    private final EntityManager entityManager;
+
+    public BookingExportServiceImpl(BookingRepository bookingRepository, EntityManager entityManager) {
+        this.bookingRepository = bookingRepository;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBookings(Format format, LocalDate fromDate, LocalDate toDate, OutputStream out) throws IOException {
+        logger.info("Exporting bookings as {}", format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        JsonGenerator json = format == Format.NDJSON ? JSON.createGenerator(writer) : null;
+        if (json != null) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+        } else {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        try (Stream<Booking> bookings = bookingRepository.streamForExport(fromDate, toDate)) {
+            Iterator<Booking> iterator = bookings.iterator();
+            while (iterator.hasNext()) {
+                Booking booking = iterator.next();
+                if (json != null) {
+                    writeJson(json, booking);
+                } else {
+                    writeCsv(writer, booking);
+                }
+                entityManager.detach(booking);
+                rows++;
+            }
+        }
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        logger.info("Exported {} bookings", rows);
+        return rows;
+    }
+
+    private static void writeCsv(Writer writer, Booking b) throws IOException {
+        writer.write(String.valueOf(b.getId()));
+        writer.write(',');
+        writer.write(CsvFields.escape(b.getUsername()));
+        writer.write(',');
+        writer.write(b.getBusId() == null ? "" : b.getBusId().toString());
+        writer.write(',');
+        writer.write(CsvFields.escape(b.getBusName()));
+        writer.write(',');
+        writer.write(CsvFields.escape(b.getSource()));
+        writer.write(',');
+        writer.write(CsvFields.escape(b.getDestination()));
+        writer.write(',');
+        writer.write(b.getTravelDate() == null ? "" : b.getTravelDate().toString());
+        writer.write(',');
+        writer.write(b.getBookingDate() == null ? "" : b.getBookingDate().toString());
+        writer.write(',');
+        writer.write(Integer.toString(b.getPassengers()));
+        writer.write(',');
+        writer.write(Double.toString(b.getTotalPrice()));
+        writer.write(',');
+        writer.write(CsvFields.escape(b.getStatus()));
+        writer.write(',');
+        writer.write(CsvFields.escape(b.getPaymentStatus()));
+        writer.write('\n');
+    }
+
+    private static void writeJson(JsonGenerator json, Booking b) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", b.getId());
+        json.writeStringField("username", b.getUsername());
+        if (b.getBusId() == null) {
+            json.writeNullField("busId");
+        } else {
+            json.writeNumberField("busId", b.getBusId());
+        }
+        json.writeStringField("busName", b.getBusName());
+        json.writeStringField("source", b.getSource());
+        json.writeStringField("destination", b.getDestination());
+        json.writeStringField("travelDate", b.getTravelDate() == null ? null : b.getTravelDate().toString());
+        json.writeStringField("bookingDate", b.getBookingDate() == null ? null : b.getBookingDate().toString());
+        json.writeNumberField("passengers", b.getPassengers());
+        json.writeNumberField("totalPrice", b.getTotalPrice());
+        json.writeStringField("status", b.getStatus());
+        json.writeStringField("paymentStatus", b.getPaymentStatus());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+}
@@ -0,0 +1,267 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.repository.BookingRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group commit for checkouts. Callers queue their bookings and wait on a future;
+ * a single writer on a virtual thread drains the queue in windows of up to
+ * maxBatch checkouts or maxWaitMillis, and commits each window in one transaction
+ * with one JDBC insert batch. Callers wait at most timeoutMillis; a checkout the
+ * writer has not picked up by then is withdrawn, so its seats can safely go back.
+ * Disabled by default, in which case checkouts use BookingService.confirmBookings.
+ */
+@Component
+public class BookingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingPipeline.class);
+
+    private record Checkout(String username, List<Booking> bookings, CompletableFuture<List<Booking>> result,
+                            AtomicBoolean taken) {
+
+        Checkout(String username, List<Booking> bookings) {
+            this(username, bookings, new CompletableFuture<>(), new AtomicBoolean());
+        }
+
+        /**
+         * Claimed once, either by the writer to commit it or by a caller giving up on it
+         */
+        boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * A checkout outlived its timeout after the writer had started on it, so whether
+     * its bookings were committed is not known; its seats must not be given back
+     */
+    public static class CommitInProgressException extends RuntimeException {
+        CommitInProgressException(String message) {
+            super(message);
+        }
+    }
+
+    private final BookingRepository bookingRepository;
+    private final CartService cartService;
+    private final BookingStatsService bookingStatsService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final long timeoutMillis;
+    private final BlockingQueue<Checkout> queue;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public BookingPipeline(BookingRepository bookingRepository,
+                           CartService cartService,
+                           BookingStatsService bookingStatsService,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${booking.pipeline.enabled:false}") boolean enabled,
+                           @Value("${booking.pipeline.max-batch:64}") int maxBatch,
+                           @Value("${booking.pipeline.max-wait-ms:5}") long maxWaitMillis,
+                           @Value("${booking.pipeline.queue-capacity:10000}") int queueCapacity,
+                           @Value("${booking.pipeline.timeout-ms:10000}") long timeoutMillis) {
+        this.bookingRepository = bookingRepository;
+        this.cartService = cartService;
+        this.bookingStatsService = bookingStatsService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofVirtual().name("booking-writer").start(this::drain);
+        logger.info("Booking pipeline started (batch {}, window {} ms)", maxBatch,
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        // The writer empties the queue before it exits
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        // Checkouts that slipped in while the writer was exiting
+        List<Checkout> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        commitEach(live(rest));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a checkout: its bookings are saved and the user's cart cleared in the
+     * writer's next batch. Falls back to a transaction of its own when the queue is
+     * full or the writer is not running.
+     * @return Future completed with the saved bookings once they are committed
+     */
+    public CompletableFuture<List<Booking>> submit(String username, List<Booking> bookings) {
+        return enqueue(username, bookings).result();
+    }
+
+    /**
+     * Queue a checkout and wait for it, for at most the configured timeout. A checkout
+     * the writer has not reached by then is withdrawn, so nothing of it is written.
+     * @return The saved bookings
+     * @throws CommitInProgressException if the writer was still committing it when the time ran out
+     * @throws RuntimeException if it failed or was withdrawn, in which case nothing was written
+     */
+    public List<Booking> confirm(String username, List<Booking> bookings) {
+        Checkout checkout = enqueue(username, bookings);
+        try {
+            try {
+                return checkout.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (checkout.take()) {
+                    logger.warn("Checkout for {} timed out in the queue after {} ms, withdrawn", username, timeoutMillis);
+                    throw new RuntimeException("Failed to confirm bookings: timed out", e);
+                }
+                // The writer has it: give the commit that is under way one more period
+                return checkout.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            logger.error("Checkout for {} still committing after {} ms", username, 2 * timeoutMillis);
+            throw new CommitInProgressException("Bookings are still being confirmed");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (checkout.take()) {
+                throw new RuntimeException("Failed to confirm bookings: interrupted", e);
+            }
+            throw new CommitInProgressException("Interrupted while bookings were being confirmed");
+        }
+    }
+
+    private Checkout enqueue(String username, List<Booking> bookings) {
+        Checkout checkout = new Checkout(username, bookings);
+        if (!running || !queue.offer(checkout)) {
+            logger.warn("Booking pipeline unavailable, committing checkout directly");
+            commitEach(live(List.of(checkout)));
+        }
+        return checkout;
+    }
+
+    private void drain() {
+        List<Checkout> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Checkout first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null || !first.take()) {
+                    continue;
+                }
+                batch.add(first);
+                // Keep the window open until it is full or its time is up
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    Checkout next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    // Skip checkouts whose caller stopped waiting for them
+                    if (next.take()) {
+                        batch.add(next);
+                    }
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                logger.error("Booking writer error: {}", e.getMessage());
+                batch.forEach(checkout -> checkout.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        // Anything left after an interrupt is committed by this thread on the way out
+        List<Checkout> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        commitEach(live(rest));
+    }
+
+    private static List<Checkout> live(List<Checkout> checkouts) {
+        return checkouts.stream().filter(Checkout::take).toList();
+    }
+
+    private void commit(List<Checkout> batch) {
+        List<List<Booking>> saved;
+        try {
+            saved = transactionTemplate.execute(status -> write(batch));
+        } catch (RuntimeException e) {
+            // One bad checkout must not fail the others that shared its window
+            logger.warn("Batch of {} checkouts failed, retrying one by one: {}", batch.size(), e.getMessage());
+            // The rolled-back persist left ids and versions behind; the retry must insert afresh
+            for (Checkout checkout : batch) {
+                for (Booking booking : checkout.bookings()) {
+                    booking.setId(null);
+                    booking.setVersion(null);
+                }
+            }
+            commitEach(batch);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(saved.get(i));
+        }
+    }
+
+    private void commitEach(List<Checkout> checkouts) {
+        for (Checkout checkout : checkouts) {
+            try {
+                List<List<Booking>> saved = transactionTemplate.execute(status -> write(List.of(checkout)));
+                checkout.result().complete(saved.get(0));
+            } catch (RuntimeException e) {
+                logger.error("Error confirming bookings: {}", e.getMessage());
+                checkout.result().completeExceptionally(new RuntimeException("Failed to confirm bookings", e));
+            }
+        }
+    }
+
+    private List<List<Booking>> write(List<Checkout> batch) {
+        List<Booking> all = new ArrayList<>();
+        for (Checkout checkout : batch) {
+            all.addAll(checkout.bookings());
+        }
+        bookingRepository.saveAll(all);
+        bookingStatsService.recordBookings(all);
+        List<List<Booking>> saved = new ArrayList<>(batch.size());
+        for (Checkout checkout : batch) {
+            cartService.clearCart(checkout.username());
+            saved.add(checkout.bookings());
+        }
+        return saved;
+    }
+}
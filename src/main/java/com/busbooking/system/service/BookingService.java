@@ -1,5 +1,7 @@
 package com.busbooking.system.service;
 
+import com.busbooking.system.dto.BookingFilter;
+import com.busbooking.system.dto.BookingPage;
 import com.busbooking.system.model.Booking;
 import java.util.List;
 
@@ -7,11 +9,38 @@ public interface BookingService {
 
     Booking saveBooking(Booking booking);
 
+    /**
+     * Persist a whole checkout and clear the user's cart in one transaction,
+     * so the inserts go out as a JDBC batch and either everything commits or nothing does
+     * @param username User whose cart is cleared
+     * @param bookings Bookings created from the cart
+     * @return Saved bookings
+     */
+    List<Booking> confirmBookings(String username, List<Booking> bookings);
+
     List<Booking> getBookingsByUser(String username);
 
     List<Booking> getAllBookings();
 
+    /**
+     * Keyset-paginated bookings for the admin view, newest first
+     * @param filter Filters to apply
+     * @param cursor Id of the last booking on the previous page, or null for the first page
+     * @param size Page size (clamped to 1..100)
+     * @return Page of bookings with the cursor for the next page
+     */
+    BookingPage getBookingPage(BookingFilter filter, Long cursor, int size);
+
     Booking getBookingById(Long id);
 
+    /**
+     * Save an edited booking only if nobody changed it since the editor loaded it
+     * @param booking Edited booking
+     * @param expectedVersion Version the editor saw
+     * @return Updated booking
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the booking was modified meanwhile
+     */
+    Booking updateBooking(Booking booking, Long expectedVersion);
+
     void deleteBooking(Long id);
 }
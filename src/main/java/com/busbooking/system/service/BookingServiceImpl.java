@@ -1,35 +1,68 @@
 package com.busbooking.system.service;
 
+import com.busbooking.system.dto.BookingFilter;
+import com.busbooking.system.dto.BookingPage;
 import com.busbooking.system.model.Booking;
 import com.busbooking.system.repository.BookingRepository;
+import com.busbooking.system.repository.BookingSpecifications;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class BookingServiceImpl implements BookingService {
 
     private static final Logger logger = LoggerFactory.getLogger(BookingServiceImpl.class);
 
+    static final int MAX_PAGE_SIZE = 100;
+
     private final BookingRepository bookingRepository;
+    private final CartService cartService;
+    private final BookingStatsService bookingStatsService;
 
-    public BookingServiceImpl(BookingRepository bookingRepository) {
+    public BookingServiceImpl(BookingRepository bookingRepository, CartService cartService,
+                              BookingStatsService bookingStatsService) {
         this.bookingRepository = bookingRepository;
+        this.cartService = cartService;
+        this.bookingStatsService = bookingStatsService;
     }
 
     @Override
+    @Transactional
     public Booking saveBooking(Booking booking) {
         try {
             logger.info("Saving booking");
-            return bookingRepository.save(booking);
+            BookingStatsService.Contribution before = bookingStatsService.storedContribution(booking.getId());
+            Booking saved = bookingRepository.save(booking);
+            bookingStatsService.recordChange(before, BookingStatsService.Contribution.of(saved));
+            return saved;
         } catch (RuntimeException e) {
             logger.error("Error saving booking: {}", e.getMessage());
             throw new RuntimeException("Failed to save booking", e);
         }
     }
 
+    @Override
+    @Transactional
+    public List<Booking> confirmBookings(String username, List<Booking> bookings) {
+        try {
+            logger.info("Confirming {} bookings for user", bookings.size());
+            List<Booking> saved = bookingRepository.saveAll(bookings);
+            bookingStatsService.recordBookings(saved);
+            cartService.clearCart(username);
+            return saved;
+        } catch (RuntimeException e) {
+            logger.error("Error confirming bookings: {}", e.getMessage());
+            throw new RuntimeException("Failed to confirm bookings", e);
+        }
+    }
+
     @Override
     public List<Booking> getBookingsByUser(String username) {
         logger.info("Fetching bookings for user");
@@ -42,6 +75,20 @@ public class BookingServiceImpl implements BookingService {
         return bookingRepository.findAll();
     }
 
+    @Override
+    public BookingPage getBookingPage(BookingFilter filter, Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        logger.info("Fetching bookings page after cursor {}", cursor);
+        // One extra row tells us whether there is a next page without counting the table
+        List<Booking> rows = bookingRepository.findBy(BookingSpecifications.matching(filter, cursor),
+                query -> query.sortBy(Sort.by(Sort.Direction.DESC, "id")).limit(pageSize + 1).all());
+        if (rows.size() <= pageSize) {
+            return new BookingPage(rows, null);
+        }
+        List<Booking> page = rows.subList(0, pageSize);
+        return new BookingPage(page, page.get(pageSize - 1).getId());
+    }
+
     @Override
     public Booking getBookingById(Long id) {
         if (id == null) {
@@ -53,6 +100,25 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional
+    public Booking updateBooking(Booking booking, Long expectedVersion) {
+        // The @Version column catches a writer that commits between our read and this save;
+        // this check catches one that committed while the edit form was open
+        if (!Objects.equals(booking.getVersion(), expectedVersion)) {
+            logger.warn("Booking {} changed since it was loaded for editing", booking.getId());
+            throw new ObjectOptimisticLockingFailureException(Booking.class, booking.getId());
+        }
+        logger.info("Updating booking with ID: {}", booking.getId());
+        // The stored row still holds what the booking counted for before this edit;
+        // if another edit commits first, the version check rolls these counts back too
+        BookingStatsService.Contribution before = bookingStatsService.storedContribution(booking.getId());
+        Booking saved = bookingRepository.save(booking);
+        bookingStatsService.recordChange(before, BookingStatsService.Contribution.of(saved));
+        return saved;
+    }
+
+    @Override
+    @Transactional
     public void deleteBooking(Long id) {
         if (id == null) {
             logger.error("Attempted to delete booking with null ID");
@@ -60,7 +126,9 @@ public class BookingServiceImpl implements BookingService {
         }
         logger.info("Deleting booking with ID: {}", id);
         try {
+            BookingStatsService.Contribution before = bookingStatsService.storedContribution(id);
             bookingRepository.deleteById(id);
+            bookingStatsService.recordChange(before, null);
         } catch (RuntimeException e) {
             logger.error("Error deleting booking: {}", e.getMessage());
             throw new RuntimeException("Failed to delete booking", e);
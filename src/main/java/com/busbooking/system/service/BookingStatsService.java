@@ -0,0 +1,76 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.DailyStats;
+import com.busbooking.system.dto.RouteStats;
+import com.busbooking.system.model.Booking;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Revenue and ridership counters per route and travel date, maintained as bookings
+ * are written so reports never scan the booking table
+ */
+public interface BookingStatsService {
+
+    /**
+     * What one booking adds to the counters of its route and travel date
+     */
+    record Contribution(String source, String destination, LocalDate travelDate, int passengers, double revenue) {
+
+        /**
+         * @return The booking's contribution, or null if it counts for nothing
+         *         (cancelled, or without a route or travel date)
+         */
+        public static Contribution of(Booking booking) {
+            return of(booking.getSource(), booking.getDestination(), booking.getTravelDate(),
+                    booking.getPassengers(), booking.getTotalPrice(), booking.getStatus());
+        }
+
+        static Contribution of(String source, String destination, LocalDate travelDate,
+                               int passengers, double revenue, String status) {
+            if (source == null || destination == null || travelDate == null
+                    || Booking.STATUS_CANCELLED.equals(status)) {
+                return null;
+            }
+            return new Contribution(source, destination, travelDate, passengers, revenue);
+        }
+    }
+
+    /**
+     * Count newly saved bookings, in the caller's transaction
+     */
+    void recordBookings(Collection<Booking> bookings);
+
+    /**
+     * Move a booking's counts after it was edited or removed, in the caller's transaction
+     * @param before Contribution before the change, or null
+     * @param after Contribution after the change, or null
+     */
+    void recordChange(Contribution before, Contribution after);
+
+    /**
+     * Contribution of a booking as last committed. Read with plain JDBC, so edits to a
+     * loaded entity that have not been flushed yet do not show through.
+     * @return Contribution, or null if the booking does not exist or counts for nothing
+     */
+    Contribution storedContribution(Long bookingId);
+
+    /**
+     * Routes by revenue over an optional range of travel dates
+     */
+    List<RouteStats> getTopRoutes(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * Totals per travel date, for dates with at least one booking
+     */
+    List<DailyStats> getDailyTotals(LocalDate from, LocalDate to);
+
+    /**
+     * Recompute every counter from the booking table, one slice of travel dates per
+     * task, with the slices running in parallel
+     * @return Number of counters that were wrong and have been corrected
+     */
+    int rebuild();
+}
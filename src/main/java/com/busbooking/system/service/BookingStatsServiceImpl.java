@@ -0,0 +1,297 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.DailyStats;
+import com.busbooking.system.dto.RouteStats;
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.model.RouteDayStats;
+import com.busbooking.system.repository.BookingRepository;
+import com.busbooking.system.repository.RouteDayStatsRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counters live in route_day_stats, one row per route and travel date. Writers add
+ * their deltas with relative UPDATEs inside the booking transaction, so concurrent
+ * checkouts never read-modify-write the same totals. A rebuild reconciles the rows
+ * against the booking table slice by slice, locking each slice's rows while it
+ * recomputes them so bookings committing meanwhile are not lost.
+ */
+@Service
+public class BookingStatsServiceImpl implements BookingStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingStatsServiceImpl.class);
+
+    private static final int SLICE_ATTEMPTS = 3;
+    private static final String INSERT_ROW = "INSERT INTO route_day_stats "
+            + "(source, destination, travel_date, bookings, passengers, revenue) VALUES (?, ?, ?, 0, 0, 0)";
+
+    private record Key(String source, String destination, LocalDate travelDate) {
+
+        // Rows are always updated in this order, so two writers cannot deadlock on them
+        static final Comparator<Key> ORDER = Comparator.comparing(Key::travelDate)
+                .thenComparing(Key::source).thenComparing(Key::destination);
+
+        static Key of(RouteDayStats row) {
+            return new Key(row.getSource(), row.getDestination(), row.getTravelDate());
+        }
+    }
+
+    private static final class Delta {
+        long bookings;
+        long passengers;
+        double revenue;
+
+        void add(Contribution contribution, int sign) {
+            bookings += sign;
+            passengers += (long) sign * contribution.passengers();
+            revenue += sign * contribution.revenue();
+        }
+
+        boolean isZero() {
+            return bookings == 0 && passengers == 0 && revenue == 0;
+        }
+    }
+
+    private final RouteDayStatsRepository statsRepository;
+    private final BookingRepository bookingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int sliceDays;
+    private final ExecutorService rebuildPool;
+
+    public BookingStatsServiceImpl(RouteDayStatsRepository statsRepository,
+                                   BookingRepository bookingRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${stats.rebuild-threads:0}") int rebuildThreads,
+                                   @Value("${stats.rebuild-slice-days:31}") int sliceDays) {
+        this.statsRepository = statsRepository;
+        this.bookingRepository = bookingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sliceDays = sliceDays;
+        int threads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+        this.rebuildPool = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("stats-rebuild-", 1).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildPool.shutdownNow();
+    }
+
+    @Override
+    @Transactional
+    public void recordBookings(Collection<Booking> bookings) {
+        Map<Key, Delta> deltas = new TreeMap<>(Key.ORDER);
+        for (Booking booking : bookings) {
+            add(deltas, Contribution.of(booking), 1);
+        }
+        apply(deltas);
+    }
+
+    @Override
+    @Transactional
+    public void recordChange(Contribution before, Contribution after) {
+        Map<Key, Delta> deltas = new TreeMap<>(Key.ORDER);
+        add(deltas, before, -1);
+        add(deltas, after, 1);
+        apply(deltas);
+    }
+
+    private static void add(Map<Key, Delta> deltas, Contribution contribution, int sign) {
+        if (contribution != null) {
+            deltas.computeIfAbsent(new Key(contribution.source(), contribution.destination(), contribution.travelDate()),
+                    key -> new Delta()).add(contribution, sign);
+        }
+    }
+
+    private void apply(Map<Key, Delta> deltas) {
+        for (Map.Entry<Key, Delta> entry : deltas.entrySet()) {
+            Key key = entry.getKey();
+            Delta delta = entry.getValue();
+            if (delta.isZero()) {
+                continue;
+            }
+            if (increment(key, delta) == 0) {
+                createRow(key);
+                increment(key, delta);
+            }
+        }
+    }
+
+    private int increment(Key key, Delta delta) {
+        return statsRepository.increment(key.source(), key.destination(), key.travelDate(),
+                delta.bookings, delta.passengers, delta.revenue);
+    }
+
+    /**
+     * Insert an empty row behind a savepoint, on the booking transaction's own connection.
+     * A concurrent writer that inserted the same route and date first makes this insert
+     * wait for it and then fail; rolling back to the savepoint keeps the booking
+     * transaction alive, and the retried increment lands on the other writer's row.
+     */
+    private void createRow(Key key) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_ROW)) {
+                insert.setString(1, key.source());
+                insert.setString(2, key.destination());
+                insert.setObject(3, key.travelDate());
+                insert.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                // Class 23 is an integrity constraint violation: someone else's row
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                    throw e;
+                }
+                logger.debug("Stats row for {} already created", key);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Contribution storedContribution(Long bookingId) {
+        if (bookingId == null) {
+            return null;
+        }
+        List<Contribution> rows = jdbcTemplate.query(
+                "SELECT source, destination, travel_date, passengers, total_price, status FROM booking WHERE id = ?",
+                (rs, rowNum) -> Contribution.of(rs.getString("source"), rs.getString("destination"),
+                        rs.getObject("travel_date", LocalDate.class), rs.getInt("passengers"),
+                        rs.getDouble("total_price"), rs.getString("status")),
+                bookingId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public List<RouteStats> getTopRoutes(LocalDate from, LocalDate to, int limit) {
+        return statsRepository.sumByRoute(from, to, Limit.of(limit));
+    }
+
+    @Override
+    public List<DailyStats> getDailyTotals(LocalDate from, LocalDate to) {
+        return statsRepository.sumByDay(from, to);
+    }
+
+    /**
+     * Nightly, and once at startup for bookings made before the counters existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stats.rebuild-cron:0 45 2 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    @Override
+    public synchronized int rebuild() {
+        long start = System.nanoTime();
+        LocalDate first = earliest(bookingRepository.findFirstTravelDate(), statsRepository.findFirstTravelDate());
+        LocalDate last = latest(bookingRepository.findLastTravelDate(), statsRepository.findLastTravelDate());
+        if (first == null) {
+            return 0;
+        }
+
+        List<Future<Integer>> slices = new ArrayList<>();
+        for (LocalDate from = first; !from.isAfter(last); from = from.plusDays(sliceDays)) {
+            LocalDate sliceStart = from;
+            LocalDate sliceEnd = earliest(from.plusDays(sliceDays - 1L), last);
+            slices.add(rebuildPool.submit(() -> reconcileSlice(sliceStart, sliceEnd)));
+        }
+        int corrected = 0;
+        try {
+            for (Future<Integer> slice : slices) {
+                corrected += slice.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Booking stats rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Booking stats rebuild failed", e.getCause());
+        }
+        logger.info("Booking stats rebuilt: {} slices of {} days, {} counters corrected in {} ms",
+                slices.size(), sliceDays, corrected, (System.nanoTime() - start) / 1_000_000);
+        return corrected;
+    }
+
+    private int reconcileSlice(LocalDate from, LocalDate to) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer corrected = transactionTemplate.execute(status -> reconcile(from, to));
+                return corrected == null ? 0 : corrected;
+            } catch (DataIntegrityViolationException e) {
+                // A booking created one of the rows this slice was about to insert
+                if (attempt == SLICE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Retrying stats slice {} to {}", from, to);
+            }
+        }
+    }
+
+    private int reconcile(LocalDate from, LocalDate to) {
+        Map<Key, RouteDayStats> stored = new HashMap<>();
+        for (RouteDayStats row : statsRepository.lockRange(from, to)) {
+            stored.put(Key.of(row), row);
+        }
+
+        int corrected = 0;
+        List<RouteDayStats> inserts = new ArrayList<>();
+        for (RouteDayStats actual : bookingRepository.sumByRouteAndDay(from, to)) {
+            RouteDayStats row = stored.remove(Key.of(actual));
+            if (row == null) {
+                inserts.add(actual);
+                corrected++;
+            } else if (row.copyTotals(actual)) {
+                corrected++;
+            }
+        }
+        // Left over: routes and dates with no confirmed bookings any more
+        for (RouteDayStats row : stored.values()) {
+            if (!row.isEmpty()) {
+                corrected++;
+            }
+        }
+        statsRepository.deleteAllInBatch(stored.values());
+        statsRepository.saveAll(inserts);
+        return corrected;
+    }
+
+    private static LocalDate earliest(LocalDate a, LocalDate b) {
+        return a == null ? b : b == null || a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate latest(LocalDate a, LocalDate b) {
+        return a == null ? b : b == null || a.isAfter(b) ? a : b;
+    }
+}
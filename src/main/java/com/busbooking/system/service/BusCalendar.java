@@ -0,0 +1,76 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Precompiled operating calendar of a bus: a weekday bitmask plus a validity range
+ * in epoch days, so checking a travel date never re-parses the operatingDays string.
+ * Bit 0 is Monday, bit 6 is Sunday.
+ */
+final class BusCalendar {
+
+    static final int ALL_DAYS = 0x7F;
+
+    static final BusCalendar ALWAYS = new BusCalendar(Long.MIN_VALUE, Long.MAX_VALUE, ALL_DAYS);
+
+    private final long firstDay;
+    private final long lastDay;
+    private final int dayMask;
+
+    BusCalendar(long firstDay, long lastDay, int dayMask) {
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.dayMask = dayMask;
+    }
+
+    static BusCalendar of(Bus bus) {
+        long first = bus.getStartDate() == null ? Long.MIN_VALUE : bus.getStartDate().toEpochDay();
+        long last = bus.getEndDate() == null ? Long.MAX_VALUE : bus.getEndDate().toEpochDay();
+        return new BusCalendar(first, last, parseDays(bus.getOperatingDays()));
+    }
+
+    /**
+     * Parse "MON,TUE,..." into a bitmask; a missing value means the bus runs every day
+     */
+    static int parseDays(String operatingDays) {
+        if (operatingDays == null || operatingDays.isBlank()) {
+            return ALL_DAYS;
+        }
+        int mask = 0;
+        for (String token : operatingDays.split(",")) {
+            String day = token.trim().toUpperCase(Locale.ROOT);
+            if (day.length() < 3) {
+                continue;
+            }
+            for (DayOfWeek dow : DayOfWeek.values()) {
+                if (dow.name().startsWith(day.substring(0, 3))) {
+                    mask |= dayBit(dow);
+                }
+            }
+        }
+        return mask;
+    }
+
+    static int dayBit(DayOfWeek dow) {
+        return 1 << (dow.getValue() - 1);
+    }
+
+    static int dayBit(LocalDate date) {
+        return dayBit(date.getDayOfWeek());
+    }
+
+    boolean runsOn(LocalDate date) {
+        return runsOn(date.toEpochDay(), dayBit(date));
+    }
+
+    /**
+     * Hot-path check when the caller already has the epoch day and weekday bit of the date
+     */
+    boolean runsOn(long epochDay, int dayBit) {
+        return (dayMask & dayBit) != 0 && epochDay >= firstDay && epochDay <= lastDay;
+    }
+}
@@ -0,0 +1,16 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+
+/**
+ * Published by BusService after a bus is saved or deleted, so timetable-derived
+ * structures can refresh just that bus
+ * @param busId id of the changed bus
+ * @param bus saved state of the bus, or null when it was deleted
+ */
+public record BusChangedEvent(Long busId, Bus bus) {
+
+    public boolean isDeleted() {
+        return bus == null;
+    }
+}
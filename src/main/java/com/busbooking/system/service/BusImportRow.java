@@ -0,0 +1,21 @@
+package com.busbooking.system.service;
+
+import java.util.Map;
+
+/**
+ * One input row of a bus import, as text keyed by lower-case column name
+ * @param line Line number in the source file, for error reports
+ * @param values Column values
+ * @param error Reason the row is already known to be unusable, or null
+ */
+record BusImportRow(int line, Map<String, String> values, String error) {
+
+    static BusImportRow failed(int line, String error) {
+        return new BusImportRow(line, Map.of(), error);
+    }
+
+    String get(String column) {
+        String value = values.get(column);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,29 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.BusImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Bulk timetable loading. Buses are matched on name, route and departure time:
+ * a match is updated in place, anything else is inserted.
+ */
+public interface BusImportService {
+
+    /**
+     * Import a CSV with a header row. Required columns: busName, source, destination,
+     * departureTime, arrivalTime, seats, price. Optional: busType, startDate, endDate,
+     * operatingDays (e.g. "MON,TUE"), active.
+     * @return Counts, per-row errors and throughput
+     */
+    BusImportReport importCsv(InputStream in) throws IOException;
+
+    /**
+     * Import a GTFS-style zip (stops, routes, trips, stop_times and calendar files).
+     * Each trip becomes one bus from its first to its last stop.
+     * @return Counts, per-row errors and throughput
+     */
+    BusImportReport importGtfs(Path zip) throws IOException;
+}
@@ -0,0 +1,414 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.BusImportReport;
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.repository.BusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams rows from the source file in chunks: each chunk is validated in parallel,
+ * then upserted in one transaction with batched inserts. A chunk that fails to save
+ * is retried row by row, so one bad row costs its own line and not the whole chunk.
+ * Buses are matched on their natural key (name, route, departure time), loaded once
+ * per run rather than queried per row.
+ */
+@Service
+public class BusImportServiceImpl implements BusImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusImportServiceImpl.class);
+
+    static final int CHUNK_SIZE = 500;
+    static final int MAX_REPORTED_ERRORS = 500;
+
+    private static final List<String> REQUIRED_COLUMNS = List.of(
+            "busname", "source", "destination", "departuretime", "arrivaltime", "seats", "price");
+    private static final Set<String> BUS_TYPES = Set.of("STANDARD", "EXPRESS", "PREMIUM");
+    private static final String ALL_DAYS = "MON,TUE,WED,THU,FRI,SAT,SUN";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("H:mm[:ss]");
+
+    private interface RowSource {
+        /**
+         * @return Next row, or null at end of input
+         */
+        BusImportRow next() throws IOException;
+    }
+
+    /**
+     * A row after validation: either a bus ready to save or the reason it was rejected
+     */
+    private record Parsed(int line, Bus bus, String error) {}
+
+    private record Key(String busName, String source, String destination, LocalTime departureTime) {
+
+        static Key of(String busName, String source, String destination, LocalTime departureTime) {
+            return new Key(normalize(busName), normalize(source), normalize(destination), departureTime);
+        }
+
+        private static String normalize(String value) {
+            return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Counters and lookups for one import run
+     */
+    private static final class Run {
+        final Map<Key, Long> ids = new HashMap<>();
+        final Set<Long> touched = new LinkedHashSet<>();
+        final List<BusImportReport.RowError> errors = new ArrayList<>();
+        int rowsRead;
+        int inserted;
+        int updated;
+        int failed;
+
+        void fail(int line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BusImportReport.RowError(line, message));
+            }
+        }
+    }
+
+    private final BusRepository busRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BusImportServiceImpl(BusRepository busRepository,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventPublisher) {
+        this.busRepository = busRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public BusImportReport importCsv(InputStream in) throws IOException {
+        try (CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new IOException("CSV file is empty");
+            }
+            Map<String, Integer> columns = CsvReader.columns(header);
+            List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+            if (!missing.isEmpty()) {
+                throw new IOException("CSV header is missing columns: " + String.join(", ", missing));
+            }
+            logger.info("Importing buses from CSV");
+            return run(() -> {
+                List<String> fields = reader.next();
+                if (fields == null) {
+                    return null;
+                }
+                Map<String, String> values = new HashMap<>();
+                for (Map.Entry<String, Integer> column : columns.entrySet()) {
+                    if (column.getValue() < fields.size()) {
+                        values.put(column.getKey(), fields.get(column.getValue()));
+                    }
+                }
+                return new BusImportRow(reader.recordLine(), values, null);
+            });
+        }
+    }
+
+    @Override
+    public BusImportReport importGtfs(Path zip) throws IOException {
+        logger.info("Importing buses from GTFS feed {}", zip.getFileName());
+        Iterator<BusImportRow> rows = GtfsTimetableReader.read(zip).iterator();
+        return run(() -> rows.hasNext() ? rows.next() : null);
+    }
+
+    private BusImportReport run(RowSource source) throws IOException {
+        long start = System.nanoTime();
+        Run run = new Run();
+        for (BusRepository.NaturalKey key : busRepository.findAllNaturalKeys()) {
+            run.ids.put(Key.of(key.getBusName(), key.getSource(), key.getDestination(), key.getDepartureTime()),
+                    key.getId());
+        }
+
+        List<BusImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        BusImportRow row;
+        while ((row = source.next()) != null) {
+            run.rowsRead++;
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, run);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, run);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        if (!run.touched.isEmpty()) {
+            eventPublisher.publishEvent(new BusesImportedEvent(List.copyOf(run.touched)));
+        }
+        BusImportReport report = new BusImportReport(run.rowsRead, run.inserted, run.updated, run.failed,
+                run.errors, elapsedMillis);
+        logger.info("Bus import finished: {} rows, {} inserted, {} updated, {} failed in {} ms ({} rows/s)",
+                report.getRowsRead(), report.getInserted(), report.getUpdated(), report.getFailed(),
+                elapsedMillis, report.getRowsPerSecond());
+        return report;
+    }
+
+    private void importChunk(List<BusImportRow> chunk, Run run) {
+        // Validation is pure CPU work on independent rows
+        List<Parsed> parsed = chunk.parallelStream().map(BusImportServiceImpl::validate).toList();
+        List<Parsed> valid = new ArrayList<>(parsed.size());
+        for (Parsed row : parsed) {
+            if (row.error() != null) {
+                run.fail(row.line(), row.error());
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            upsert(valid, run);
+        } catch (RuntimeException e) {
+            logger.warn("Chunk of {} buses failed, retrying row by row: {}", valid.size(), e.getMessage());
+            // The rolled-back inserts left ids behind; the retry must insert afresh.
+            // Updates were copied onto managed entities, so the parsed buses are all new.
+            for (Parsed row : valid) {
+                row.bus().setId(null);
+            }
+            for (Parsed row : valid) {
+                try {
+                    upsert(List.of(row), run);
+                } catch (RuntimeException rowFailure) {
+                    run.fail(row.line(), "Could not save: " + NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Save a set of validated rows in one transaction. Rows that share a natural key
+     * collapse into one bus, the last row winning. Counters and the key map are only
+     * updated once the transaction has committed.
+     */
+    private void upsert(List<Parsed> rows, Run run) {
+        Map<Key, Bus> byKey = new LinkedHashMap<>();
+        for (Parsed row : rows) {
+            Bus bus = row.bus();
+            byKey.put(Key.of(bus.getBusName(), bus.getSource(), bus.getDestination(), bus.getDepartureTime()), bus);
+        }
+        int duplicates = rows.size() - byKey.size();
+
+        Map<Key, Bus> saved = transactionTemplate.execute(status -> {
+            List<Long> existingIds = new ArrayList<>();
+            for (Key key : byKey.keySet()) {
+                Long id = run.ids.get(key);
+                if (id != null) {
+                    existingIds.add(id);
+                }
+            }
+            Map<Long, Bus> existing = new HashMap<>();
+            for (Bus bus : busRepository.findAllById(existingIds)) {
+                existing.put(bus.getId(), bus);
+            }
+
+            Map<Key, Bus> result = new LinkedHashMap<>();
+            List<Bus> inserts = new ArrayList<>();
+            for (Map.Entry<Key, Bus> entry : byKey.entrySet()) {
+                Bus current = existing.get(run.ids.get(entry.getKey()));
+                if (current != null) {
+                    // Managed entity: the changes are flushed at commit
+                    copy(entry.getValue(), current);
+                    result.put(entry.getKey(), current);
+                } else {
+                    inserts.add(entry.getValue());
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            }
+            busRepository.saveAll(inserts);
+            return result;
+        });
+
+        run.updated += duplicates;
+        for (Map.Entry<Key, Bus> entry : saved.entrySet()) {
+            Long previous = run.ids.put(entry.getKey(), entry.getValue().getId());
+            if (previous == null) {
+                run.inserted++;
+            } else {
+                run.updated++;
+            }
+            run.touched.add(entry.getValue().getId());
+        }
+    }
+
+    private static void copy(Bus from, Bus to) {
+        to.setBusName(from.getBusName());
+        to.setSource(from.getSource());
+        to.setDestination(from.getDestination());
+        to.setDepartureTime(from.getDepartureTime());
+        to.setArrivalTime(from.getArrivalTime());
+        to.setSeats(from.getSeats());
+        to.setPrice(from.getPrice());
+        to.setBusType(from.getBusType());
+        to.setActive(from.isActive());
+        to.setStartDate(from.getStartDate());
+        to.setEndDate(from.getEndDate());
+        to.setOperatingDays(from.getOperatingDays());
+    }
+
+    /**
+     * Check one row and build its bus. Only the first problem of a row is reported.
+     */
+    private static Parsed validate(BusImportRow row) {
+        if (row.error() != null) {
+            return new Parsed(row.line(), null, row.error());
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (row.get(column) == null) {
+                return new Parsed(row.line(), null, column + " is required");
+            }
+        }
+        try {
+            Bus bus = new Bus();
+            bus.setBusName(row.get("busname"));
+            bus.setSource(row.get("source"));
+            bus.setDestination(row.get("destination"));
+            if (bus.getSource().equalsIgnoreCase(bus.getDestination())) {
+                throw new IllegalArgumentException("source and destination must differ");
+            }
+            bus.setDepartureTime(parseTime("departureTime", row.get("departuretime")));
+            bus.setArrivalTime(parseTime("arrivalTime", row.get("arrivaltime")));
+            bus.setSeats(parseSeats(row.get("seats")));
+            bus.setPrice(parsePrice(row.get("price")));
+
+            String busType = row.get("bustype");
+            bus.setBusType(busType == null ? "STANDARD" : busType.toUpperCase(Locale.ROOT));
+            if (!BUS_TYPES.contains(bus.getBusType())) {
+                throw new IllegalArgumentException("busType must be one of STANDARD, EXPRESS, PREMIUM");
+            }
+
+            bus.setStartDate(parseDate("startDate", row.get("startdate")));
+            bus.setEndDate(parseDate("endDate", row.get("enddate")));
+            if (bus.getStartDate() != null && bus.getEndDate() != null && bus.getEndDate().isBefore(bus.getStartDate())) {
+                throw new IllegalArgumentException("endDate is before startDate");
+            }
+            bus.setOperatingDays(parseDays(row.get("operatingdays")));
+            bus.setActive(parseActive(row.get("active")));
+            return new Parsed(row.line(), bus, null);
+        } catch (IllegalArgumentException e) {
+            return new Parsed(row.line(), null, e.getMessage());
+        }
+    }
+
+    private static LocalTime parseTime(String column, String value) {
+        try {
+            return LocalTime.parse(value, TIME);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " '" + value + "' is not a time (HH:mm)");
+        }
+    }
+
+    private static LocalDate parseDate(String column, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " '" + value + "' is not a date (yyyy-MM-dd)");
+        }
+    }
+
+    private static int parseSeats(String value) {
+        try {
+            int seats = Integer.parseInt(value);
+            if (seats > 0) {
+                return seats;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("seats '" + value + "' must be a positive whole number");
+    }
+
+    private static double parsePrice(String value) {
+        try {
+            double price = Double.parseDouble(value);
+            if (price >= 0 && Double.isFinite(price)) {
+                return price;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("price '" + value + "' must be a non-negative number");
+    }
+
+    /**
+     * Accepts day names or abbreviations separated by commas, semicolons or spaces,
+     * and stores them in the MON,TUE,... form used by the bus form
+     */
+    private static String parseDays(String value) {
+        if (value == null) {
+            return ALL_DAYS;
+        }
+        boolean[] runs = new boolean[7];
+        for (String token : value.split("[,;\\s]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            String day = token.toUpperCase(Locale.ROOT);
+            DayOfWeek match = null;
+            for (DayOfWeek dow : DayOfWeek.values()) {
+                if (day.length() >= 3 && dow.name().startsWith(day)) {
+                    match = dow;
+                }
+            }
+            if (match == null) {
+                throw new IllegalArgumentException("operatingDays has unknown day '" + token + "'");
+            }
+            runs[match.ordinal()] = true;
+        }
+        List<String> days = new ArrayList<>();
+        for (DayOfWeek dow : DayOfWeek.values()) {
+            if (runs[dow.ordinal()]) {
+                days.add(dow.name().substring(0, 3));
+            }
+        }
+        return days.isEmpty() ? ALL_DAYS : String.join(",", days);
+    }
+
+    private static boolean parseActive(String value) {
+        if (value == null) {
+            return true;
+        }
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes", "y" -> true;
+            case "false", "0", "no", "n" -> false;
+            default -> throw new IllegalArgumentException("active '" + value + "' must be true or false");
+        };
+    }
+}
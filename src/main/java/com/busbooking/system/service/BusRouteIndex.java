@@ -0,0 +1,182 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory index of active buses keyed by normalized (source, destination) pair,
+ * with each bus's precompiled calendar for date filtering.
+ * Reads are lock-free against an immutable snapshot; writes come from BusServiceImpl,
+ * are serialized, and build the next snapshot before swapping it in, so a search never
+ * sees an edited bus half moved.
+ */
+class BusRouteIndex {
+
+    record RouteKey(String source, String destination) {
+
+        static RouteKey of(String source, String destination) {
+            return new RouteKey(normalize(source), normalize(destination));
+        }
+    }
+
+    /**
+     * One version of the index; its maps are never changed once it is published
+     */
+    private record Snapshot(Map<RouteKey, Set<Long>> busesByRoute, Map<Long, RouteKey> routeByBus,
+                            Map<Long, BusCalendar> calendarByBus, boolean built) {
+
+        static Snapshot empty() {
+            return new Snapshot(Map.of(), Map.of(), Map.of(), false);
+        }
+
+        /**
+         * A copy with the bus taken out, then put back under its current route if it is active
+         */
+        Snapshot replace(Long busId, Bus bus) {
+            Map<RouteKey, Set<Long>> routes = new HashMap<>(busesByRoute);
+            Map<Long, RouteKey> busRoutes = new HashMap<>(routeByBus);
+            Map<Long, BusCalendar> calendars = new HashMap<>(calendarByBus);
+            calendars.remove(busId);
+            RouteKey previous = busRoutes.remove(busId);
+            if (previous != null) {
+                Set<Long> ids = new HashSet<>(routes.get(previous));
+                ids.remove(busId);
+                if (ids.isEmpty()) {
+                    routes.remove(previous);
+                } else {
+                    routes.put(previous, Set.copyOf(ids));
+                }
+            }
+            if (bus != null && bus.isActive()) {
+                RouteKey key = RouteKey.of(bus.getSource(), bus.getDestination());
+                Set<Long> ids = new HashSet<>(routes.getOrDefault(key, Set.of()));
+                ids.add(busId);
+                routes.put(key, Set.copyOf(ids));
+                busRoutes.put(busId, key);
+                calendars.put(busId, BusCalendar.of(bus));
+            }
+            return new Snapshot(routes, busRoutes, calendars, built);
+        }
+    }
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.empty());
+
+    static String normalize(String location) {
+        return location == null ? "" : location.trim().toLowerCase(Locale.ROOT);
+    }
+
+    boolean isBuilt() {
+        return snapshot.get().built();
+    }
+
+    /**
+     * Replace the whole index with the given buses
+     */
+    synchronized void rebuild(Collection<Bus> buses) {
+        Map<RouteKey, Set<Long>> routes = new HashMap<>();
+        Map<Long, RouteKey> busRoutes = new HashMap<>();
+        Map<Long, BusCalendar> calendars = new HashMap<>();
+        for (Bus bus : buses) {
+            if (bus.getId() != null && bus.isActive()) {
+                RouteKey key = RouteKey.of(bus.getSource(), bus.getDestination());
+                routes.computeIfAbsent(key, k -> new HashSet<>()).add(bus.getId());
+                busRoutes.put(bus.getId(), key);
+                calendars.put(bus.getId(), BusCalendar.of(bus));
+            }
+        }
+        routes.replaceAll((key, ids) -> Set.copyOf(ids));
+        snapshot.set(new Snapshot(routes, busRoutes, calendars, true));
+    }
+
+    /**
+     * Add or move a bus after it was saved; inactive buses are dropped from the index
+     */
+    synchronized void put(Bus bus) {
+        if (bus == null || bus.getId() == null) {
+            return;
+        }
+        snapshot.set(snapshot.get().replace(bus.getId(), bus));
+    }
+
+    synchronized void remove(Long busId) {
+        if (busId == null) {
+            return;
+        }
+        snapshot.set(snapshot.get().replace(busId, null));
+    }
+
+    /**
+     * Bus ids serving a route, optionally restricted to buses running on a date.
+     * A blank source or destination matches any location, which falls back to a
+     * scan over the distinct routes (not over the buses).
+     */
+    Set<Long> lookup(String source, String destination, LocalDate date) {
+        String from = normalize(source);
+        String to = normalize(destination);
+        Snapshot current = snapshot.get();
+        DateFilter filter = DateFilter.of(date, current.calendarByBus());
+        Set<Long> ids = new HashSet<>();
+        if (!from.isEmpty() && !to.isEmpty()) {
+            filter.addMatching(current.busesByRoute().get(new RouteKey(from, to)), ids);
+        } else {
+            current.busesByRoute().forEach((key, busIds) -> {
+                if ((from.isEmpty() || from.equals(key.source()))
+                        && (to.isEmpty() || to.equals(key.destination()))) {
+                    filter.addMatching(busIds, ids);
+                }
+            });
+        }
+        return ids;
+    }
+
+    /**
+     * All indexed buses running on a date
+     */
+    Set<Long> runningOn(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        int dayBit = BusCalendar.dayBit(date);
+        Set<Long> ids = new HashSet<>();
+        snapshot.get().calendarByBus().forEach((id, calendar) -> {
+            if (calendar.runsOn(epochDay, dayBit)) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Calendar check for a single date; without a date (null calendars) every bus matches
+     */
+    private record DateFilter(long epochDay, int dayBit, Map<Long, BusCalendar> calendars) {
+
+        static DateFilter of(LocalDate date, Map<Long, BusCalendar> calendars) {
+            return date == null
+                    ? new DateFilter(0, 0, null)
+                    : new DateFilter(date.toEpochDay(), BusCalendar.dayBit(date), calendars);
+        }
+
+        void addMatching(Set<Long> busIds, Set<Long> into) {
+            if (busIds == null) {
+                return;
+            }
+            if (calendars == null) {
+                into.addAll(busIds);
+                return;
+            }
+            for (Long id : busIds) {
+                BusCalendar calendar = calendars.get(id);
+                if (calendar == null || calendar.runsOn(epochDay, dayBit)) {
+                    into.add(id);
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.busbooking.system.service;
 
+import com.busbooking.system.dto.BusSummary;
 import com.busbooking.system.model.Bus;
 import java.util.List;
 
@@ -25,7 +26,7 @@ public interface BusService {
      * Search buses by source, destination, and date
      * @param source Departure location
      * @param destination Arrival location
-     * @param date Travel date (optional)
+     * @param date Travel date as yyyy-MM-dd (optional); buses not operating that day are excluded
      * @return List of matching buses
      */
     List<Bus> searchBuses(String source, String destination, String date);
@@ -61,4 +62,10 @@ public interface BusService {
      * @return List of destination locations
      */
     List<String> getAllDestinations();
-}
\ No newline at end of file
+
+    /**
+     * Get id, name and route of every bus, cached until a bus is saved or deleted
+     * @return List of bus summaries ordered by id
+     */
+    List<BusSummary> getBusSummaries();
+}
@@ -1,22 +1,83 @@
 package com.busbooking.system.service;
 
+import com.busbooking.system.dto.BusSummary;
 import com.busbooking.system.model.Bus;
 import com.busbooking.system.repository.BusRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class BusServiceImpl implements BusService {
 
     private static final Logger logger = LoggerFactory.getLogger(BusServiceImpl.class);
 
+    /**
+     * Distinct source and destination names; null lists mean the snapshot was invalidated
+     */
+    private record LocationSnapshot(List<String> sources, List<String> destinations) {
+
+        static LocationSnapshot invalidated() {
+            return new LocationSnapshot(null, null);
+        }
+
+        boolean isLoaded() {
+            return sources != null;
+        }
+    }
+
+    /**
+     * Bus picker entries; a null list means the snapshot was invalidated
+     */
+    private record SummarySnapshot(List<BusSummary> buses) {
+
+        static SummarySnapshot invalidated() {
+            return new SummarySnapshot(null);
+        }
+    }
+
     private final BusRepository busRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BusRouteIndex routeIndex = new BusRouteIndex();
+    private final AtomicReference<LocationSnapshot> locations = new AtomicReference<>(LocationSnapshot.invalidated());
+    private final AtomicReference<SummarySnapshot> summaries = new AtomicReference<>(SummarySnapshot.invalidated());
 
-    public BusServiceImpl(BusRepository busRepository) {
+    public BusServiceImpl(BusRepository busRepository, ApplicationEventPublisher eventPublisher) {
         this.busRepository = busRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Build the route index once startup data (including demo buses) is in place
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildRouteIndex() {
+        int backfilled = busRepository.backfillRouteKeys();
+        if (backfilled > 0) {
+            logger.info("Filled in route keys for {} buses", backfilled);
+        }
+        routeIndex.rebuild(busRepository.findByActiveTrueOrderByIdAsc());
+        logger.info("Route index built");
+    }
+
+    /**
+     * A bulk import changes many buses at once: rebuild and drop cached lists in one go
+     */
+    @EventListener
+    public void onBusesImported(BusesImportedEvent event) {
+        locations.set(LocationSnapshot.invalidated());
+        summaries.set(SummarySnapshot.invalidated());
+        routeIndex.rebuild(busRepository.findByActiveTrueOrderByIdAsc());
     }
 
     @Override
@@ -28,32 +89,77 @@ public class BusServiceImpl implements BusService {
 
     @Override
     public List<Bus> getActiveBuses() {
-        List<Bus> list = busRepository.findAll()
-                .stream().filter(Bus::isActive).toList();
+        List<Bus> list = busRepository.findByActiveTrueOrderByIdAsc();
         logger.info("Found {} active buses", list.size());
         return list;
     }
 
     @Override
     public List<Bus> searchBuses(String source, String dest, String date) {
-        List<Bus> list = busRepository.findAll().stream()
-                .filter(Bus::isActive)
-                .filter(b -> source == null || source.isEmpty() || b.getSource().equalsIgnoreCase(source))
-                .filter(b -> dest == null || dest.isEmpty() || b.getDestination().equalsIgnoreCase(dest))
-                .toList();
+        LocalDate travelDate = parseTravelDate(date);
+
+        List<Bus> list = routeIndex.isBuilt()
+                ? searchIndex(source, dest, travelDate)
+                : searchDatabase(source, dest, travelDate);
 
         logger.info("Search returned {} buses", list.size());
         return list;
     }
 
+    private List<Bus> searchIndex(String source, String dest, LocalDate travelDate) {
+        Set<Long> ids = routeIndex.lookup(source, dest, travelDate);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return busRepository.findAllById(ids).stream()
+                .filter(Bus::isActive)
+                .sorted(Comparator.comparing(Bus::getId))
+                .toList();
+    }
+
+    /**
+     * Used until the route index is built: route and date range are filtered by the
+     * database, leaving only the operating-days check for the matching rows
+     */
+    private List<Bus> searchDatabase(String source, String dest, LocalDate travelDate) {
+        return busRepository.searchActive(blankToNull(source), blankToNull(dest), travelDate).stream()
+                .filter(b -> travelDate == null || BusCalendar.of(b).runsOn(travelDate))
+                .toList();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private LocalDate parseTravelDate(String date) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            logger.warn("Ignoring invalid search date: {}", date);
+            return null;
+        }
+    }
+
     @Override
     public Bus saveBus(Bus bus) {
-        return busRepository.save(bus);
+        Bus saved = busRepository.save(bus);
+        routeIndex.put(saved);
+        locations.set(LocationSnapshot.invalidated());
+        summaries.set(SummarySnapshot.invalidated());
+        eventPublisher.publishEvent(new BusChangedEvent(saved.getId(), saved));
+        return saved;
     }
 
     @Override
     public void deleteBus(Long id) {
         busRepository.deleteById(id);
+        routeIndex.remove(id);
+        locations.set(LocationSnapshot.invalidated());
+        summaries.set(SummarySnapshot.invalidated());
+        eventPublisher.publishEvent(new BusChangedEvent(id, null));
     }
 
     @Override
@@ -63,13 +169,39 @@ public class BusServiceImpl implements BusService {
 
     @Override
     public List<String> getAllSources() {
-        return busRepository.findAll().stream()
-                .map(Bus::getSource).distinct().toList();
+        return locationSnapshot().sources();
     }
 
     @Override
     public List<String> getAllDestinations() {
-        return busRepository.findAll().stream()
-                .map(Bus::getDestination).distinct().toList();
+        return locationSnapshot().destinations();
+    }
+
+    @Override
+    public List<BusSummary> getBusSummaries() {
+        SummarySnapshot current = summaries.get();
+        if (current.buses() != null) {
+            return current.buses();
+        }
+        // Same race handling as the locations cache
+        List<BusSummary> loaded = List.copyOf(busRepository.findAllSummaries());
+        summaries.compareAndSet(current, new SummarySnapshot(loaded));
+        return loaded;
+    }
+
+    /**
+     * Cached locations, reloaded with the distinct projections after a save or delete.
+     * The compareAndSet keeps a load that raced with an invalidation from being cached.
+     */
+    private LocationSnapshot locationSnapshot() {
+        LocationSnapshot current = locations.get();
+        if (current.isLoaded()) {
+            return current;
+        }
+        LocationSnapshot loaded = new LocationSnapshot(
+                List.copyOf(busRepository.findDistinctSources()),
+                List.copyOf(busRepository.findDistinctDestinations()));
+        locations.compareAndSet(current, loaded);
+        return loaded;
     }
 }
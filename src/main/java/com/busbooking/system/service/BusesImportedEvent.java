@@ -0,0 +1,11 @@
+package com.busbooking.system.service;
+
+import java.util.List;
+
+/**
+ * Published once after a bulk import, instead of one BusChangedEvent per row,
+ * so timetable-derived structures can refresh in a single pass
+ * @param busIds ids of the buses inserted or updated by the import
+ */
+public record BusesImportedEvent(List<Long> busIds) {
+}
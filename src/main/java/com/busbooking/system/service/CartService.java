@@ -1,12 +1,23 @@
 package com.busbooking.system.service;
 
+import com.busbooking.system.dto.CartSummary;
 import com.busbooking.system.model.Cart;
 import java.util.List;
 
 public interface CartService {
     Cart addToCart(Cart cart);
     List<Cart> getCartByUser(String username);
-    void removeFromCart(Long cartId);
+    /**
+     * Remove one item from the user's cart and release its seat hold
+     * @return false if the item does not exist or belongs to another user, in which case nothing changes
+     */
+    boolean removeFromCart(Long cartId, String username);
+
     void clearCart(String username);
     double getCartTotal(String username);
+
+    /**
+     * The cart's items together with its total price and passenger count
+     */
+    CartSummary getCartSummary(String username);
 }
\ No newline at end of file
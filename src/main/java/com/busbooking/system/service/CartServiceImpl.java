@@ -1,18 +1,24 @@
 package com.busbooking.system.service;
 
+import com.busbooking.system.dto.CartSummary;
 import com.busbooking.system.model.Cart;
 import com.busbooking.system.repository.CartRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "jpa", matchIfMissing = true)
 public class CartServiceImpl implements CartService {
 
     private final CartRepository cartRepository;
+    private final SeatHoldService seatHoldService;
 
-    public CartServiceImpl(CartRepository cartRepository) {
+    public CartServiceImpl(CartRepository cartRepository, SeatHoldService seatHoldService) {
         this.cartRepository = cartRepository;
+        this.seatHoldService = seatHoldService;
     }
 
     @Override
@@ -26,12 +32,18 @@ public class CartServiceImpl implements CartService {
     }
 
     @Override
-    public void removeFromCart(Long cartId) {
-        cartRepository.deleteById(cartId);
+    public boolean removeFromCart(Long cartId, String username) {
+        if (cartId == null || cartRepository.deleteByIdAndUsername(cartId, username) == 0) {
+            return false;
+        }
+        seatHoldService.release(cartId);
+        return true;
     }
 
     @Override
     public void clearCart(String username) {
+        // After a checkout the holds are already confirmed, so this only frees abandoned ones
+        seatHoldService.releaseAll(username);
         cartRepository.deleteByUsername(username);
     }
 
@@ -42,4 +54,19 @@ public class CartServiceImpl implements CartService {
                 .sum();
     }
 
+    @Override
+    public CartSummary getCartSummary(String username) {
+        // One query: the totals come back on every row, computed by the database
+        List<Object[]> rows = cartRepository.findWithTotalsByUsername(username);
+        if (rows.isEmpty()) {
+            return new CartSummary(List.of(), 0, 0);
+        }
+        List<Cart> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            items.add((Cart) row[0]);
+        }
+        Object[] first = rows.get(0);
+        return new CartSummary(items, ((Number) first[1]).doubleValue(), ((Number) first[2]).longValue());
+    }
+
 }
@@ -0,0 +1,140 @@
+package com.busbooking.system.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Purges abandoned cart rows: items left untouched past the idle threshold, and items
+ * for a travel date that has gone. Rows are found through an index and deleted by id
+ * a bounded batch at a time, each batch in its own short transaction, so a large purge
+ * never holds locks on more than one batch of rows.
+ * <p>
+ * Rows written before carts recorded when they were added have no created_at. They are
+ * stamped with the time of the sweep that first finds them rather than purged, so they
+ * get the full idle period like any other cart.
+ * <p>
+ * Seat holds need no cleanup here: they expire long before a cart counts as idle.
+ */
+@Component
+public class CartSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartSweeper.class);
+
+    private static final String SELECT_IDS = "SELECT id FROM cart WHERE %s FETCH FIRST ? ROWS ONLY";
+
+    /**
+     * Running totals since startup, and the figures of the latest run
+     * @param longestBatchMillis longest single delete transaction seen
+     */
+    public record Metrics(long runs, long rowsPurged, long millisSpent, long longestBatchMillis,
+                          int lastRunRows, long lastRunMillis, LocalDateTime lastRunAt) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int idleDays;
+    private final int batchSize;
+
+    private long runs;
+    private long rowsPurged;
+    private long nanosSpent;
+    private long longestBatchNanos;
+    private int lastRunRows;
+    private long lastRunNanos;
+    private LocalDateTime lastRunAt;
+
+    public CartSweeper(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${cart.sweep.idle-days:7}") int idleDays,
+                       @Value("${cart.sweep.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.idleDays = idleDays;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return Number of cart rows deleted
+     */
+    @Scheduled(cron = "${cart.sweep.cron:0 40 * * * *}")
+    public synchronized int sweep() {
+        long start = System.nanoTime();
+        LocalDateTime idleBefore = LocalDateTime.now().minusDays(idleDays);
+        // Travel dates are stored as ISO strings, which sort in date order
+        String today = LocalDate.now().toString();
+        int stamped = stamp(LocalDateTime.now());
+        int purged = purge("created_at < ?", idleBefore)
+                + purge("travel_date < ?", today);
+
+        long elapsed = System.nanoTime() - start;
+        runs++;
+        rowsPurged += purged;
+        nanosSpent += elapsed;
+        lastRunRows = purged;
+        lastRunNanos = elapsed;
+        lastRunAt = LocalDateTime.now();
+        if (stamped > 0) {
+            logger.info("Cart sweep stamped {} cart rows that had no created_at", stamped);
+        }
+        if (purged > 0) {
+            logger.info("Cart sweep purged {} abandoned cart rows in {} ms", purged,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        return purged;
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(runs, rowsPurged, TimeUnit.NANOSECONDS.toMillis(nanosSpent),
+                TimeUnit.NANOSECONDS.toMillis(longestBatchNanos), lastRunRows,
+                TimeUnit.NANOSECONDS.toMillis(lastRunNanos), lastRunAt);
+    }
+
+    private int purge(String condition, Object value) {
+        return inBatches(SELECT_IDS.formatted(condition), new Object[] {value, batchSize},
+                ids -> jdbcTemplate.update("DELETE FROM cart WHERE id IN (" + placeholders(ids) + ")",
+                        ids.toArray()));
+    }
+
+    private int stamp(LocalDateTime now) {
+        return inBatches(SELECT_IDS.formatted("created_at IS NULL"), new Object[] {batchSize}, ids -> {
+            List<Object> args = new ArrayList<>(ids.size() + 1);
+            args.add(now);
+            args.addAll(ids);
+            return jdbcTemplate.update("UPDATE cart SET created_at = ? WHERE id IN (" + placeholders(ids) + ")",
+                    args.toArray());
+        });
+    }
+
+    // Selects a batch of ids and applies the statement to them, one transaction per batch
+    private int inBatches(String select, Object[] selectArgs, ToIntFunction<List<Long>> statement) {
+        int changed = 0;
+        while (true) {
+            long start = System.nanoTime();
+            Integer rows = transactionTemplate.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(select, Long.class, selectArgs);
+                return ids.isEmpty() ? 0 : statement.applyAsInt(ids);
+            });
+            longestBatchNanos = Math.max(longestBatchNanos, System.nanoTime() - start);
+            changed += rows == null ? 0 : rows;
+            if (rows == null || rows < batchSize) {
+                return changed;
+            }
+        }
+    }
+
+    private static String placeholders(List<Long> ids) {
+        return String.join(", ", Collections.nCopies(ids.size(), "?"));
+    }
+}
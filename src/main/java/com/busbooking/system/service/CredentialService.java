@@ -0,0 +1,39 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Password checks and hashing. Slow hashes run on a small dedicated pool with a bounded
+ * queue, so a burst of logins waits there, or is turned away, instead of tying up
+ * request threads and CPU that browsing needs.
+ */
+public interface CredentialService {
+
+    /**
+     * Figures for the verification pool
+     * @param peakQueued deepest the queue has been since startup
+     * @param rejected requests turned away because the queue was full
+     */
+    record Metrics(int threads, int active, int queued, int queueCapacity, int peakQueued,
+                   long completed, long rejected) {}
+
+    /**
+     * Check a login with a single user lookup. A correct password stored in plain text
+     * or with an outdated cost is rehashed on the way.
+     * @return the user, or empty if the username is unknown or the password wrong;
+     *         fails with RejectedExecutionException when the pool is saturated
+     */
+    CompletableFuture<Optional<User>> authenticate(String username, String password);
+
+    /**
+     * Hash a new password on the verification pool, waiting for the result
+     */
+    String hashPassword(String password);
+
+    boolean isHashed(String password);
+
+    Metrics getMetrics();
+}
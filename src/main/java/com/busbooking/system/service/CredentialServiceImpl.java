@@ -0,0 +1,198 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.User;
+import com.busbooking.system.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A login is one lookup through the user cache and one hash check, both on the
+ * verification pool. The pool has a fixed number of threads and a bounded queue: when
+ * the queue is full, a login fails at once rather than waiting in line for CPU.
+ * <p>
+ * Passwords still stored in plain text are hashed once at startup, a small batch per
+ * task on the same pool, so logins keep their turn between batches.
+ */
+@Service
+public class CredentialServiceImpl implements CredentialService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialServiceImpl.class);
+
+    private static final int MIGRATION_BATCH = 10;
+    private static final long MIGRATION_RETRY_SECONDS = 1;
+
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final PasswordHasher passwordHasher;
+    private final ThreadPoolExecutor verifyPool;
+    private final int queueCapacity;
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    // Checked against when the username is unknown, so a miss costs as long as a wrong password
+    private final String unknownUserHash;
+
+    public CredentialServiceImpl(UserRepository userRepository,
+                                 UserCache userCache,
+                                 PasswordHasher passwordHasher,
+                                 @Value("${auth.verify-threads:0}") int verifyThreads,
+                                 @Value("${auth.verify-queue-capacity:64}") int queueCapacity) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.passwordHasher = passwordHasher;
+        this.queueCapacity = queueCapacity;
+        int threads = verifyThreads > 0 ? verifyThreads : Runtime.getRuntime().availableProcessors();
+        this.verifyPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("password-verify-", 1).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.unknownUserHash = passwordHasher.hash("unknown user");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verifyPool.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        migratePlainTextPasswords();
+    }
+
+    /**
+     * Hash every password still stored in plain text, one batch per task on the verification pool
+     * @return completes with the number of passwords hashed
+     */
+    CompletableFuture<Integer> migratePlainTextPasswords() {
+        CompletableFuture<Integer> done = new CompletableFuture<>();
+        migrateFrom(0L, 0, done);
+        return done;
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> authenticate(String username, String password) {
+        return submit(() -> verify(username, password));
+    }
+
+    @Override
+    public String hashPassword(String password) {
+        try {
+            return submit(() -> passwordHasher.hash(password)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public boolean isHashed(String password) {
+        return passwordHasher.isHashed(password);
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return new Metrics(verifyPool.getMaximumPoolSize(), verifyPool.getActiveCount(), verifyPool.getQueue().size(),
+                queueCapacity, peakQueued.get(), completed.get(), rejected.get());
+    }
+
+    private Optional<User> verify(String username, String password) {
+        Optional<User> found = userCache.get(username);
+        if (found.isEmpty()) {
+            passwordHasher.matches(password, unknownUserHash);
+            return Optional.empty();
+        }
+        User user = found.get();
+        String stored = user.getPassword();
+        if (!passwordHasher.matches(password, stored)) {
+            return Optional.empty();
+        }
+        if (passwordHasher.needsRehash(stored)) {
+            String upgraded = passwordHasher.hash(password);
+            // A password changed since the lookup is left alone
+            if (userRepository.updatePassword(user.getId(), stored, upgraded) == 1) {
+                userCache.invalidate(username);
+                user.setPassword(upgraded);
+                logger.info("Upgraded the stored password hash of user {}", user.getId());
+            }
+        }
+        return Optional.of(user);
+    }
+
+    private void migrateFrom(long afterId, int migrated, CompletableFuture<Integer> done) {
+        if (verifyPool.isShutdown()) {
+            done.complete(migrated);
+            return;
+        }
+        CompletableFuture<List<User>> batch;
+        try {
+            batch = CompletableFuture.supplyAsync(() -> migrateBatch(afterId), verifyPool);
+        } catch (RejectedExecutionException e) {
+            // Logins have the queue full; try again once it has drained
+            CompletableFuture.delayedExecutor(MIGRATION_RETRY_SECONDS, TimeUnit.SECONDS)
+                    .execute(() -> migrateFrom(afterId, migrated, done));
+            return;
+        }
+        batch.whenComplete((users, error) -> {
+            if (error != null) {
+                logger.error("Password migration stopped after {} users: {}", migrated, error.getMessage());
+                done.completeExceptionally(error);
+            } else if (users.isEmpty()) {
+                if (migrated > 0) {
+                    logger.info("Hashed {} passwords that were stored in plain text", migrated);
+                }
+                done.complete(migrated);
+            } else {
+                migrateFrom(users.get(users.size() - 1).getId(), migrated + users.size(), done);
+            }
+        });
+    }
+
+    private List<User> migrateBatch(long afterId) {
+        List<User> users = userRepository.findPlainTextPasswords(afterId, Limit.of(MIGRATION_BATCH));
+        for (User user : users) {
+            String stored = user.getPassword();
+            // A password changed since the batch was read is left alone
+            if (userRepository.updatePassword(user.getId(), stored, passwordHasher.hash(stored)) == 1) {
+                userCache.invalidate(user.getUsername());
+            }
+        }
+        return users;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            CompletableFuture<T> result = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.get();
+                } finally {
+                    completed.incrementAndGet();
+                }
+            }, verifyPool);
+            peakQueued.accumulateAndGet(verifyPool.getQueue().size(), Math::max);
+            return result;
+        } catch (RejectedExecutionException e) {
+            // Once per hundred, so a storm does not flood the log too
+            if (rejected.incrementAndGet() % 100 == 1) {
+                logger.warn("Password verification queue full ({} waiting), {} requests turned away so far",
+                        queueCapacity, rejected.get());
+            }
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
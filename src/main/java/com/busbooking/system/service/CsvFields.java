@@ -0,0 +1,27 @@
+package com.busbooking.system.service;
+
+/**
+ * Writing side of CsvReader: RFC 4180 escaping for the CSV files this package produces
+ */
+final class CsvFields {
+
+    private CsvFields() {
+    }
+
+    /**
+     * RFC 4180 quoting: fields with a comma, quote or line break are quoted and quotes doubled
+     * @return The field as it goes between commas, empty for null
+     */
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,109 @@
+package com.busbooking.system.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal streaming RFC 4180 reader: one record at a time, quoted fields may hold
+ * commas, doubled quotes and line breaks. Only the current record is held in memory.
+ */
+final class CsvReader implements Closeable {
+
+    private final BufferedReader reader;
+    private int lineNumber;
+    private int recordLine;
+
+    CsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    /**
+     * @return Fields of the next non-blank record, or null at end of input
+     */
+    List<String> next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+        } while (line.isBlank());
+        recordLine = lineNumber;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // A quoted field runs on to the next line
+                String more = reader.readLine();
+                if (more == null) {
+                    break;
+                }
+                lineNumber++;
+                field.append('\n');
+                line = more;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Line on which the last record returned by next() started
+     */
+    int recordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Column positions by lower-case header name
+     */
+    static Map<String, Integer> columns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return columns;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,25 @@
+package com.busbooking.system.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Publishes the bus timetable as a GTFS feed (agency, stops, routes, calendar, trips
+ * and stop_times in one zip). Each active bus becomes one trip with its own service
+ * calendar, running from its source stop to its destination stop.
+ */
+public interface GtfsFeedService {
+
+    /**
+     * A built feed on disk
+     * @param file Zip file; valid until the feed after next is built
+     * @param etag Digest of the feed content, unchanged while the timetable is unchanged
+     * @param size File size in bytes
+     */
+    record Feed(Path file, String etag, long size) {}
+
+    /**
+     * Current feed, rebuilt first if a bus has changed since the last build
+     */
+    Feed getFeed() throws IOException;
+}
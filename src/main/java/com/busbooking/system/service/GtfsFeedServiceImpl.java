@@ -0,0 +1,310 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.repository.BusRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds the feed incrementally. Every bus is rendered once into a fragment holding
+ * its calendar, trip and stop_times lines; bus change events only mark fragments
+ * dirty, and the next build re-renders just those buses before streaming all
+ * fragments into a zip on disk. Until the timetable changes again, requests are
+ * served that file as is. The fragments stay in memory, a few hundred bytes per bus,
+ * which is what makes a rebuild after one edit cost one bus rather than the fleet.
+ */
+@Service
+public class GtfsFeedServiceImpl implements GtfsFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GtfsFeedServiceImpl.class);
+
+    private static final int LOAD_BATCH = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter GTFS_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    // GTFS requires a service range; open-ended schedules are given a wide one
+    private static final String OPEN_START = "20000101";
+    private static final String OPEN_END = "20991231";
+    private static final String AGENCY_ID = "1";
+    private static final int ROUTE_TYPE_BUS = 3;
+
+    /**
+     * Everything one bus contributes to the feed, as ready-to-write lines
+     */
+    private record Fragment(String source, String destination, String route,
+                            String calendar, String trip, String stopTimes) {}
+
+    private record Artifact(long version, Feed feed) {}
+
+    private final BusRepository busRepository;
+    private final String agencyName;
+    private final String agencyUrl;
+    private final String agencyTimezone;
+
+    // Bumped by every bus change; a feed built at an older version is stale
+    private final AtomicLong version = new AtomicLong(1);
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // Guarded by this; ordered by bus id so the feed content is deterministic
+    private final Map<Long, Fragment> fragments = new TreeMap<>();
+    private boolean loaded;
+    private volatile Artifact artifact;
+    // The previous file is kept one more build for downloads still reading it
+    private Path retired;
+
+    public GtfsFeedServiceImpl(BusRepository busRepository,
+                               @Value("${gtfs.agency-name:Bus Booking System}") String agencyName,
+                               @Value("${gtfs.agency-url:http://localhost:8080}") String agencyUrl,
+                               @Value("${gtfs.agency-timezone:Europe/Dublin}") String agencyTimezone) {
+        this.busRepository = busRepository;
+        this.agencyName = agencyName;
+        this.agencyUrl = agencyUrl;
+        this.agencyTimezone = agencyTimezone;
+    }
+
+    @EventListener
+    public void onBusChanged(BusChangedEvent event) {
+        dirty.add(event.busId());
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    public void onBusesImported(BusesImportedEvent event) {
+        dirty.addAll(event.busIds());
+        version.incrementAndGet();
+    }
+
+    @Override
+    public Feed getFeed() throws IOException {
+        Artifact current = artifact;
+        if (current != null && current.version() == version.get()) {
+            return current.feed();
+        }
+        return rebuild();
+    }
+
+    private synchronized Feed rebuild() throws IOException {
+        // Read the version before draining dirty ids: a change racing with this build
+        // leaves the version ahead, so the next request builds again
+        long target = version.get();
+        Artifact current = artifact;
+        if (current != null && current.version() == target) {
+            return current.feed();
+        }
+
+        long start = System.nanoTime();
+        int rendered = refreshFragments();
+        if (current != null && rendered == 0) {
+            // Only changes that do not show in the feed, e.g. seat counts
+            artifact = new Artifact(target, current.feed());
+            return current.feed();
+        }
+
+        Path file = Files.createTempFile("gtfs-feed", ".zip");
+        String etag;
+        try {
+            etag = write(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        if (current != null && current.feed().etag().equals(etag)) {
+            Files.deleteIfExists(file);
+            artifact = new Artifact(target, current.feed());
+            return current.feed();
+        }
+
+        Feed feed = new Feed(file, etag, Files.size(file));
+        artifact = new Artifact(target, feed);
+        if (retired != null) {
+            Files.deleteIfExists(retired);
+        }
+        retired = current == null ? null : current.feed().file();
+        logger.info("GTFS feed built: {} trips, {} buses re-rendered, {} KB in {} ms", fragments.size(), rendered,
+                feed.size() / 1024, (System.nanoTime() - start) / 1_000_000);
+        return feed;
+    }
+
+    /**
+     * Re-render the fragments of changed buses, or of every bus on the first build
+     * @return Number of fragments added, changed or removed
+     */
+    private int refreshFragments() {
+        if (!loaded) {
+            // Changes from here on are picked up by the next build
+            dirty.clear();
+            for (Bus bus : busRepository.findByActiveTrueOrderByIdAsc()) {
+                fragments.put(bus.getId(), render(bus));
+            }
+            loaded = true;
+            return fragments.size();
+        }
+
+        List<Long> ids = new ArrayList<>(dirty);
+        ids.forEach(dirty::remove);
+        int changed = 0;
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOAD_BATCH, ids.size()));
+            Map<Long, Fragment> fresh = new TreeMap<>();
+            for (Bus bus : busRepository.findAllById(batch)) {
+                if (bus.isActive()) {
+                    fresh.put(bus.getId(), render(bus));
+                }
+            }
+            // Ids not found were deleted; inactive buses drop out of the feed
+            for (Long id : batch) {
+                Fragment updated = fresh.get(id);
+                Fragment previous = updated == null ? fragments.remove(id) : fragments.put(id, updated);
+                if (!Objects.equals(previous, updated)) {
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static Fragment render(Bus bus) {
+        String id = "bus-" + bus.getId();
+        String source = CsvFields.escape(bus.getSource());
+        String destination = CsvFields.escape(bus.getDestination());
+        String route = CsvFields.escape(bus.getBusName());
+
+        int days = BusCalendar.parseDays(bus.getOperatingDays());
+        StringBuilder calendar = new StringBuilder(id);
+        for (int day = 0; day < 7; day++) {
+            calendar.append(',').append((days & (1 << day)) != 0 ? '1' : '0');
+        }
+        calendar.append(',').append(bus.getStartDate() == null ? OPEN_START : GTFS_DATE.format(bus.getStartDate()))
+                .append(',').append(bus.getEndDate() == null ? OPEN_END : GTFS_DATE.format(bus.getEndDate()));
+
+        String trip = route + ',' + id + ',' + id + ',' + bus.getSeats() + ',' + bus.getPrice();
+
+        String departure = gtfsTime(bus.getDepartureTime(), false);
+        // An arrival earlier in the day than the departure is on the next day
+        boolean overnight = bus.getArrivalTime() != null && bus.getDepartureTime() != null
+                && bus.getArrivalTime().isBefore(bus.getDepartureTime());
+        String arrival = gtfsTime(bus.getArrivalTime(), overnight);
+        String stopTimes = id + ',' + departure + ',' + departure + ',' + source + ",1\n"
+                + id + ',' + arrival + ',' + arrival + ',' + destination + ",2";
+
+        return new Fragment(source, destination, route, calendar.toString(), trip, stopTimes);
+    }
+
+    /**
+     * GTFS times count from the start of the service day and may pass 24:00:00
+     */
+    private static String gtfsTime(LocalTime time, boolean nextDay) {
+        if (time == null) {
+            return "";
+        }
+        int hour = time.getHour() + (nextDay ? 24 : 0);
+        return String.format("%02d:%02d:%02d", hour, time.getMinute(), time.getSecond());
+    }
+
+    /**
+     * Stream all fragments into a zip, one entry per GTFS file
+     * @return Hex digest of the uncompressed content
+     */
+    private String write(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE))) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new DigestOutputStream(zip, digest),
+                    StandardCharsets.UTF_8), BUFFER_SIZE);
+
+            entry(zip, writer, "agency.txt", "agency_id,agency_name,agency_url,agency_timezone");
+            writer.write(AGENCY_ID + ',' + CsvFields.escape(agencyName) + ','
+                    + CsvFields.escape(agencyUrl) + ',' + agencyTimezone + '\n');
+
+            Set<String> stops = new TreeSet<>();
+            Set<String> routes = new TreeSet<>();
+            for (Fragment fragment : fragments.values()) {
+                stops.add(fragment.source());
+                stops.add(fragment.destination());
+                routes.add(fragment.route());
+            }
+            entry(zip, writer, "stops.txt", "stop_id,stop_name");
+            for (String stop : stops) {
+                writer.write(stop + ',' + stop + '\n');
+            }
+            entry(zip, writer, "routes.txt", "route_id,agency_id,route_short_name,route_type");
+            for (String route : routes) {
+                writer.write(route + ',' + AGENCY_ID + ',' + route + ',' + ROUTE_TYPE_BUS + '\n');
+            }
+
+            lines(zip, writer, "calendar.txt",
+                    "service_id,monday,tuesday,wednesday,thursday,friday,saturday,sunday,start_date,end_date",
+                    Fragment::calendar);
+            // seats and price are extensions GTFS consumers ignore; our own importer reads them back
+            lines(zip, writer, "trips.txt", "route_id,service_id,trip_id,seats,price", Fragment::trip);
+            lines(zip, writer, "stop_times.txt", "trip_id,arrival_time,departure_time,stop_id,stop_sequence",
+                    Fragment::stopTimes);
+            writer.flush();
+            zip.closeEntry();
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    private void lines(ZipOutputStream zip, Writer writer, String name, String header,
+                       Function<Fragment, String> part) throws IOException {
+        entry(zip, writer, name, header);
+        for (Fragment fragment : fragments.values()) {
+            writer.write(part.apply(fragment));
+            writer.write('\n');
+        }
+    }
+
+    private static void entry(ZipOutputStream zip, Writer writer, String name, String header) throws IOException {
+        writer.flush();
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(header);
+        writer.write('\n');
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void deleteFiles() throws IOException {
+        if (artifact != null) {
+            Files.deleteIfExists(artifact.feed().file());
+        }
+        if (retired != null) {
+            Files.deleteIfExists(retired);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.busbooking.system.service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Turns a GTFS feed into bus import rows. The small files (stops, routes, calendar,
+ * trips) are loaded into maps; stop_times.txt, by far the largest, is streamed once
+ * keeping only the first and last stop of each trip.
+ * trips.txt may carry the non-standard columns seats and price; otherwise a trip
+ * gets DEFAULT_SEATS seats and a price of 0.
+ */
+final class GtfsTimetableReader {
+
+    static final int DEFAULT_SEATS = 50;
+
+    private static final DateTimeFormatter GTFS_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String[] WEEKDAYS = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+
+    private record Trip(int line, String routeId, String serviceId, String seats, String price) {}
+
+    private static final class Endpoints {
+        int firstSequence = Integer.MAX_VALUE;
+        int lastSequence = Integer.MIN_VALUE;
+        String firstStop;
+        String lastStop;
+        String departure;
+        String arrival;
+    }
+
+    private GtfsTimetableReader() {
+    }
+
+    static List<BusImportRow> read(Path zip) throws IOException {
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            Map<String, String> stopNames = new HashMap<>();
+            forEach(file, "stops.txt", (line, row) -> stopNames.put(row.get("stop_id"), row.get("stop_name")));
+
+            Map<String, String> routeNames = new HashMap<>();
+            forEach(file, "routes.txt", (line, row) -> {
+                String name = row.get("route_short_name");
+                if (name == null || name.isBlank()) {
+                    name = row.get("route_long_name");
+                }
+                routeNames.put(row.get("route_id"), name);
+            });
+
+            Map<String, Map<String, String>> services = new HashMap<>();
+            forEach(file, "calendar.txt", (line, row) -> services.put(row.get("service_id"), row));
+
+            Map<String, Trip> trips = new LinkedHashMap<>();
+            forEach(file, "trips.txt", (line, row) -> trips.put(row.get("trip_id"),
+                    new Trip(line, row.get("route_id"), row.get("service_id"),
+                            trimmed(row.get("seats")), trimmed(row.get("price")))));
+
+            Map<String, Endpoints> endpoints = new HashMap<>();
+            forEach(file, "stop_times.txt", (line, row) -> {
+                String tripId = row.get("trip_id");
+                if (!trips.containsKey(tripId)) {
+                    return;
+                }
+                int sequence;
+                try {
+                    sequence = Integer.parseInt(row.get("stop_sequence").trim());
+                } catch (RuntimeException e) {
+                    return;
+                }
+                Endpoints trip = endpoints.computeIfAbsent(tripId, id -> new Endpoints());
+                if (sequence < trip.firstSequence) {
+                    trip.firstSequence = sequence;
+                    trip.firstStop = row.get("stop_id");
+                    trip.departure = row.get("departure_time");
+                }
+                if (sequence > trip.lastSequence) {
+                    trip.lastSequence = sequence;
+                    trip.lastStop = row.get("stop_id");
+                    trip.arrival = row.get("arrival_time");
+                }
+            });
+
+            List<BusImportRow> rows = new ArrayList<>(trips.size());
+            for (Map.Entry<String, Trip> entry : trips.entrySet()) {
+                rows.add(toRow(entry.getKey(), entry.getValue(), endpoints.get(entry.getKey()),
+                        stopNames, routeNames, services));
+            }
+            return rows;
+        }
+    }
+
+    private static BusImportRow toRow(String tripId, Trip trip, Endpoints ends, Map<String, String> stopNames,
+                                      Map<String, String> routeNames, Map<String, Map<String, String>> services) {
+        if (ends == null || ends.firstSequence == ends.lastSequence) {
+            return BusImportRow.failed(trip.line(), "Trip " + tripId + " needs at least two stop times");
+        }
+        String routeName = routeNames.get(trip.routeId());
+        if (routeName == null) {
+            return BusImportRow.failed(trip.line(), "Trip " + tripId + " refers to unknown route " + trip.routeId());
+        }
+        Map<String, String> service = services.get(trip.serviceId());
+        if (service == null) {
+            return BusImportRow.failed(trip.line(), "Trip " + tripId + " refers to unknown service " + trip.serviceId());
+        }
+
+        Map<String, String> values = new HashMap<>();
+        values.put("busname", routeName);
+        values.put("source", stopNames.get(ends.firstStop));
+        values.put("destination", stopNames.get(ends.lastStop));
+        values.put("departuretime", clockTime(ends.departure));
+        values.put("arrivaltime", clockTime(ends.arrival));
+        values.put("seats", trip.seats() == null ? Integer.toString(DEFAULT_SEATS) : trip.seats());
+        values.put("price", trip.price() == null ? "0" : trip.price());
+        values.put("startdate", isoDate(service.get("start_date")));
+        values.put("enddate", isoDate(service.get("end_date")));
+        List<String> days = new ArrayList<>();
+        for (String weekday : WEEKDAYS) {
+            if ("1".equals(trimmed(service.get(weekday)))) {
+                days.add(weekday.substring(0, 3));
+            }
+        }
+        if (days.isEmpty()) {
+            return BusImportRow.failed(trip.line(), "Service " + trip.serviceId() + " runs on no weekday");
+        }
+        values.put("operatingdays", String.join(",", days));
+        return new BusImportRow(trip.line(), values, null);
+    }
+
+    /**
+     * GTFS times may run past midnight (25:10:00 is 01:10 the next day)
+     */
+    private static String clockTime(String gtfsTime) {
+        String time = trimmed(gtfsTime);
+        if (time == null) {
+            return null;
+        }
+        String[] parts = time.split(":");
+        if (parts.length < 2) {
+            return time;
+        }
+        try {
+            int hour = Integer.parseInt(parts[0]) % 24;
+            return String.format("%02d:%s", hour, parts[1]);
+        } catch (NumberFormatException e) {
+            return time;
+        }
+    }
+
+    private static String isoDate(String gtfsDate) {
+        String date = trimmed(gtfsDate);
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date, GTFS_DATE).toString();
+        } catch (DateTimeParseException e) {
+            // Left as is for validation to report
+            return date;
+        }
+    }
+
+    private static String trimmed(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private interface RowHandler {
+        void accept(int line, Map<String, String> row);
+    }
+
+    private static void forEach(ZipFile file, String name, RowHandler handler) throws IOException {
+        ZipEntry entry = file.getEntry(name);
+        if (entry == null) {
+            throw new IOException("GTFS feed has no " + name);
+        }
+        try (CsvReader reader = new CsvReader(new InputStreamReader(file.getInputStream(entry), StandardCharsets.UTF_8))) {
+            List<String> header = reader.next();
+            if (header == null) {
+                return;
+            }
+            Map<String, Integer> columns = CsvReader.columns(header);
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                Map<String, String> row = new HashMap<>();
+                for (Map.Entry<String, Integer> column : columns.entrySet()) {
+                    if (column.getValue() < fields.size()) {
+                        row.put(column.getKey(), fields.get(column.getValue()));
+                    }
+                }
+                handler.accept(reader.recordLine(), row);
+            }
+        }
+    }
+}
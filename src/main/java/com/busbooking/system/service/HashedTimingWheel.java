@@ -0,0 +1,108 @@
+package com.busbooking.system.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel: a ring of slots, each covering one tick. A timeout goes into
+ * the slot its deadline hashes to, so scheduling and cancelling are O(1) whatever
+ * the number of pending timeouts, and each tick only looks at one slot.
+ * Deadlines further away than one turn of the wheel stay in their slot until the
+ * wheel comes round to their turn.
+ * <p>
+ * Any thread may schedule or cancel. Only one thread at a time advances the wheel;
+ * new timeouts reach the slots through a lock-free queue it drains on each tick.
+ */
+final class HashedTimingWheel<T> {
+
+    static final class Timeout<T> {
+        private final T value;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        T value() {
+            return value;
+        }
+
+        /**
+         * Stop the timeout from firing; it is dropped from its slot when the wheel next passes it
+         */
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final int mask;
+    private final Queue<Timeout<T>>[] slots;
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    /**
+     * @param slots number of slots, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    HashedTimingWheel(long tickNanos, int slots, long startNanos) {
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        this.mask = size - 1;
+        this.slots = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new ArrayDeque<>();
+        }
+    }
+
+    Timeout<T> schedule(T value, long deadlineNanos) {
+        // Round up, so a timeout never fires before its deadline
+        long deadlineTick = Math.max(0, (deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+        Timeout<T> timeout = new Timeout<>(value, deadlineTick);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Move the wheel up to the given time
+     * @return values whose deadline has passed and that were not cancelled
+     */
+    synchronized List<T> advance(long nowNanos) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        List<T> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            transferScheduled();
+            Iterator<Timeout<T>> slot = slots[(int) (currentTick & mask)].iterator();
+            while (slot.hasNext()) {
+                Timeout<T> timeout = slot.next();
+                if (timeout.cancelled) {
+                    slot.remove();
+                } else if (timeout.deadlineTick <= currentTick) {
+                    slot.remove();
+                    expired.add(timeout.value);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void transferScheduled() {
+        Timeout<T> timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (!timeout.cancelled) {
+                // Already overdue: fire on the tick being processed
+                long tick = Math.max(timeout.deadlineTick, currentTick);
+                slots[(int) (tick & mask)].add(timeout);
+            }
+        }
+    }
+}
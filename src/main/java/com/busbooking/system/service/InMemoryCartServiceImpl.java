@@ -0,0 +1,384 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.CartSummary;
+import com.busbooking.system.model.Cart;
+import com.busbooking.system.repository.CartRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Carts live in memory, so browsing and editing one never touches the database; only
+ * checkout writes, and then only bookings. The store is bounded: carts idle for longer
+ * than the timeout are evicted, and past the size cap the least recently used go first.
+ * A request that takes the store past the cap only queues an eviction pass on a
+ * background thread, so it never pays for the writes of the carts that pass evicts.
+ * <p>
+ * With write-behind on (the default for this store), changed carts are copied to the
+ * cart table on a schedule and loaded back on a miss, so they survive eviction and
+ * restarts and are seen by other instances once flushed. Without it a cart is lost
+ * with its seat holds, which expire long before the idle timeout anyway.
+ */
+@Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "memory")
+public class InMemoryCartServiceImpl implements CartService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryCartServiceImpl.class);
+
+    private static final String DELETE_CART = "DELETE FROM cart WHERE username = ?";
+    private static final String INSERT_ITEM = "INSERT INTO cart (username, bus_id, bus_name, source, destination, "
+            + "travel_date, passengers, total_price, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * One user's cart; only read or changed inside ConcurrentHashMap.compute on its entry
+     */
+    private static final class UserCart {
+        final List<Cart> items = new ArrayList<>();
+        // Also read by the sweep, outside the lock
+        volatile long lastAccess;
+
+        UserCart(long now) {
+            this.lastAccess = now;
+        }
+    }
+
+    private final CartRepository cartRepository;
+    private final SeatHoldService seatHoldService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCarts;
+    private final long idleNanos;
+    private final boolean writeBehind;
+    private final LongSupplier clock;
+
+    private final ConcurrentMap<String, UserCart> carts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, String> owners = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // Evicted carts whose copy is still being written; a miss loads from here rather than the stale table
+    private final ConcurrentMap<String, List<Cart>> writing = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicBoolean evictionQueued = new AtomicBoolean();
+    private final ExecutorService evictor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("cart-evictor").daemon().factory());
+
+    @Autowired
+    public InMemoryCartServiceImpl(CartRepository cartRepository,
+                                   SeatHoldService seatHoldService,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${cart.store.max-carts:100000}") int maxCarts,
+                                   @Value("${cart.store.idle-minutes:30}") long idleMinutes,
+                                   @Value("${cart.store.write-behind:true}") boolean writeBehind) {
+        this(cartRepository, seatHoldService, jdbcTemplate, transactionTemplate, maxCarts,
+                TimeUnit.MINUTES.toNanos(idleMinutes), writeBehind, System::nanoTime);
+    }
+
+    InMemoryCartServiceImpl(CartRepository cartRepository, SeatHoldService seatHoldService,
+                            JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            int maxCarts, long idleNanos, boolean writeBehind, LongSupplier clock) {
+        this.cartRepository = cartRepository;
+        this.seatHoldService = seatHoldService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxCarts = maxCarts;
+        this.idleNanos = idleNanos;
+        this.writeBehind = writeBehind;
+        this.clock = clock;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+
+    @Override
+    public Cart addToCart(Cart cart) {
+        load(cart.getUsername());
+        cart.setId(ids.incrementAndGet());
+        owners.put(cart.getId(), cart.getUsername());
+        carts.compute(cart.getUsername(), (username, userCart) -> {
+            UserCart updated = userCart == null ? new UserCart(clock.getAsLong()) : userCart;
+            updated.items.add(cart);
+            updated.lastAccess = clock.getAsLong();
+            markDirty(username);
+            return updated;
+        });
+        if (carts.size() > maxCarts) {
+            queueEviction();
+        }
+        return cart;
+    }
+
+    @Override
+    public List<Cart> getCartByUser(String username) {
+        load(username);
+        List<Cart> items = new ArrayList<>();
+        carts.computeIfPresent(username, (user, userCart) -> {
+            items.addAll(userCart.items);
+            userCart.lastAccess = clock.getAsLong();
+            return userCart;
+        });
+        return items;
+    }
+
+    @Override
+    public boolean removeFromCart(Long cartId, String username) {
+        // Only the owner's request gets past this
+        if (cartId == null || username == null || !owners.remove(cartId, username)) {
+            return false;
+        }
+        seatHoldService.release(cartId);
+        carts.computeIfPresent(username, (user, userCart) -> {
+            userCart.items.removeIf(item -> cartId.equals(item.getId()));
+            userCart.lastAccess = clock.getAsLong();
+            markDirty(user);
+            return userCart;
+        });
+        return true;
+    }
+
+    @Override
+    public void clearCart(String username) {
+        // Checkout clears the cart inside its transaction; a rollback must leave the cart as it was
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear(username);
+                }
+            });
+        } else {
+            clear(username);
+        }
+    }
+
+    @Override
+    public double getCartTotal(String username) {
+        return getCartByUser(username).stream()
+                .mapToDouble(cart -> cart.getTotalPrice())
+                .sum();
+    }
+
+    @Override
+    public CartSummary getCartSummary(String username) {
+        return CartSummary.of(getCartByUser(username));
+    }
+
+    int getCartCount() {
+        return carts.size();
+    }
+
+    /**
+     * Evict carts idle past the timeout, then the least recently used ones while over the cap
+     */
+    @Scheduled(fixedDelayString = "${cart.store.sweep-ms:60000}")
+    public synchronized void evictCarts() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (String username : carts.keySet()) {
+            if (evict(username, userCart -> now - userCart.lastAccess >= idleNanos)) {
+                evicted++;
+            }
+        }
+        if (carts.size() > maxCarts) {
+            // Evict down to 90% of the cap, so a full store is not swept again on the next add
+            List<Map.Entry<String, Long>> byAge = new ArrayList<>();
+            carts.forEach((username, userCart) -> byAge.add(Map.entry(username, userCart.lastAccess)));
+            byAge.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+            int excess = carts.size() - maxCarts * 9 / 10;
+            for (int i = 0; i < byAge.size() && excess > 0; i++) {
+                long seen = byAge.get(i).getValue();
+                // Skip a cart that was used again since the list was taken
+                if (evict(byAge.get(i).getKey(), userCart -> userCart.lastAccess == seen)) {
+                    evicted++;
+                    excess--;
+                }
+            }
+        }
+        if (evicted > 0) {
+            logger.info("Evicted {} carts, {} still in memory", evicted, carts.size());
+        }
+    }
+
+    /**
+     * Wait until a queued eviction pass has run; for tests
+     */
+    void awaitEviction() throws Exception {
+        evictor.submit(() -> { }).get(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Queue one eviction pass unless one is already waiting; adds made while a pass runs can queue the next
+     */
+    private void queueEviction() {
+        if (!evictionQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            evictor.execute(() -> {
+                evictionQueued.set(false);
+                try {
+                    evictCarts();
+                } catch (RuntimeException e) {
+                    logger.error("Cart eviction failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            evictionQueued.set(false);
+            logger.warn("Cart eviction not queued, the store is shutting down");
+        }
+    }
+
+    /**
+     * Copy changed carts to the cart table, replacing each user's rows
+     */
+    @Scheduled(fixedDelayString = "${cart.store.flush-ms:5000}")
+    public synchronized void flush() {
+        if (!writeBehind || dirty.isEmpty()) {
+            return;
+        }
+        int flushed = 0;
+        for (String username : dirty) {
+            // Removed before the copy is taken, so a change made meanwhile is flushed next time
+            dirty.remove(username);
+            List<Cart> items = new ArrayList<>();
+            UserCart userCart = carts.computeIfPresent(username, (user, current) -> {
+                items.addAll(current.items);
+                return current;
+            });
+            if (userCart != null) {
+                write(username, items);
+                flushed++;
+            }
+        }
+        logger.debug("Flushed {} carts to the database", flushed);
+    }
+
+    /**
+     * On a miss, bring the user's saved cart into memory. Loaded items get new ids: the
+     * table only ever holds a copy, and its ids could clash with ones handed out since.
+     */
+    private void load(String username) {
+        if (!writeBehind || carts.containsKey(username)) {
+            return;
+        }
+        // Checked before the table: the entry is only dropped from here once its copy has committed
+        List<Cart> evicted = writing.get(username);
+        List<Cart> saved = evicted != null ? evicted : cartRepository.findByUsername(username);
+        carts.computeIfAbsent(username, user -> {
+            UserCart userCart = new UserCart(clock.getAsLong());
+            for (Cart row : saved) {
+                // A copy, as the row may still be managed by the request's persistence context
+                Cart item = new Cart(row.getUsername(), row.getBusId(), row.getBusName(), row.getSource(),
+                        row.getDestination(), row.getTravelDate(), row.getPassengers(), row.getTotalPrice());
+                item.setCreatedAt(row.getCreatedAt());
+                item.setId(ids.incrementAndGet());
+                owners.put(item.getId(), user);
+                userCart.items.add(item);
+            }
+            return userCart;
+        });
+    }
+
+    private void clear(String username) {
+        // After a checkout the holds are already confirmed, so this only frees abandoned ones
+        seatHoldService.releaseAll(username);
+        carts.computeIfPresent(username, (user, userCart) -> {
+            userCart.items.forEach(item -> owners.remove(item.getId()));
+            userCart.items.clear();
+            markDirty(user);
+            return userCart;
+        });
+    }
+
+    /**
+     * Drop a cart if it still matches once its entry is locked. With write-behind, a
+     * changed cart is copied under the lock and written after it is released, so a slow
+     * write holds up no other cart; until the write commits, a request for the cart
+     * reloads that copy rather than the table.
+     */
+    private boolean evict(String username, Predicate<UserCart> stillStale) {
+        List<Cart> unsaved = new ArrayList<>();
+        boolean[] evicted = new boolean[1];
+        boolean[] changed = new boolean[1];
+        carts.computeIfPresent(username, (user, userCart) -> {
+            if (!stillStale.test(userCart)) {
+                return userCart;
+            }
+            if (writeBehind && dirty.remove(user)) {
+                unsaved.addAll(userCart.items);
+                writing.put(user, unsaved);
+                changed[0] = true;
+            }
+            userCart.items.forEach(item -> owners.remove(item.getId()));
+            evicted[0] = true;
+            return null;
+        });
+        if (!evicted[0]) {
+            return false;
+        }
+        if (changed[0]) {
+            try {
+                write(username, unsaved);
+            } finally {
+                writing.remove(username, unsaved);
+            }
+        }
+        seatHoldService.releaseAll(username);
+        return true;
+    }
+
+    private void write(String username, List<Cart> items) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_CART, username);
+            if (items.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT_ITEM, items, items.size(), (statement, item) -> {
+                statement.setString(1, item.getUsername());
+                statement.setObject(2, item.getBusId());
+                statement.setString(3, item.getBusName());
+                statement.setString(4, item.getSource());
+                statement.setString(5, item.getDestination());
+                statement.setString(6, item.getTravelDate());
+                statement.setInt(7, item.getPassengers());
+                statement.setDouble(8, item.getTotalPrice());
+                statement.setObject(9, item.getCreatedAt());
+            });
+        });
+    }
+
+    /**
+     * Called inside compute on the user's entry, so eviction sees the mark with the change
+     */
+    private void markDirty(String username) {
+        if (writeBehind) {
+            dirty.add(username);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.Journey;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Plans journeys that may change buses at intermediate locations
+ */
+public interface JourneyPlannerService {
+
+    /**
+     * Find the journey reaching the destination earliest
+     * @param source Departure location
+     * @param destination Arrival location
+     * @param date Travel date
+     * @param earliestDeparture Earliest time the traveller can leave (optional, start of day if null)
+     * @return Earliest-arrival journey, or null if the destination cannot be reached
+     */
+    Journey findEarliestArrival(String source, String destination, LocalDate date, LocalTime earliestDeparture);
+}
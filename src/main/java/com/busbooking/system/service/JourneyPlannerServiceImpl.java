@@ -0,0 +1,266 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.Journey;
+import com.busbooking.system.dto.JourneyLeg;
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.repository.BusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection Scan Algorithm over the bus timetable. Every active bus is one
+ * connection between two stops; connections are kept in an array sorted by
+ * departure minute, and a query scans it once per service day, checking each
+ * connection's precompiled calendar for that day.
+ */
+@Service
+public class JourneyPlannerServiceImpl implements JourneyPlannerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JourneyPlannerServiceImpl.class);
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    // The travel date plus the following day, for overnight buses and late connections
+    private static final int SERVICE_DAYS = 2;
+
+    static final class Connection {
+        final Long busId;
+        final String busName;
+        final String source;
+        final String destination;
+        final int fromStop;
+        final int toStop;
+        final int departure;
+        final int duration;
+        final LocalTime departureTime;
+        final LocalTime arrivalTime;
+        final double price;
+        final BusCalendar calendar;
+
+        Connection(Bus bus, int fromStop, int toStop) {
+            this.busId = bus.getId();
+            this.busName = bus.getBusName();
+            this.source = bus.getSource();
+            this.destination = bus.getDestination();
+            this.fromStop = fromStop;
+            this.toStop = toStop;
+            this.departureTime = bus.getDepartureTime();
+            this.arrivalTime = bus.getArrivalTime();
+            this.departure = minuteOfDay(departureTime);
+            int arrival = minuteOfDay(arrivalTime);
+            // An arrival at or before the departure time is on the next day
+            this.duration = arrival > departure ? arrival - departure : arrival + MINUTES_PER_DAY - departure;
+            this.price = bus.getPrice();
+            this.calendar = BusCalendar.of(bus);
+        }
+    }
+
+    /**
+     * Immutable timetable snapshot; updates build a new one and swap it in
+     */
+    record Timetable(Connection[] connections, Map<String, Integer> stopIds) {
+
+        static final Timetable EMPTY = new Timetable(new Connection[0], Map.of());
+
+        Integer stopId(String location) {
+            return stopIds.get(BusRouteIndex.normalize(location));
+        }
+
+        int firstDepartingAtOrAfter(int minute) {
+            return JourneyPlannerServiceImpl.firstDepartingAtOrAfter(Arrays.asList(connections), minute);
+        }
+    }
+
+    private final BusRepository busRepository;
+    private final int minTransferMinutes;
+
+    private volatile Timetable timetable = Timetable.EMPTY;
+
+    public JourneyPlannerServiceImpl(BusRepository busRepository,
+                                     @Value("${journey.min-transfer-minutes:15}") int minTransferMinutes) {
+        this.busRepository = busRepository;
+        this.minTransferMinutes = minTransferMinutes;
+    }
+
+    /**
+     * Full build from the active fleet, once startup data is in place
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Map<String, Integer> stopIds = new HashMap<>();
+        List<Connection> connections = new ArrayList<>();
+        for (Bus bus : busRepository.findByActiveTrueOrderByIdAsc()) {
+            Connection connection = toConnection(bus, stopIds);
+            if (connection != null) {
+                connections.add(connection);
+            }
+        }
+        Connection[] sorted = connections.toArray(new Connection[0]);
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.departure, b.departure));
+        timetable = new Timetable(sorted, Collections.unmodifiableMap(stopIds));
+        logger.info("Journey planner loaded {} connections between {} stops", sorted.length, stopIds.size());
+    }
+
+    /**
+     * A bulk import touches too many buses for incremental updates to pay off
+     */
+    @EventListener
+    public void onBusesImported(BusesImportedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Incremental update: drop the bus's old connection and insert the new one at its
+     * sorted position, without reloading or re-sorting the rest of the timetable
+     */
+    @EventListener
+    public synchronized void onBusChanged(BusChangedEvent event) {
+        Timetable current = timetable;
+        Map<String, Integer> stopIds = current.stopIds();
+        Connection added = null;
+        if (!event.isDeleted() && event.bus().isActive()) {
+            Map<String, Integer> extended = new HashMap<>(stopIds);
+            added = toConnection(event.bus(), extended);
+            if (extended.size() != stopIds.size()) {
+                stopIds = Collections.unmodifiableMap(extended);
+            }
+        }
+
+        Connection[] old = current.connections();
+        List<Connection> kept = new ArrayList<>(old.length + 1);
+        for (Connection connection : old) {
+            if (!connection.busId.equals(event.busId())) {
+                kept.add(connection);
+            }
+        }
+        if (added != null) {
+            kept.add(firstDepartingAtOrAfter(kept, added.departure + 1), added);
+        }
+        timetable = new Timetable(kept.toArray(new Connection[0]), stopIds);
+    }
+
+    @Override
+    public Journey findEarliestArrival(String source, String destination, LocalDate date, LocalTime earliestDeparture) {
+        Timetable current = timetable;
+        Integer fromStop = current.stopId(source);
+        Integer toStop = current.stopId(destination);
+        if (fromStop == null || toStop == null || fromStop.equals(toStop) || date == null) {
+            return null;
+        }
+        int from = fromStop;
+        int to = toStop;
+
+        int stops = current.stopIds().size();
+        int[] arrival = new int[stops];
+        Arrays.fill(arrival, UNREACHED);
+        Connection[] reachedBy = new Connection[stops];
+        int[] reachedOnDay = new int[stops];
+
+        int start = earliestDeparture == null ? 0 : minuteOfDay(earliestDeparture);
+        arrival[from] = start;
+
+        Connection[] connections = current.connections();
+        scan:
+        for (int day = 0; day < SERVICE_DAYS; day++) {
+            LocalDate serviceDate = date.plusDays(day);
+            long epochDay = serviceDate.toEpochDay();
+            int dayBit = BusCalendar.dayBit(serviceDate);
+            int offset = day * MINUTES_PER_DAY;
+
+            for (int i = day == 0 ? current.firstDepartingAtOrAfter(start) : 0; i < connections.length; i++) {
+                Connection c = connections[i];
+                int departure = offset + c.departure;
+                if (departure >= arrival[to]) {
+                    break scan;
+                }
+                int reachedAt = arrival[c.fromStop];
+                if (reachedAt == UNREACHED) {
+                    continue;
+                }
+                // Changing buses needs the minimum connection time; the first boarding does not
+                int ready = c.fromStop == from ? reachedAt : reachedAt + minTransferMinutes;
+                if (ready > departure || !c.calendar.runsOn(epochDay, dayBit)) {
+                    continue;
+                }
+                int arrivesAt = departure + c.duration;
+                if (arrivesAt < arrival[c.toStop]) {
+                    arrival[c.toStop] = arrivesAt;
+                    reachedBy[c.toStop] = c;
+                    reachedOnDay[c.toStop] = day;
+                }
+            }
+        }
+
+        if (arrival[to] == UNREACHED) {
+            return null;
+        }
+        return toJourney(date, to, from, arrival[to], reachedBy, reachedOnDay);
+    }
+
+    private Journey toJourney(LocalDate date, int to, int from, int arrivalMinute,
+                              Connection[] reachedBy, int[] reachedOnDay) {
+        List<JourneyLeg> legs = new ArrayList<>();
+        int stop = to;
+        while (stop != from) {
+            Connection c = reachedBy[stop];
+            legs.add(new JourneyLeg(c.busId, c.busName, c.source, c.destination,
+                    date.plusDays(reachedOnDay[stop]), c.departureTime, c.arrivalTime, c.price));
+            stop = c.fromStop;
+        }
+        Collections.reverse(legs);
+        JourneyLeg first = legs.get(0);
+        return new Journey(legs,
+                first.getTravelDate().atTime(first.getDepartureTime()),
+                date.atStartOfDay().plusMinutes(arrivalMinute));
+    }
+
+    private static Connection toConnection(Bus bus, Map<String, Integer> stopIds) {
+        if (bus.getId() == null || bus.getSource() == null || bus.getDestination() == null
+                || bus.getDepartureTime() == null || bus.getArrivalTime() == null) {
+            return null;
+        }
+        String from = BusRouteIndex.normalize(bus.getSource());
+        String to = BusRouteIndex.normalize(bus.getDestination());
+        if (from.isEmpty() || to.isEmpty() || from.equals(to)) {
+            return null;
+        }
+        int fromStop = stopIds.computeIfAbsent(from, k -> stopIds.size());
+        int toStop = stopIds.computeIfAbsent(to, k -> stopIds.size());
+        return new Connection(bus, fromStop, toStop);
+    }
+
+    /**
+     * Binary search for the first connection departing at or after the given minute
+     */
+    private static int firstDepartingAtOrAfter(List<Connection> sorted, int minute) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted.get(mid).departure < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
@@ -0,0 +1,17 @@
+package com.busbooking.system.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Live seat occupancy per departure, pushed to dashboards as Server-Sent Events
+ */
+public interface OccupancyFeedService {
+
+    /**
+     * Open a stream. It starts with a "snapshot" event of every upcoming departure
+     * with seats booked, followed by one "occupancy" event per tick in which seats changed.
+     */
+    SseEmitter subscribe();
+
+    int getSubscriberCount();
+}
@@ -0,0 +1,234 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.SeatInventory;
+import com.busbooking.system.repository.SeatInventoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Seat changes are merged per departure as they happen and pushed on a fixed tick,
+ * so a departure changing a hundred times in a tick costs one update, and the same
+ * serialized message goes to every watcher. Nothing here reads the database after
+ * startup: however many dashboards are open, the load is one message per tick.
+ */
+@Service
+public class OccupancyFeedServiceImpl implements OccupancyFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyFeedServiceImpl.class);
+
+    private record Departure(Long busId, LocalDate travelDate) {}
+
+    /**
+     * One departure's line in a message
+     * @param seatsDelta net seats claimed since the previous tick
+     * @param seatsPerMinute seats claimed in the tick, as a rate
+     */
+    public record Occupancy(Long busId, LocalDate travelDate, int seatsBooked, int capacity,
+                            int seatsDelta, int reservations, int releases, double seatsPerMinute) {
+
+        static final Comparator<Occupancy> ORDER = Comparator.comparing(Occupancy::travelDate)
+                .thenComparing(Occupancy::busId);
+    }
+
+    private record Tick(long tick, long tickMillis, List<Occupancy> departures) {}
+
+    /**
+     * Changes to one departure since the last tick; only touched inside ConcurrentHashMap.compute.
+     * The seat count is not kept here: events can reach compute out of order, so the
+     * count is read from the seat counter when the tick drains the departure.
+     */
+    private static final class Pending {
+        int seatsDelta;
+        int seatsClaimed;
+        int reservations;
+        int releases;
+        int capacity;
+
+        void add(SeatsChangedEvent event) {
+            seatsDelta += event.seatsDelta();
+            if (event.seatsDelta() > 0) {
+                seatsClaimed += event.seatsDelta();
+                reservations++;
+            } else if (event.seatsDelta() < 0) {
+                releases++;
+            }
+            capacity = event.capacity();
+        }
+    }
+
+    private final SeatInventoryRepository seatInventoryRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final ObjectMapper objectMapper;
+    private final long tickMillis;
+    private final long emitterTimeoutMillis;
+    private final int heartbeatTicks;
+
+    private final ConcurrentMap<Departure, Pending> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Departure, Occupancy> current = new ConcurrentHashMap<>();
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private volatile String snapshot = "[]";
+    private long tick;
+    private long idleTicks;
+    private LocalDate today = LocalDate.now();
+
+    public OccupancyFeedServiceImpl(SeatInventoryRepository seatInventoryRepository,
+                                    SeatInventoryService seatInventoryService,
+                                    ObjectMapper objectMapper,
+                                    @Value("${occupancy.tick-ms:1000}") long tickMillis,
+                                    @Value("${occupancy.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                                    @Value("${occupancy.heartbeat-seconds:15}") int heartbeatSeconds) {
+        this.seatInventoryRepository = seatInventoryRepository;
+        this.seatInventoryService = seatInventoryService;
+        this.objectMapper = objectMapper;
+        this.tickMillis = tickMillis;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.heartbeatTicks = (int) Math.max(1, heartbeatSeconds * 1000L / tickMillis);
+    }
+
+    /**
+     * Seed the upcoming departures from the seat ledger, once
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        for (SeatInventory row : seatInventoryRepository.findByTravelDateGreaterThanEqual(LocalDate.now())) {
+            Departure departure = new Departure(row.getBusId(), row.getTravelDate());
+            current.putIfAbsent(departure, new Occupancy(row.getBusId(), row.getTravelDate(),
+                    row.getSeatsBooked(), row.getCapacity(), 0, 0, 0, 0));
+        }
+        snapshot = serialize(snapshotOf(current.values()));
+        logger.info("Occupancy feed loaded {} upcoming departures", current.size());
+    }
+
+    @EventListener
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        pending.compute(new Departure(event.busId(), event.travelDate()), (departure, changes) -> {
+            Pending merged = changes == null ? new Pending() : changes;
+            merged.add(event);
+            return merged;
+        });
+    }
+
+    /**
+     * Holds the tick lock, so the snapshot and joining the broadcast list happen together:
+     * every tick is either already in the snapshot or sent to the new watcher
+     */
+    @Override
+    public synchronized SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(snapshot));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        emitters.add(emitter);
+        logger.debug("Occupancy watcher connected, {} watching", emitters.size());
+        return emitter;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    /**
+     * Push everything that changed since the previous tick as one "occupancy" message.
+     * Quiet ticks send nothing, apart from a periodic comment that finds dead connections.
+     */
+    @Scheduled(fixedRateString = "${occupancy.tick-ms:1000}")
+    public synchronized void tick() {
+        tick++;
+        List<Occupancy> changed = drain();
+        if (!LocalDate.now().equals(today)) {
+            today = LocalDate.now();
+            current.keySet().removeIf(departure -> departure.travelDate().isBefore(today));
+            snapshot = serialize(snapshotOf(current.values()));
+        }
+        if (changed.isEmpty()) {
+            if (++idleTicks % heartbeatTicks == 0) {
+                broadcast(null);
+            }
+            return;
+        }
+        idleTicks = 0;
+        snapshot = serialize(snapshotOf(current.values()));
+        broadcast(serialize(new Tick(tick, tickMillis, changed)));
+    }
+
+    private List<Occupancy> drain() {
+        List<Occupancy> changed = new ArrayList<>();
+        for (Departure departure : pending.keySet()) {
+            // remove() is atomic with compute(), so a change arriving now lands in the next tick
+            Pending changes = pending.remove(departure);
+            if (changes == null) {
+                continue;
+            }
+            // Read after remove(), so a change racing this tick shows up again in the next one
+            int seatsBooked = seatInventoryService.getSeatsBooked(departure.busId(), departure.travelDate());
+            Occupancy occupancy = new Occupancy(departure.busId(), departure.travelDate(),
+                    seatsBooked, changes.capacity, changes.seatsDelta, changes.reservations,
+                    changes.releases, changes.seatsClaimed * 60_000.0 / tickMillis);
+            current.put(departure, occupancy);
+            changed.add(occupancy);
+        }
+        changed.sort(Occupancy.ORDER);
+        return changed;
+    }
+
+    private List<Occupancy> snapshotOf(Collection<Occupancy> departures) {
+        return departures.stream()
+                .filter(occupancy -> !occupancy.travelDate().isBefore(today) && occupancy.seatsBooked() > 0)
+                .map(occupancy -> new Occupancy(occupancy.busId(), occupancy.travelDate(),
+                        occupancy.seatsBooked(), occupancy.capacity(), 0, 0, 0, 0))
+                .sorted(Occupancy.ORDER)
+                .toList();
+    }
+
+    /**
+     * Send one message to every watcher, or a keepalive comment when json is null.
+     * Each emitter needs its own event builder, but they all share the serialized payload.
+     */
+    private void broadcast(String json) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(json == null
+                        ? SseEmitter.event().comment("keepalive")
+                        : SseEmitter.event().name("occupancy").data(json));
+            } catch (IOException | IllegalStateException e) {
+                // The watcher went away; the container ends the request, we only stop sending
+                emitters.remove(emitter);
+                logger.debug("Occupancy watcher dropped: {}", e.getMessage());
+            }
+        }
+    }
+
+    private String serialize(Object message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize occupancy update", e);
+        }
+    }
+}
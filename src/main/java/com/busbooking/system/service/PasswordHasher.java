@@ -0,0 +1,109 @@
+package com.busbooking.system.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashes, stored as pbkdf2$iterations$salt$hash.
+ * The iteration count is part of each hash, so it can be raised over time: hashes made
+ * with fewer iterations verify as before and report that they need rehashing.
+ * <p>
+ * Plain-text passwords are hashed by a one-time migration at startup. One that is still
+ * checked afterwards, say from a row written behind the application's back, still
+ * verifies so the user is not locked out, but is logged as a warning.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final String PREFIX = "pbkdf2";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    public PasswordHasher(@Value("${auth.pbkdf2.iterations:210000}") int iterations) {
+        this.iterations = iterations;
+    }
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * Check a password against a stored hash, or against a plain-text password the migration has not reached
+     */
+    public boolean matches(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        Encoded encoded = Encoded.parse(stored);
+        if (encoded == null) {
+            logger.warn("Checked a password stored in plain text; it is hashed if the check succeeds");
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        return MessageDigest.isEqual(derive(password, encoded.salt, encoded.iterations), encoded.hash);
+    }
+
+    /**
+     * @return true if the stored value is plain text or was hashed with fewer iterations than now configured
+     */
+    public boolean needsRehash(String stored) {
+        Encoded encoded = Encoded.parse(stored);
+        return encoded == null || encoded.iterations < iterations;
+    }
+
+    public boolean isHashed(String stored) {
+        return Encoded.parse(stored) != null;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private record Encoded(int iterations, byte[] salt, byte[] hash) {
+
+        static Encoded parse(String stored) {
+            if (stored == null || !stored.startsWith(PREFIX + "$")) {
+                return null;
+            }
+            String[] parts = stored.split("\\$");
+            if (parts.length != 4) {
+                return null;
+            }
+            try {
+                Base64.Decoder base64 = Base64.getDecoder();
+                Encoded encoded = new Encoded(Integer.parseInt(parts[1]), base64.decode(parts[2]),
+                        base64.decode(parts[3]));
+                return encoded.iterations > 0 && encoded.hash.length == HASH_BITS / 8 ? encoded : null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
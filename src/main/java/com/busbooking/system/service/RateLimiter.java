@@ -0,0 +1,121 @@
+package com.busbooking.system.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client and per-account limits on login attempts and checkouts, checked before
+ * the request reaches any service. Each endpoint has a limit per client IP, against
+ * a single source, and one per username, against one account being tried from many
+ * addresses. A limit with a rate of 0 is off.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    /**
+     * Figures for one limit since startup
+     * @param keys clients or usernames with a bucket right now
+     * @param evicted buckets dropped, almost all of them because they had refilled
+     */
+    public record Metrics(String name, int keys, long allowed, long denied, long evicted) {}
+
+    private record Limit(String name, TokenBucketLimiter buckets) {}
+
+    private final Limit loginByIp;
+    private final Limit loginByUser;
+    private final Limit paymentByIp;
+    private final Limit paymentByUser;
+
+    public RateLimiter(@Value("${rate-limit.login.ip.per-minute:30}") double loginIpPerMinute,
+                       @Value("${rate-limit.login.ip.burst:10}") int loginIpBurst,
+                       @Value("${rate-limit.login.user.per-minute:5}") double loginUserPerMinute,
+                       @Value("${rate-limit.login.user.burst:5}") int loginUserBurst,
+                       @Value("${rate-limit.payment.ip.per-minute:20}") double paymentIpPerMinute,
+                       @Value("${rate-limit.payment.ip.burst:10}") int paymentIpBurst,
+                       @Value("${rate-limit.payment.user.per-minute:6}") double paymentUserPerMinute,
+                       @Value("${rate-limit.payment.user.burst:3}") int paymentUserBurst,
+                       @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                       @Value("${rate-limit.stripes:16}") int stripes) {
+        this.loginByIp = limit("Login per IP", loginIpBurst, loginIpPerMinute, maxKeys, stripes);
+        this.loginByUser = limit("Login per username", loginUserBurst, loginUserPerMinute, maxKeys, stripes);
+        this.paymentByIp = limit("Checkout per IP", paymentIpBurst, paymentIpPerMinute, maxKeys, stripes);
+        this.paymentByUser = limit("Checkout per username", paymentUserBurst, paymentUserPerMinute, maxKeys, stripes);
+    }
+
+    /**
+     * @return seconds to wait before trying again, or 0 if the login attempt may go ahead
+     */
+    public long checkLogin(String clientIp, String username) {
+        return check(loginByIp, loginByUser, clientIp, username);
+    }
+
+    /**
+     * @return seconds to wait before trying again, or 0 if the checkout may go ahead
+     */
+    public long checkPayment(String clientIp, String username) {
+        return check(paymentByIp, paymentByUser, clientIp, username);
+    }
+
+    /**
+     * Drop the buckets of clients that have been quiet long enough to refill
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-ms:60000}")
+    public void sweep() {
+        for (Limit limit : limits()) {
+            if (limit.buckets != null) {
+                limit.buckets.sweep();
+            }
+        }
+    }
+
+    public List<Metrics> getMetrics() {
+        List<Metrics> metrics = new ArrayList<>();
+        for (Limit limit : limits()) {
+            if (limit.buckets != null) {
+                TokenBucketLimiter buckets = limit.buckets;
+                metrics.add(new Metrics(limit.name, buckets.size(), buckets.allowed(), buckets.denied(),
+                        buckets.evicted()));
+            }
+        }
+        return metrics;
+    }
+
+    private long check(Limit byIp, Limit byUser, String clientIp, String username) {
+        // The client's bucket first, so a flood from one address does not use up its victims' tokens
+        long waitNanos = acquire(byIp, clientIp);
+        if (waitNanos == 0) {
+            waitNanos = acquire(byUser, username);
+        }
+        return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+    }
+
+    private static long acquire(Limit limit, String key) {
+        if (limit.buckets == null || key == null || key.isEmpty()) {
+            return 0;
+        }
+        long waitNanos = limit.buckets.tryAcquire(key);
+        if (waitNanos > 0 && logger.isDebugEnabled()) {
+            logger.debug("{} limit reached, retry in {} ms", limit.name, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+        return waitNanos;
+    }
+
+    private List<Limit> limits() {
+        return List.of(loginByIp, loginByUser, paymentByIp, paymentByUser);
+    }
+
+    private static Limit limit(String name, int burst, double perMinute, int maxKeys, int stripes) {
+        return new Limit(name, perMinute > 0
+                ? new TokenBucketLimiter(burst, perMinute, maxKeys, stripes, System::nanoTime)
+                : null);
+    }
+}
@@ -0,0 +1,43 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Cart;
+
+import java.time.Instant;
+
+/**
+ * Temporary seat claims for cart items, so seats in a cart cannot be sold to someone
+ * else until the hold expires. Holds are keyed by cart item id.
+ */
+public interface SeatHoldService {
+
+    /**
+     * Hold the item's seats until the configured TTL runs out
+     * @return true if the seats were held, false if not enough seats remain
+     */
+    boolean hold(Cart cart);
+
+    boolean isHeld(Long cartId);
+
+    /**
+     * Turn a live hold into booked seats
+     * @return false if the item has no live hold (never held, released or expired)
+     */
+    boolean confirm(Long cartId);
+
+    /**
+     * Give the held seats back; does nothing if the item has no live hold
+     */
+    void release(Long cartId);
+
+    /**
+     * Give back every seat held for the user's cart
+     */
+    void releaseAll(String username);
+
+    /**
+     * @return when the item's hold expires, or null if it has no live hold
+     */
+    Instant getExpiry(Long cartId);
+
+    int getActiveHoldCount();
+}
@@ -0,0 +1,193 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Cart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds claim seats in SeatInventoryService's in-memory counters, so they cost no
+ * database write until confirmed and vanish cleanly on restart. Expiry runs on a
+ * hashed timing wheel: each tick only visits the holds due in that tick, never the
+ * whole set, however many carts are open.
+ */
+@Service
+public class SeatHoldServiceImpl implements SeatHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatHoldServiceImpl.class);
+
+    private static final int WHEEL_SLOTS = 512;
+
+    private static final class Hold {
+        final Long cartId;
+        final String username;
+        final Long busId;
+        final LocalDate travelDate;
+        final int seats;
+        final Instant expiresAt;
+        // Set once by whichever of confirm, release or expiry gets there first
+        final AtomicBoolean settled = new AtomicBoolean();
+        HashedTimingWheel.Timeout<Hold> timeout;
+
+        Hold(Cart cart, LocalDate travelDate, Instant expiresAt) {
+            this.cartId = cart.getId();
+            this.username = cart.getUsername();
+            this.busId = cart.getBusId();
+            this.travelDate = travelDate;
+            this.seats = cart.getPassengers();
+            this.expiresAt = expiresAt;
+        }
+
+        boolean settle() {
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            timeout.cancel();
+            return true;
+        }
+    }
+
+    private final SeatInventoryService seatInventoryService;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final HashedTimingWheel<Hold> wheel;
+
+    private final ConcurrentMap<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> holdsByUser = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SeatHoldServiceImpl(SeatInventoryService seatInventoryService,
+                               @Value("${cart.hold-ttl-seconds:900}") long ttlSeconds,
+                               @Value("${cart.hold-tick-ms:1000}") long tickMillis) {
+        this(seatInventoryService, TimeUnit.SECONDS.toNanos(ttlSeconds), TimeUnit.MILLISECONDS.toNanos(tickMillis),
+                System::nanoTime);
+    }
+
+    SeatHoldServiceImpl(SeatInventoryService seatInventoryService, long ttlNanos, long tickNanos, LongSupplier clock) {
+        this.seatInventoryService = seatInventoryService;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+        this.wheel = new HashedTimingWheel<>(tickNanos, WHEEL_SLOTS, clock.getAsLong());
+    }
+
+    @Override
+    public boolean hold(Cart cart) {
+        LocalDate travelDate = parseDate(cart.getTravelDate());
+        if (cart.getId() == null || travelDate == null
+                || !seatInventoryService.holdSeats(cart.getBusId(), travelDate, cart.getPassengers())) {
+            return false;
+        }
+        long now = clock.getAsLong();
+        Hold hold = new Hold(cart, travelDate, Instant.now().plusNanos(ttlNanos));
+        hold.timeout = wheel.schedule(hold, now + ttlNanos);
+        Hold previous = holds.put(hold.cartId, hold);
+        if (previous != null && previous.settle()) {
+            seatInventoryService.releaseHeldSeats(previous.busId, previous.travelDate, previous.seats);
+        }
+        holdsByUser.computeIfAbsent(hold.username, user -> ConcurrentHashMap.newKeySet()).add(hold.cartId);
+        logger.debug("Holding {} seats on bus {} for {} for cart item {}",
+                hold.seats, hold.busId, travelDate, hold.cartId);
+        return true;
+    }
+
+    @Override
+    public boolean isHeld(Long cartId) {
+        return cartId != null && holds.containsKey(cartId);
+    }
+
+    @Override
+    public boolean confirm(Long cartId) {
+        Hold hold = take(cartId);
+        if (hold == null) {
+            return false;
+        }
+        try {
+            return seatInventoryService.confirmHeldSeats(hold.busId, hold.travelDate, hold.seats);
+        } catch (RuntimeException e) {
+            seatInventoryService.releaseHeldSeats(hold.busId, hold.travelDate, hold.seats);
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(Long cartId) {
+        Hold hold = take(cartId);
+        if (hold != null) {
+            seatInventoryService.releaseHeldSeats(hold.busId, hold.travelDate, hold.seats);
+        }
+    }
+
+    @Override
+    public void releaseAll(String username) {
+        Set<Long> cartIds = holdsByUser.get(username);
+        if (cartIds != null) {
+            cartIds.forEach(this::release);
+        }
+    }
+
+    @Override
+    public Instant getExpiry(Long cartId) {
+        Hold hold = cartId == null ? null : holds.get(cartId);
+        return hold == null ? null : hold.expiresAt;
+    }
+
+    @Override
+    public int getActiveHoldCount() {
+        return holds.size();
+    }
+
+    @Scheduled(fixedRateString = "${cart.hold-tick-ms:1000}")
+    public void expireHolds() {
+        int expired = 0;
+        for (Hold hold : wheel.advance(clock.getAsLong())) {
+            if (holds.remove(hold.cartId, hold) && hold.settle()) {
+                forget(hold);
+                seatInventoryService.releaseHeldSeats(hold.busId, hold.travelDate, hold.seats);
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            logger.info("Released {} expired seat holds, {} still held", expired, holds.size());
+        }
+    }
+
+    /**
+     * Remove a live hold so nothing else can settle it
+     */
+    private Hold take(Long cartId) {
+        Hold hold = cartId == null ? null : holds.remove(cartId);
+        if (hold == null || !hold.settle()) {
+            return null;
+        }
+        forget(hold);
+        return hold;
+    }
+
+    private void forget(Hold hold) {
+        holdsByUser.computeIfPresent(hold.username, (user, cartIds) -> {
+            cartIds.remove(hold.cartId);
+            return cartIds.isEmpty() ? null : cartIds;
+        });
+    }
+
+    private static LocalDate parseDate(String travelDate) {
+        try {
+            return travelDate == null ? null : LocalDate.parse(travelDate.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.busbooking.system.service;
+
+import java.time.LocalDate;
+
+/**
+ * Seat capacity per departure, keyed by (busId, travelDate)
+ */
+public interface SeatInventoryService {
+
+    /**
+     * Atomically claim seats on a departure
+     * @return true if the seats were claimed, false if not enough seats remain
+     */
+    boolean reserveSeats(Long busId, LocalDate travelDate, int seats);
+
+    /**
+     * Give back seats previously claimed with reserveSeats
+     */
+    void releaseSeats(Long busId, LocalDate travelDate, int seats);
+
+    /**
+     * Claim seats for a temporary hold. The claim lives in memory only, so holds
+     * that are never confirmed leave nothing behind in the ledger, even across a restart.
+     * @return true if the seats were claimed, false if not enough seats remain
+     */
+    boolean holdSeats(Long busId, LocalDate travelDate, int seats);
+
+    /**
+     * Turn seats claimed with holdSeats into booked seats in the ledger
+     * @return true if confirmed, false if other instances sold the seats first; the hold is then released
+     */
+    boolean confirmHeldSeats(Long busId, LocalDate travelDate, int seats);
+
+    /**
+     * Give back seats claimed with holdSeats that were never confirmed
+     */
+    void releaseHeldSeats(Long busId, LocalDate travelDate, int seats);
+
+    int getAvailableSeats(Long busId, LocalDate travelDate);
+
+    /**
+     * Seats booked or held on the departure right now, as the in-memory counter has it
+     */
+    int getSeatsBooked(Long busId, LocalDate travelDate);
+}
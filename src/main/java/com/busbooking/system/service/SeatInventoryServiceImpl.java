@@ -0,0 +1,298 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.model.SeatInventory;
+import com.busbooking.system.model.Trip;
+import com.busbooking.system.repository.BusRepository;
+import com.busbooking.system.repository.SeatInventoryRepository;
+import com.busbooking.system.repository.TripRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seat ledger with one lock-free counter per departure. Claims are decided in memory
+ * with a CAS loop, so bookings for different departures never contend, and then
+ * written through to the seat_inventory table with an update guarded by capacity.
+ * The table row is the authority: when another instance has sold the seats first,
+ * the guarded update touches no row, the claim is undone and the counter reloaded.
+ * Every change is published as a SeatsChangedEvent for the live occupancy feed.
+ */
+@Service
+public class SeatInventoryServiceImpl implements SeatInventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatInventoryServiceImpl.class);
+
+    private record TripKey(Long busId, LocalDate travelDate) {}
+
+    private static final class SeatCounter {
+        private volatile int capacity;
+        private final AtomicInteger booked;
+        // Seats held for carts on this instance: counted in booked, but not yet in the ledger row
+        private final AtomicInteger held = new AtomicInteger();
+
+        SeatCounter(int capacity, int booked) {
+            this.capacity = capacity;
+            this.booked = new AtomicInteger(booked);
+        }
+
+        boolean tryClaim(int seats) {
+            while (true) {
+                int current = booked.get();
+                if (current + seats > capacity) {
+                    return false;
+                }
+                if (booked.compareAndSet(current, current + seats)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(int seats) {
+            booked.updateAndGet(current -> Math.max(0, current - seats));
+        }
+
+        /**
+         * Catch up with the ledger row, which also counts seats sold by other instances
+         */
+        void sync(SeatInventory row) {
+            capacity = row.getCapacity();
+            booked.set(row.getSeatsBooked() + held.get());
+        }
+
+        int available() {
+            return Math.max(0, capacity - booked.get());
+        }
+
+        int booked() {
+            return booked.get();
+        }
+    }
+
+    private final ConcurrentMap<TripKey, SeatCounter> counters = new ConcurrentHashMap<>();
+
+    private final SeatInventoryRepository seatInventoryRepository;
+    private final BusRepository busRepository;
+    private final TripRepository tripRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SeatInventoryServiceImpl(SeatInventoryRepository seatInventoryRepository,
+                                    BusRepository busRepository,
+                                    TripRepository tripRepository,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.seatInventoryRepository = seatInventoryRepository;
+        this.busRepository = busRepository;
+        this.tripRepository = tripRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public boolean reserveSeats(Long busId, LocalDate travelDate, int seats) {
+        if (busId == null || travelDate == null || seats <= 0) {
+            return false;
+        }
+        SeatCounter counter = counter(busId, travelDate);
+        if (!claim(counter, busId, travelDate, seats)) {
+            logger.info("Not enough seats on bus {} for {}", busId, travelDate);
+            return false;
+        }
+        int written;
+        try {
+            written = seatInventoryRepository.claimSeats(busId, travelDate, seats);
+        } catch (RuntimeException e) {
+            counter.release(seats);
+            logger.error("Error persisting seat reservation: {}", e.getMessage());
+            throw new RuntimeException("Failed to reserve seats", e);
+        }
+        if (written == 0) {
+            // Another instance sold these seats since this counter last saw the ledger
+            counter.release(seats);
+            reload(counter, busId, travelDate);
+            logger.info("Seats on bus {} for {} were sold elsewhere", busId, travelDate);
+            return false;
+        }
+        publish(busId, travelDate, seats, counter);
+        return true;
+    }
+
+    @Override
+    public void releaseSeats(Long busId, LocalDate travelDate, int seats) {
+        if (busId == null || travelDate == null || seats <= 0) {
+            return;
+        }
+        SeatCounter counter = counter(busId, travelDate);
+        counter.release(seats);
+        if (seatInventoryRepository.releaseSeats(busId, travelDate, seats) == 0) {
+            // The ledger holds fewer seats than that: the release was already made, here or elsewhere
+            reload(counter, busId, travelDate);
+            logger.warn("Ignored release of {} seats on bus {} for {} that the ledger does not hold",
+                    seats, busId, travelDate);
+        }
+        publish(busId, travelDate, -seats, counter);
+    }
+
+    @Override
+    public boolean holdSeats(Long busId, LocalDate travelDate, int seats) {
+        if (busId == null || travelDate == null || seats <= 0) {
+            return false;
+        }
+        SeatCounter counter = counter(busId, travelDate);
+        // Counted as held first, so a reload in between cannot drop the claim
+        counter.held.addAndGet(seats);
+        if (!claim(counter, busId, travelDate, seats)) {
+            counter.held.addAndGet(-seats);
+            logger.info("Not enough seats on bus {} for {} to hold", busId, travelDate);
+            return false;
+        }
+        publish(busId, travelDate, seats, counter);
+        return true;
+    }
+
+    @Override
+    public boolean confirmHeldSeats(Long busId, LocalDate travelDate, int seats) {
+        if (busId == null || travelDate == null || seats <= 0) {
+            return false;
+        }
+        // Already counted in memory when held; only the ledger catches up, if other instances left room
+        if (seatInventoryRepository.claimSeats(busId, travelDate, seats) == 0) {
+            releaseHeldSeats(busId, travelDate, seats);
+            reload(counter(busId, travelDate), busId, travelDate);
+            logger.info("Held seats on bus {} for {} were sold elsewhere", busId, travelDate);
+            return false;
+        }
+        counter(busId, travelDate).held.addAndGet(-seats);
+        return true;
+    }
+
+    @Override
+    public void releaseHeldSeats(Long busId, LocalDate travelDate, int seats) {
+        if (busId == null || travelDate == null || seats <= 0) {
+            return;
+        }
+        SeatCounter counter = counter(busId, travelDate);
+        counter.held.addAndGet(-seats);
+        counter.release(seats);
+        publish(busId, travelDate, -seats, counter);
+    }
+
+    @Override
+    public int getAvailableSeats(Long busId, LocalDate travelDate) {
+        return counter(busId, travelDate).available();
+    }
+
+    @Override
+    public int getSeatsBooked(Long busId, LocalDate travelDate) {
+        return counter(busId, travelDate).booked();
+    }
+
+    /**
+     * An edited bus carries its new seat count to its upcoming departures
+     */
+    @EventListener
+    public void onBusChanged(BusChangedEvent event) {
+        if (!event.isDeleted()) {
+            updateCapacity(Map.of(event.busId(), event.bus().getSeats()));
+        }
+    }
+
+    @EventListener
+    public void onBusesImported(BusesImportedEvent event) {
+        Map<Long, Integer> capacities = new HashMap<>();
+        for (Bus bus : busRepository.findAllById(event.busIds())) {
+            capacities.put(bus.getId(), bus.getSeats());
+        }
+        updateCapacity(capacities);
+    }
+
+    private void updateCapacity(Map<Long, Integer> capacities) {
+        LocalDate today = LocalDate.now();
+        capacities.forEach((busId, capacity) -> seatInventoryRepository.updateCapacity(busId, today, capacity));
+        // One pass over the loaded counters, however many buses changed
+        counters.forEach((key, counter) -> {
+            Integer capacity = capacities.get(key.busId());
+            if (capacity != null && !key.travelDate().isBefore(today) && capacity != counter.capacity) {
+                counter.capacity = capacity;
+                publish(key.busId(), key.travelDate(), 0, counter);
+            }
+        });
+    }
+
+    /**
+     * Drop the counters of departures that have gone; their rows stay in the ledger
+     */
+    @Scheduled(cron = "${seats.prune-cron:0 5 0 * * *}")
+    public void pruneCounters() {
+        LocalDate today = LocalDate.now();
+        int before = counters.size();
+        counters.keySet().removeIf(key -> key.travelDate().isBefore(today));
+        logger.info("Pruned {} seat counters for past departures", before - counters.size());
+    }
+
+    int getCounterCount() {
+        return counters.size();
+    }
+
+    private void publish(Long busId, LocalDate travelDate, int seatsDelta, SeatCounter counter) {
+        eventPublisher.publishEvent(new SeatsChangedEvent(busId, travelDate, seatsDelta,
+                counter.booked(), counter.capacity));
+    }
+
+    /**
+     * Claim in memory; a counter that says no is checked once against the ledger,
+     * in case other instances released seats or the capacity went up
+     */
+    private boolean claim(SeatCounter counter, Long busId, LocalDate travelDate, int seats) {
+        if (counter.tryClaim(seats)) {
+            return true;
+        }
+        return reload(counter, busId, travelDate) && counter.tryClaim(seats);
+    }
+
+    private boolean reload(SeatCounter counter, Long busId, LocalDate travelDate) {
+        Optional<SeatInventory> row = seatInventoryRepository.findByBusIdAndTravelDate(busId, travelDate);
+        row.ifPresent(counter::sync);
+        return row.isPresent();
+    }
+
+    /**
+     * Counter for a departure, loaded from (or created in) the ledger table on first use.
+     * The row is read outside the map, so a slow query holds up no other departure;
+     * when two callers race, the first counter in wins and the other load is dropped.
+     */
+    private SeatCounter counter(Long busId, LocalDate travelDate) {
+        TripKey key = new TripKey(busId, travelDate);
+        SeatCounter counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        SeatInventory row = seatInventoryRepository.findByBusIdAndTravelDate(busId, travelDate)
+                .orElseGet(() -> createRow(busId, travelDate));
+        SeatCounter loaded = new SeatCounter(row.getCapacity(), row.getSeatsBooked());
+        counter = counters.putIfAbsent(key, loaded);
+        return counter == null ? loaded : counter;
+    }
+    private SeatInventory createRow(Long busId, LocalDate travelDate) {
+        // The materialized trip carries the departure's capacity; fall back to the bus
+        int capacity = tripRepository.findByBusIdAndTravelDate(busId, travelDate)
+                .map(Trip::getCapacity)
+                .orElseGet(() -> busRepository.findById(busId).map(Bus::getSeats).orElse(0));
+        try {
+            return seatInventoryRepository.save(new SeatInventory(busId, travelDate, capacity));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the row first
+            return seatInventoryRepository.findByBusIdAndTravelDate(busId, travelDate).orElseThrow(() -> e);
+        }
+    }
+}
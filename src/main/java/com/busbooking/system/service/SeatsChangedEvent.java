@@ -0,0 +1,15 @@
+package com.busbooking.system.service;
+
+import java.time.LocalDate;
+
+/**
+ * Published by SeatInventoryService after seats on a departure are claimed or given back,
+ * whether booked outright or held in a cart, or after the departure's capacity changes
+ * @param busId bus of the departure
+ * @param travelDate date of the departure
+ * @param seatsDelta seats claimed (positive) or released (negative), 0 for a capacity change
+ * @param seatsBooked seats booked or held on the departure after the change
+ * @param capacity seats on the departure
+ */
+public record SeatsChangedEvent(Long busId, LocalDate travelDate, int seatsDelta, int seatsBooked, int capacity) {
+}
@@ -0,0 +1,40 @@
+package com.busbooking.system.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Self-contained session tokens: the username, role and expiry travel in the token
+ * itself under an HMAC signature, so any node can check a request without a database
+ * or session-store lookup.
+ */
+public interface SessionTokenService {
+
+    String COOKIE_NAME = "BB_SESSION";
+
+    /**
+     * The signed-in user a valid token speaks for
+     */
+    record Session(String username, String role, Instant expiresAt) {
+
+        public boolean isAdmin() {
+            return "ADMIN".equals(role);
+        }
+    }
+
+    /**
+     * Sign a token with the current key
+     */
+    String issue(String username, String role);
+
+    /**
+     * Check a token signed with any configured key
+     * @return the session, or empty if the token is malformed, forged, signed with an unknown key or expired
+     */
+    Optional<Session> verify(String token);
+
+    /**
+     * @return how long an issued token stays valid, in seconds
+     */
+    long getTtlSeconds();
+}
@@ -0,0 +1,229 @@
+package com.busbooking.system.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Tokens are base64url(kid|username|role|expiry) "." base64url(HMAC-SHA256 of the payload).
+ * Keys are configured as auth.session.keys=kid:base64secret,...; the first one signs and
+ * all of them verify, so a key is rotated by putting a new one first and dropping the old
+ * one once the tokens it signed have expired. Checking a token is one HMAC over a few
+ * dozen bytes and a handful of small allocations.
+ */
+@Service
+public class SessionTokenServiceImpl implements SessionTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenServiceImpl.class);
+
+    private static final String DIGEST = "SHA-256";
+    private static final int BLOCK_BYTES = 64;
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final byte SEPARATOR = '|';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * HMAC-SHA256 with the digest states after the key's inner and outer pad blocks
+     * worked out once (RFC 2104, section 4). Each signature clones those states instead
+     * of hashing both pad blocks again, which saves two of the five SHA-256 blocks a
+     * typical token costs. The prototypes are never updated after construction, so any
+     * thread may clone them.
+     */
+    private static final class SigningKey {
+        final String kid;
+        final MessageDigest inner;
+        final MessageDigest outer;
+
+        SigningKey(String kid, byte[] secret) {
+            this.kid = kid;
+            this.inner = digest();
+            this.outer = digest();
+            byte[] key = secret.length > BLOCK_BYTES ? digest().digest(secret) : secret;
+            byte[] innerPad = new byte[BLOCK_BYTES];
+            byte[] outerPad = new byte[BLOCK_BYTES];
+            for (int i = 0; i < BLOCK_BYTES; i++) {
+                byte k = i < key.length ? key[i] : 0;
+                innerPad[i] = (byte) (k ^ 0x36);
+                outerPad[i] = (byte) (k ^ 0x5c);
+            }
+            inner.update(innerPad);
+            outer.update(outerPad);
+        }
+
+        byte[] sign(byte[] payload, int length) {
+            MessageDigest innerHash = copy(inner);
+            innerHash.update(payload, 0, length);
+            MessageDigest outerHash = copy(outer);
+            outerHash.update(innerHash.digest());
+            return outerHash.digest();
+        }
+
+        private static MessageDigest digest() {
+            try {
+                return MessageDigest.getInstance(DIGEST);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        private static MessageDigest copy(MessageDigest prototype) {
+            try {
+                return (MessageDigest) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+            }
+        }
+    }
+
+    private final SigningKey currentKey;
+    private final Map<String, SigningKey> keys;
+    private final long ttlSeconds;
+    private final LongSupplier epochSeconds;
+
+    @Autowired
+    public SessionTokenServiceImpl(@Value("${auth.session.keys:}") String configuredKeys,
+                                   @Value("${auth.session.ttl-minutes:720}") long ttlMinutes) {
+        this(configuredKeys, ttlMinutes, () -> TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+    }
+
+    SessionTokenServiceImpl(String configuredKeys, long ttlMinutes, LongSupplier epochSeconds) {
+        Map<String, SigningKey> parsed = parseKeys(configuredKeys);
+        this.currentKey = parsed.values().iterator().next();
+        this.keys = Map.copyOf(parsed);
+        this.ttlSeconds = TimeUnit.MINUTES.toSeconds(ttlMinutes);
+        this.epochSeconds = epochSeconds;
+    }
+
+    @Override
+    public String issue(String username, String role) {
+        String claims = String.join("|", currentKey.kid, username, role,
+                Long.toString(epochSeconds.getAsLong() + ttlSeconds));
+        byte[] payload = claims.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(currentKey.sign(payload, payload.length));
+    }
+
+    @Override
+    public Optional<Session> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+        byte[] encoded = token.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] payload = new byte[encoded.length];
+        byte[] signature;
+        int length;
+        try {
+            length = DECODER.decode(Arrays.copyOf(encoded, dot), payload);
+            signature = DECODER.decode(Arrays.copyOfRange(encoded, dot + 1, encoded.length));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        // kid|username|role|expiry - the username is the only field that may itself contain a separator
+        int kidEnd = indexOf(payload, 0, length);
+        int expiryStart = lastIndexOf(payload, length);
+        int roleStart = lastIndexOf(payload, expiryStart);
+        if (kidEnd < 0 || roleStart <= kidEnd) {
+            return Optional.empty();
+        }
+        SigningKey key = keys.get(new String(payload, 0, kidEnd, StandardCharsets.UTF_8));
+        if (key == null || !MessageDigest.isEqual(key.sign(payload, length), signature)) {
+            return Optional.empty();
+        }
+
+        long expiresAt = 0;
+        for (int i = expiryStart + 1; i < length; i++) {
+            int digit = payload[i] - '0';
+            if (digit < 0 || digit > 9 || i - expiryStart > 18) {
+                return Optional.empty();
+            }
+            expiresAt = expiresAt * 10 + digit;
+        }
+        if (expiresAt <= epochSeconds.getAsLong()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Session(new String(payload, kidEnd + 1, roleStart - kidEnd - 1, StandardCharsets.UTF_8),
+                new String(payload, roleStart + 1, expiryStart - roleStart - 1, StandardCharsets.UTF_8),
+                Instant.ofEpochSecond(expiresAt)));
+    }
+
+    @Override
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == SEPARATOR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the last separator before the given position, or -1
+     */
+    private static int lastIndexOf(byte[] bytes, int before) {
+        for (int i = before - 1; i >= 0; i--) {
+            if (bytes[i] == SEPARATOR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Map<String, SigningKey> parseKeys(String configuredKeys) {
+        Map<String, SigningKey> parsed = new LinkedHashMap<>();
+        for (String entry : configuredKeys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            String kid = colon > 0 ? entry.substring(0, colon).trim() : "";
+            if (kid.isEmpty() || kid.indexOf('|') >= 0) {
+                throw new IllegalStateException("auth.session.keys entries must look like kid:base64secret");
+            }
+            byte[] secret;
+            try {
+                secret = Base64.getDecoder().decode(entry.substring(colon + 1).trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Session key " + kid + " is not valid base64", e);
+            }
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("Session key " + kid + " must be at least " + MIN_SECRET_BYTES
+                        + " bytes");
+            }
+            if (parsed.putIfAbsent(kid, new SigningKey(kid, secret)) != null) {
+                throw new IllegalStateException("Session key id " + kid + " is configured twice");
+            }
+        }
+        if (parsed.isEmpty()) {
+            byte[] secret = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(secret);
+            parsed.put("local", new SigningKey("local", secret));
+            logger.warn("No auth.session.keys configured - signing sessions with a random key, so they end on "
+                    + "restart and are not accepted by other nodes");
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,159 @@
+package com.busbooking.system.service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * One token bucket per key, refilled lazily: nothing runs between requests. Each
+ * bucket is a single AtomicLong holding the time at which it will be full again
+ * (the "theoretical arrival time" of GCRA, which is a token bucket kept as one
+ * number). Taking a token is one compare-and-set, so callers never block.
+ * <p>
+ * A bucket whose refill time has passed is full, which is exactly how a missing
+ * bucket behaves, so idle keys are dropped without changing any answer. Keys are
+ * spread over stripes, each with its own map and share of the key limit; a stripe
+ * that reaches its share first drops its full buckets and, if that is not enough,
+ * the rest in no particular order.
+ */
+final class TokenBucketLimiter {
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeysPerStripe;
+    private final int mask;
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final ReentrantLock[] trimLocks;
+    private final LongSupplier clock;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * @param burst tokens a full bucket holds
+     * @param perMinute tokens added back per minute
+     * @param stripes number of stripes, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    TokenBucketLimiter(int burst, double perMinute, int maxKeys, int stripes, LongSupplier clock) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.intervalNanos = (long) (60_000_000_000L / perMinute);
+        this.toleranceNanos = (Math.max(1, burst) - 1) * intervalNanos;
+        this.maxKeysPerStripe = Math.max(1, maxKeys / size);
+        this.mask = size - 1;
+        this.stripes = new ConcurrentHashMap[size];
+        this.trimLocks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ConcurrentHashMap<>();
+            this.trimLocks[i] = new ReentrantLock();
+        }
+        this.clock = clock;
+    }
+
+    /**
+     * Take a token for the key
+     * @return 0 if one was taken, otherwise the nanoseconds until one will be available
+     */
+    long tryAcquire(String key) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            key = key.substring(0, MAX_KEY_LENGTH);
+        }
+        long now = clock.getAsLong();
+        int hash = key.hashCode();
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[(hash ^ (hash >>> 16)) & mask];
+        AtomicLong bucket = stripe.get(key);
+        if (bucket == null) {
+            if (stripe.size() >= maxKeysPerStripe) {
+                trim(stripe, trimLocks[(hash ^ (hash >>> 16)) & mask], now);
+            }
+            AtomicLong fresh = new AtomicLong(now);
+            bucket = stripe.putIfAbsent(key, fresh);
+            if (bucket == null) {
+                bucket = fresh;
+            }
+        }
+
+        while (true) {
+            long fullAt = bucket.get();
+            long from = Math.max(fullAt, now);
+            long wait = from - now - toleranceNanos;
+            if (wait > 0) {
+                denied.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, from + intervalNanos)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop every bucket that has refilled
+     */
+    void sweep() {
+        long now = clock.getAsLong();
+        for (int i = 0; i < stripes.length; i++) {
+            trimLocks[i].lock();
+            try {
+                dropFull(stripes[i], now);
+            } finally {
+                trimLocks[i].unlock();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    long allowed() {
+        return allowed.sum();
+    }
+
+    long denied() {
+        return denied.sum();
+    }
+
+    long evicted() {
+        return evicted.sum();
+    }
+
+    private void trim(ConcurrentHashMap<String, AtomicLong> stripe, ReentrantLock lock, long now) {
+        // Whoever gets here first trims; the others go ahead rather than wait
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            dropFull(stripe, now);
+            // Still full of busy keys, as in a flood of new addresses: those dropped start again with a full bucket
+            Iterator<AtomicLong> it = stripe.values().iterator();
+            while (stripe.size() >= maxKeysPerStripe && it.hasNext()) {
+                it.next();
+                it.remove();
+                evicted.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dropFull(ConcurrentHashMap<String, AtomicLong> stripe, long now) {
+        Iterator<AtomicLong> it = stripe.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().get() <= now) {
+                it.remove();
+                evicted.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.model.Trip;
+import com.busbooking.system.repository.BusRepository;
+import com.busbooking.system.repository.TripRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expands each bus schedule into dated trip rows over a rolling horizon.
+ * A nightly run extends the horizon for the whole fleet; an admin edit
+ * regenerates only the edited bus's upcoming trips. All of it runs on one
+ * background thread, in the order it was asked for, so neither startup nor
+ * an admin save or import waits for trips to be written.
+ */
+@Component
+public class TripMaterializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripMaterializer.class);
+
+    private static final int IMPORT_BATCH = 200;
+
+    private final BusRepository busRepository;
+    private final TripRepository tripRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int horizonDays;
+    private final ExecutorService worker =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("trip-materializer").factory());
+
+    public TripMaterializer(BusRepository busRepository,
+                            TripRepository tripRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${trips.horizon-days:60}") int horizonDays) {
+        this.busRepository = busRepository;
+        this.tripRepository = tripRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.horizonDays = horizonDays;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${trips.materialize-cron:0 15 2 * * *}")
+    public void materializeAll() {
+        submit("full materialization", () -> {
+            LocalDate today = LocalDate.now();
+            int changed = 0;
+            for (Bus bus : busRepository.findByActiveTrueOrderByIdAsc()) {
+                changed += materialize(bus, today);
+            }
+            logger.info("Trip materialization complete: {} trip rows written or removed", changed);
+        });
+    }
+
+    /**
+     * Runs once the save has committed; the bus is read again on the worker, so a
+     * job queued behind a later edit or a delete never writes outdated trips
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBusChanged(BusChangedEvent event) {
+        Long busId = event.busId();
+        submit("trips of bus " + busId, () -> {
+            Optional<Bus> bus = busRepository.findById(busId);
+            if (bus.isPresent()) {
+                materialize(bus.get(), LocalDate.now());
+            } else {
+                Integer removed = transactionTemplate.execute(
+                        status -> tripRepository.deleteUpcoming(busId, LocalDate.now()));
+                logger.info("Removed {} upcoming trips of deleted bus {}", removed, busId);
+            }
+        });
+    }
+
+    /**
+     * Materialize imported buses a few hundred per transaction, with one trip lookup per batch
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBusesImported(BusesImportedEvent event) {
+        List<Long> ids = event.busIds();
+        submit("trips of " + ids.size() + " imported buses", () -> {
+            LocalDate today = LocalDate.now();
+            int changed = 0;
+            for (int from = 0; from < ids.size(); from += IMPORT_BATCH) {
+                changed += materialize(busRepository.findAllById(
+                        ids.subList(from, Math.min(from + IMPORT_BATCH, ids.size()))), today);
+            }
+            logger.info("Materialized {} imported buses: {} trip rows written or removed", ids.size(), changed);
+        });
+    }
+
+    /**
+     * Wait until every job queued so far has run; for tests
+     */
+    void awaitIdle() throws Exception {
+        worker.submit(() -> { }).get(1, TimeUnit.MINUTES);
+    }
+
+    private void submit(String job, Runnable work) {
+        try {
+            worker.execute(() -> {
+                try {
+                    work.run();
+                } catch (RuntimeException e) {
+                    logger.error("Trip materialization failed for {}", job, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Shutting down, skipped materializing {}", job);
+        }
+    }
+
+    /**
+     * Bring one bus's trips from today to the end of the horizon in line with its schedule.
+     * Unchanged rows are left alone, so a re-run only writes what differs.
+     * @return Number of rows inserted, updated or deleted
+     */
+    int materialize(Bus bus, LocalDate from) {
+        return materialize(List.of(bus), from);
+    }
+
+    /**
+     * Same as materialize(Bus, LocalDate) for several buses in one transaction
+     */
+    int materialize(List<Bus> buses, LocalDate from) {
+        if (buses.isEmpty()) {
+            return 0;
+        }
+        LocalDate to = from.plusDays(horizonDays - 1L);
+        Integer changed = transactionTemplate.execute(status -> {
+            Map<Long, Map<LocalDate, Trip>> existingByBus = new HashMap<>();
+            List<Long> busIds = buses.stream().map(Bus::getId).toList();
+            for (Trip trip : tripRepository.findByBusIdInAndTravelDateBetween(busIds, from, to)) {
+                existingByBus.computeIfAbsent(trip.getBusId(), id -> new HashMap<>()).put(trip.getTravelDate(), trip);
+            }
+
+            List<Trip> writes = new ArrayList<>();
+            List<Trip> removals = new ArrayList<>();
+            for (Bus bus : buses) {
+                Map<LocalDate, Trip> existing = existingByBus.getOrDefault(bus.getId(), new HashMap<>());
+                BusCalendar calendar = BusCalendar.of(bus);
+                if (bus.isActive()) {
+                    for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                        if (!calendar.runsOn(date)) {
+                            continue;
+                        }
+                        Trip trip = existing.remove(date);
+                        if (trip == null) {
+                            trip = new Trip(bus.getId(), date);
+                            trip.copyFrom(bus);
+                            writes.add(trip);
+                        } else if (trip.copyFrom(bus)) {
+                            writes.add(trip);
+                        }
+                    }
+                }
+                // Whatever is left no longer runs under the current schedule
+                removals.addAll(existing.values());
+            }
+
+            tripRepository.deleteAllInBatch(removals);
+            tripRepository.saveAll(writes);
+            return writes.size() + removals.size();
+        });
+        return changed == null ? 0 : changed;
+    }
+}
@@ -0,0 +1,159 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.User;
+import com.busbooking.system.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache of users by username, bounded by entry count (least recently used
+ * goes first) and by age. Entries are immutable snapshots and every read hands out a
+ * fresh User, so callers can change what they get without touching the cache.
+ * <p>
+ * Only users whose password is already hashed are cached; a legacy plain-text password
+ * is read from the database each time until the next login upgrades it. Writes through
+ * UserService invalidate their entries; a change made on another node shows here once
+ * the entry's TTL runs out.
+ */
+@Component
+public class UserCache {
+
+    /**
+     * Figures since startup, for sizing the cache
+     * @param evictions entries dropped to stay within maxEntries
+     * @param expirations entries found past their TTL
+     */
+    public record Metrics(int size, int maxEntries, long ttlSeconds, long hits, long misses,
+                          long evictions, long expirations, long invalidations) {
+
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private record Entry(Long id, String username, String passwordHash, String role, String email,
+                         boolean emailVerified, String phoneNumber, long loadedAt) {
+
+        User toUser() {
+            User user = new User(username, passwordHash, role);
+            user.setId(id);
+            user.setEmail(email);
+            user.setEmailVerified(emailVerified);
+            user.setPhoneNumber(phoneNumber);
+            return user;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // Access-ordered, so the eldest entry is the least recently used; guarded by this
+    private final LinkedHashMap<String, Entry> entries;
+    // Bumped by every invalidation, so a load that raced with one is not cached
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    @Autowired
+    public UserCache(UserRepository userRepository,
+                     PasswordHasher passwordHasher,
+                     @Value("${auth.user-cache.max-entries:10000}") int maxEntries,
+                     @Value("${auth.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this(userRepository, passwordHasher, maxEntries, TimeUnit.SECONDS.toNanos(ttlSeconds), System::nanoTime);
+    }
+
+    UserCache(UserRepository userRepository, PasswordHasher passwordHasher, int maxEntries, long ttlNanos,
+              LongSupplier clock) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > UserCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The user with this username, from the cache or else the database
+     */
+    public Optional<User> get(String username) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(username);
+            if (entry != null && clock.getAsLong() - entry.loadedAt < ttlNanos) {
+                hits++;
+                return Optional.of(entry.toUser());
+            }
+            if (entry != null) {
+                entries.remove(username);
+                expirations++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        // Loaded outside the lock, so one slow query does not hold up every other login
+        Optional<User> loaded = userRepository.findFirstByUsername(username);
+        loaded.filter(user -> passwordHasher.isHashed(user.getPassword()))
+                .ifPresent(user -> put(user, loadGeneration));
+        return loaded;
+    }
+
+    public synchronized void invalidate(String username) {
+        generation++;
+        if (username != null && entries.remove(username) != null) {
+            invalidations++;
+        }
+    }
+
+    /**
+     * Drop the entry for a user id, for changes that may not know the username the user was cached under
+     */
+    public synchronized void invalidateId(Long id) {
+        generation++;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (Objects.equals(it.next().id, id)) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(entries.size(), maxEntries, TimeUnit.NANOSECONDS.toSeconds(ttlNanos), hits, misses,
+                evictions, expirations, invalidations);
+    }
+
+    private synchronized void put(User user, long loadGeneration) {
+        if (loadGeneration == generation) {
+            entries.put(user.getUsername(), new Entry(user.getId(), user.getUsername(), user.getPassword(),
+                    user.getRole(), user.getEmail(), user.isEmailVerified(), user.getPhoneNumber(),
+                    clock.getAsLong()));
+        }
+    }
+}
@@ -11,6 +11,7 @@ public interface UserService {
     boolean validateUser(String username, String password);
     void saveUser(User user);
     void register(User user);
+    boolean isUsernameAvailable(String username);
     User login(String username, String password);
     
     // User management methods
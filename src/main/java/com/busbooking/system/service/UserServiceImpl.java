@@ -4,11 +4,11 @@ import com.busbooking.system.model.User;
 import com.busbooking.system.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class UserServiceImpl implements UserService {
@@ -18,37 +18,22 @@ public class UserServiceImpl implements UserService {
     private static final String VALIDATION_COMPLETE = "User validation completed";
 
     private final UserRepository userRepository;
+    private final CredentialService credentialService;
+    private final UserCache userCache;
+    private final UsernameFilter usernameFilter;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, CredentialService credentialService, UserCache userCache,
+                           UsernameFilter usernameFilter) {
         this.userRepository = userRepository;
+        this.credentialService = credentialService;
+        this.userCache = userCache;
+        this.usernameFilter = usernameFilter;
     }
 
     @Override
     public boolean validateUser(String username, String password) {
         logger.info("Validating user credentials");
-
-        try {
-            Optional<User> userOpt = userRepository.findFirstByUsername(username);
-
-            if (userOpt.isPresent()) {
-                boolean passwordMatch = password.equals(userOpt.get().getPassword());
-                logger.info(VALIDATION_COMPLETE);
-                return passwordMatch;
-            }
-
-            List<User> list = userRepository.findByUsername(username);
-            if (!list.isEmpty()) {
-                boolean passwordMatch = password.equals(list.get(0).getPassword());
-                logger.info(VALIDATION_COMPLETE);
-                return passwordMatch;
-            }
-
-            return false;
-
-        } catch (RuntimeException e) {
-            logger.error("Database error during validation: {}", e.getMessage());
-            return false;
-        }
+        return login(username, password) != null;
     }
 
     @Override
@@ -56,21 +41,46 @@ public class UserServiceImpl implements UserService {
         try {
             logger.info("Saving user");
 
+            // A taken username is turned away before paying for a password hash
+            if (user.getId() == null && isUsernameTaken(user.getUsername())) {
+                throw new IllegalStateException("Username already exists");
+            }
+
+            // Passwords are only ever stored hashed; an unchanged hash is kept as it is
+            if (user.getPassword() != null && !credentialService.isHashed(user.getPassword())) {
+                user.setPassword(credentialService.hashPassword(user.getPassword()));
+            }
+
             if (user.getId() != null) {
+                String previousUsername = userRepository.findById(user.getId()).map(User::getUsername).orElse(null);
                 userRepository.save(user);
+                if (!user.getUsername().equals(previousUsername)) {
+                    usernameFilter.add(user.getUsername());
+                    if (previousUsername != null) {
+                        usernameFilter.remove(previousUsername);
+                    }
+                }
+                // The username may have changed too, so the old entry is found by id
+                userCache.invalidateId(user.getId());
+                userCache.invalidate(user.getUsername());
                 return;
             }
 
-            List<User> existing = userRepository.findByUsername(user.getUsername());
-            if (!existing.isEmpty()) {
-                throw new IllegalStateException("Username already exists");
-            }
-
             if (user.getRole() == null || user.getRole().isEmpty()) {
                 user.setRole("USER");
             }
 
-            userRepository.save(user);
+            try {
+                userRepository.save(user);
+            } catch (DataIntegrityViolationException e) {
+                // The unique constraint has the last word when two registrations race for a name
+                if (userRepository.existsByUsername(user.getUsername())) {
+                    throw new IllegalStateException("Username already exists");
+                }
+                throw e;
+            }
+            usernameFilter.add(user.getUsername());
+            userCache.invalidate(user.getUsername());
 
         } catch (IllegalStateException e) {
             logger.error("User validation error: {}", e.getMessage());
@@ -82,6 +92,11 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return username != null && !username.isBlank() && !isUsernameTaken(username);
+    }
+
     @Override
     public void register(User user) {
         saveUser(user);
@@ -89,9 +104,14 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User login(String username, String password) {
-        return userRepository.findFirstByUsername(username)
-                .filter(u -> u.getPassword().equals(password))
-                .orElse(null);
+        try {
+            User user = credentialService.authenticate(username, password).join().orElse(null);
+            logger.info(VALIDATION_COMPLETE);
+            return user;
+        } catch (CompletionException e) {
+            logger.error("Error during validation: {}", e.getCause().getMessage());
+            return null;
+        }
     }
 
     @Override
@@ -104,12 +124,32 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void deleteUser(Long id) {
+        String username = userRepository.findById(id).map(User::getUsername).orElse(null);
         userRepository.deleteById(id);
+        if (username != null) {
+            usernameFilter.remove(username);
+        }
+        userCache.invalidateId(id);
     }
 
     @Override
     public User findByUsername(String username) {
-        return userRepository.findFirstByUsername(username).orElse(null);
+        return userCache.get(username).orElse(null);
+    }
+
+    /**
+     * A definite miss from the filter needs no query. A possible match is checked against
+     * the database, not the user cache: a user deleted on another node may still be cached.
+     */
+    private boolean isUsernameTaken(String username) {
+        if (!usernameFilter.mightContain(username)) {
+            return false;
+        }
+        if (userRepository.existsByUsername(username)) {
+            return true;
+        }
+        usernameFilter.recordFalsePositive();
+        return false;
     }
 
     @Override
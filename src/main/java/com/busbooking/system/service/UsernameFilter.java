@@ -0,0 +1,195 @@
+package com.busbooking.system.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counting Bloom filter of the usernames in use. "No" is definite, so a free username
+ * is confirmed without a query; "maybe" still has to be checked against the database,
+ * and the unique constraint on users.username settles any race either way.
+ * <p>
+ * Each slot is an 8-bit counter rather than a bit, so deleting a user can take its
+ * username back out. A counter that reaches 255 stays there for good: it can no longer
+ * tell how many names share it, and leaving it set only costs false positives.
+ * <p>
+ * Only names registered through this instance are added as they happen; the filter is
+ * re-seeded from the table on a fixed delay so names added or removed elsewhere catch up.
+ */
+@Component
+public class UsernameFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameFilter.class);
+
+    private static final VarHandle COUNTER = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final int SATURATED = 0xFF;
+
+    /**
+     * @param usernames names added less names removed since the last seed
+     * @param falsePositives "maybe" answers the database then ruled out
+     */
+    public record Metrics(boolean seeded, long usernames, long expectedUsernames, int counters, int hashes,
+                          double targetFalsePositiveRate, long definiteMisses, long possibleMatches,
+                          long falsePositives) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedUsernames;
+    private final double falsePositiveRate;
+    private final int size;
+    private final int hashes;
+
+    // Written under the lock, read without it
+    private volatile byte[] counters;
+    private volatile boolean seeded;
+    private final AtomicLong usernames = new AtomicLong();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder possibleMatches = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public UsernameFilter(JdbcTemplate jdbcTemplate,
+                          @Value("${auth.username-filter.expected-users:100000}") long expectedUsernames,
+                          @Value("${auth.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedUsernames = expectedUsernames;
+        this.falsePositiveRate = falsePositiveRate;
+        // Optimal size and hash count for n names at false-positive rate p
+        double ln2 = Math.log(2);
+        this.size = (int) Math.min(Integer.MAX_VALUE - 8,
+                Math.ceil(-expectedUsernames * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        this.hashes = Math.max(1, (int) Math.round((double) size / expectedUsernames * ln2));
+        this.counters = new byte[size];
+    }
+
+    /**
+     * Load every username, once startup data is in place. Until then every name is a "maybe".
+     * Runs again every auth.username-filter.reseed-ms to pick up changes made by other instances.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.username-filter.reseed-ms:3600000}",
+            initialDelayString = "${auth.username-filter.reseed-ms:3600000}")
+    public synchronized void seed() {
+        long start = System.currentTimeMillis();
+        byte[] fresh = new byte[size];
+        AtomicLong loaded = new AtomicLong();
+        jdbcTemplate.query("SELECT username FROM users", rs -> {
+            increment(fresh, rs.getString(1));
+            loaded.incrementAndGet();
+        });
+        counters = fresh;
+        usernames.set(loaded.get());
+        seeded = true;
+        logger.info("Username filter seeded with {} usernames in {} ms ({} counters, {} hashes)", loaded.get(),
+                System.currentTimeMillis() - start, size, hashes);
+        if (loaded.get() > expectedUsernames) {
+            logger.warn("More usernames than auth.username-filter.expected-users ({}), so more false positives",
+                    expectedUsernames);
+        }
+    }
+
+    /**
+     * @return false only if the username is certainly not in use
+     */
+    public boolean mightContain(String username) {
+        if (!seeded) {
+            return true;
+        }
+        byte[] current = counters;
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            if ((byte) COUNTER.getVolatile(current, index(h1, h2, i)) == 0) {
+                definiteMisses.increment();
+                return false;
+            }
+        }
+        possibleMatches.increment();
+        return true;
+    }
+
+    public synchronized void add(String username) {
+        increment(counters, username);
+        usernames.incrementAndGet();
+    }
+
+    /**
+     * Take a deleted username back out. A name the filter never saw, say one registered on
+     * another instance since the last seed, is left alone: decrementing its counters would
+     * only take them from other names, which would then read as free.
+     */
+    public synchronized void remove(String username) {
+        byte[] current = counters;
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            if (current[index(h1, h2, i)] == 0) {
+                logger.debug("Username {} was not in the filter; left for the next seed", username);
+                return;
+            }
+        }
+        for (int i = 0; i < hashes; i++) {
+            int index = index(h1, h2, i);
+            int count = Byte.toUnsignedInt(current[index]);
+            if (count > 0 && count < SATURATED) {
+                COUNTER.setVolatile(current, index, (byte) (count - 1));
+            }
+        }
+        usernames.decrementAndGet();
+    }
+
+    /**
+     * Note a "maybe" that the database answered with no
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(seeded, usernames.get(), expectedUsernames, size, hashes, falsePositiveRate,
+                definiteMisses.sum(), possibleMatches.sum(), falsePositives.sum());
+    }
+
+    private void increment(byte[] target, String username) {
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int index = index(h1, h2, i);
+            int count = Byte.toUnsignedInt(target[index]);
+            if (count < SATURATED) {
+                COUNTER.setVolatile(target, index, (byte) (count + 1));
+            }
+        }
+    }
+
+    // Double hashing: k indexes from two halves of one 64-bit hash (Kirsch and Mitzenmacher)
+    private int index(int h1, int h2, int i) {
+        return Math.floorMod(h1 + i * h2, size);
+    }
+
+    // FNV-1a over the characters, then the MurmurHash3 finalizer to spread the bits
+    private static long hash(String username) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            h ^= username.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
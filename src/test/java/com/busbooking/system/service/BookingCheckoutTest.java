@@ -0,0 +1,136 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.model.Cart;
+import com.busbooking.system.repository.BookingRepository;
+import com.busbooking.system.repository.CartRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for batched checkout using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "spring.jpa.properties.hibernate.generate_statistics=true"})
+public class BookingCheckoutTest {
+
+    private static final int CART_SIZE = 10;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TripMaterializer tripMaterializer;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Trip materialization runs in the background; its SQL must not land in the counts below
+        tripMaterializer.awaitIdle();
+        bookingRepository.deleteAll();
+        cartRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testConfirmBookingsSavesCartAndClearsIt() {
+        List<Booking> bookings = fillCart("user1");
+
+        List<Booking> saved = bookingService.confirmBookings("user1", bookings);
+
+        assertEquals(CART_SIZE, saved.size());
+        assertTrue(saved.stream().allMatch(booking -> booking.getId() != null));
+        assertEquals(CART_SIZE, bookingService.getBookingsByUser("user1").size());
+        assertTrue(cartService.getCartByUser("user1").isEmpty());
+    }
+
+    @Test
+    void testConfirmBookingsBatchesInserts() {
+        List<Booking> bookings = fillCart("user1");
+
+        statistics.clear();
+        bookingService.confirmBookings("user1", bookings);
+
+        // One insert statement for the whole cart, plus the cart delete and at most one sequence fetch
+        assertTrue(statistics.getPrepareStatementCount() <= 3,
+                "Statements prepared: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void benchmarkTenItemCheckout() {
+        int rounds = 200;
+        long[] perRow = new long[rounds];
+        long[] batched = new long[rounds];
+        long perRowStatements = 0;
+        long batchedStatements = 0;
+
+        for (int i = 0; i < rounds; i++) {
+            // Previous checkout path: one save per cart row, then a separate cart clear
+            List<Booking> bookings = fillCart("perrow");
+            statistics.clear();
+            long start = System.nanoTime();
+            for (Booking booking : bookings) {
+                bookingService.saveBooking(booking);
+            }
+            cartService.clearCart("perrow");
+            perRow[i] = System.nanoTime() - start;
+            perRowStatements += statistics.getPrepareStatementCount();
+
+            bookings = fillCart("batched");
+            statistics.clear();
+            start = System.nanoTime();
+            bookingService.confirmBookings("batched", bookings);
+            batched[i] = System.nanoTime() - start;
+            batchedStatements += statistics.getPrepareStatementCount();
+        }
+        Arrays.sort(perRow);
+        Arrays.sort(batched);
+
+        System.out.println("📊 " + CART_SIZE + "-item checkout over " + rounds + " rounds: per-row median "
+                + perRow[rounds / 2] / 1_000 + " µs (" + perRowStatements / rounds + " statements), batched median "
+                + batched[rounds / 2] / 1_000 + " µs (" + batchedStatements / rounds + " statements)");
+        assertTrue(batchedStatements < perRowStatements);
+        assertEquals(2 * rounds * CART_SIZE, bookingRepository.count());
+    }
+
+    private List<Booking> fillCart(String username) {
+        LocalDate travelDate = LocalDate.now().plusDays(1);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < CART_SIZE; i++) {
+            Cart cart = new Cart(username, (long) i, "Bus " + i, "Dublin", "Galway", travelDate.toString(), 1, 25.0);
+            cartService.addToCart(cart);
+            Booking booking = new Booking(username, cart.getBusName(), cart.getSource(), cart.getDestination(),
+                    travelDate, cart.getPassengers(), cart.getTotalPrice());
+            booking.setBusId(cart.getBusId());
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+}
@@ -0,0 +1,137 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.repository.BookingRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the streaming booking export using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.jpa.show-sql=false")
+public class BookingExportTest {
+
+    @Autowired
+    private BookingExportService bookingExportService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+    }
+
+    @Test
+    void testCsvExport() throws Exception {
+        Booking quoted = new Booking("o'brien", "Express \"Gold\", Dublin", "Dublin", "Galway", today, 2, 51.0);
+        bookingRepository.save(quoted);
+        bookingRepository.save(new Booking("user2", "CityLink", "Cork", "Limerick", today.plusDays(1), 1, 20.0));
+
+        String[] lines = export(BookingExportService.Format.CSV, null, null).split("\n");
+
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,username,busId,busName"));
+        assertTrue(lines[1].contains(",o'brien,,\"Express \"\"Gold\"\", Dublin\",Dublin,Galway,"));
+        assertTrue(lines[2].endsWith(",1,20.0,CONFIRMED,PAID"));
+    }
+
+    @Test
+    void testNdjsonExportWithDateRange() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            bookingRepository.save(new Booking("user" + i, "Bus", "Dublin", "Galway", today.plusDays(i), 1, 10.0));
+        }
+
+        String[] lines = export(BookingExportService.Format.NDJSON, today.plusDays(2), today.plusDays(4)).split("\n");
+
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode row = mapper.readTree(lines[i]);
+            assertEquals("user" + (i + 2), row.get("username").asText());
+            assertEquals(today.plusDays(i + 2).toString(), row.get("travelDate").asText());
+            assertTrue(row.get("busId").isNull());
+        }
+    }
+
+    @Test
+    void benchmarkLargeExport() throws Exception {
+        int total = 0;
+        for (int chunk = 0; chunk < 10; chunk++) {
+            List<Booking> bookings = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                bookings.add(new Booking("user" + i % 100, "Bus " + i % 20, "Dublin", "Galway",
+                        today.plusDays(i % 60), 1 + i % 3, 25.0));
+            }
+            bookingRepository.saveAll(bookings);
+            total += bookings.size();
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        HeapSamplingStream out = new HeapSamplingStream(memory);
+
+        long start = System.nanoTime();
+        long rows = bookingExportService.exportBookings(BookingExportService.Format.CSV, null, null, out);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(total, rows);
+        System.out.println("📊 Exported " + rows + " bookings (" + out.bytes / 1024 + " KB) in " + millis
+                + " ms; heap after GC grew at most " + Math.max(0, out.peakAfterGc - baseline) / 1024 + " KB");
+    }
+
+    private String export(BookingExportService.Format format, LocalDate from, LocalDate to) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookingExportService.exportBookings(format, from, to, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Discards the export, sampling live heap after a GC every megabyte written
+     */
+    private static final class HeapSamplingStream extends OutputStream {
+        private final MemoryMXBean memory;
+        private long bytes;
+        private long peakAfterGc;
+
+        HeapSamplingStream(MemoryMXBean memory) {
+            this.memory = memory;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            long before = bytes;
+            bytes += len;
+            if (before / (1 << 20) != bytes / (1 << 20)) {
+                System.gc();
+                peakAfterGc = Math.max(peakAfterGc, memory.getHeapMemoryUsage().getUsed());
+            }
+        }
+    }
+}
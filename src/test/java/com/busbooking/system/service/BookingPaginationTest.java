@@ -0,0 +1,138 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.BookingFilter;
+import com.busbooking.system.dto.BookingPage;
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the keyset-paginated admin bookings query using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.jpa.show-sql=false")
+public class BookingPaginationTest {
+
+    private static final String[] USERS = {"alice", "bob", "carol", "dave"};
+    private static final String[] CITIES = {"Dublin", "Galway", "Cork", "Limerick"};
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+    }
+
+    @Test
+    void testPagesCoverEveryBookingOnce() {
+        insertBookings(95);
+
+        Set<Long> seen = new HashSet<>();
+        Long cursor = null;
+        Long previousId = Long.MAX_VALUE;
+        int pages = 0;
+        do {
+            BookingPage page = bookingService.getBookingPage(BookingFilter.none(), cursor, 20);
+            for (Booking booking : page.getBookings()) {
+                assertTrue(booking.getId() < previousId, "Pages must run newest first");
+                previousId = booking.getId();
+                assertTrue(seen.add(booking.getId()));
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(95, seen.size());
+        assertEquals(5, pages);
+    }
+
+    @Test
+    void testFilters() {
+        insertBookings(200);
+        BookingFilter filter = new BookingFilter(" alice ", "Dublin", "", today.plusDays(3), today.plusDays(10),
+                Booking.STATUS_CONFIRMED);
+
+        List<Booking> matched = new ArrayList<>();
+        Long cursor = null;
+        do {
+            BookingPage page = bookingService.getBookingPage(filter, cursor, 7);
+            matched.addAll(page.getBookings());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        long expected = bookingRepository.findAll().stream()
+                .filter(b -> b.getUsername().equals("alice") && b.getSource().equals("Dublin")
+                        && !b.getTravelDate().isBefore(today.plusDays(3)) && !b.getTravelDate().isAfter(today.plusDays(10))
+                        && b.getStatus().equals(Booking.STATUS_CONFIRMED))
+                .count();
+        assertTrue(expected > 0);
+        assertEquals(expected, matched.size());
+    }
+
+    @Test
+    void benchmarkPageLatencyAsTableGrows() {
+        int[] sizes = {2_000, 20_000};
+        long[] firstPage = new long[sizes.length];
+        long[] deepPage = new long[sizes.length];
+        int inserted = 0;
+        for (int s = 0; s < sizes.length; s++) {
+            insertBookings(sizes[s] - inserted);
+            inserted = sizes[s];
+
+            // A cursor half way down the table, as reached by paging
+            Long middle = bookingRepository.findAll().stream().mapToLong(Booking::getId).sorted()
+                    .skip(inserted / 2).findFirst().orElseThrow();
+            firstPage[s] = medianNanos(null);
+            deepPage[s] = medianNanos(middle);
+        }
+
+        for (int s = 0; s < sizes.length; s++) {
+            System.out.println("📊 " + sizes[s] + " bookings: first page " + firstPage[s] / 1_000
+                    + " µs, mid-table page " + deepPage[s] / 1_000 + " µs (median of 50)");
+        }
+        assertEquals(25, bookingService.getBookingPage(BookingFilter.none(), null, 25).getBookings().size());
+    }
+
+    private long medianNanos(Long cursor) {
+        long[] nanos = new long[50];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            bookingService.getBookingPage(BookingFilter.none(), cursor, 25);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2];
+    }
+
+    private void insertBookings(int count) {
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Booking booking = new Booking(USERS[i % USERS.length], "Bus " + (i % 7),
+                    CITIES[i % CITIES.length], CITIES[(i + 1) % CITIES.length],
+                    today.plusDays(i % 30), 1 + i % 3, 25.0);
+            booking.setStatus(i % 5 == 0 ? Booking.STATUS_CANCELLED : Booking.STATUS_CONFIRMED);
+            bookings.add(booking);
+        }
+        bookingRepository.saveAll(bookings);
+    }
+}
@@ -0,0 +1,188 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.model.Cart;
+import com.busbooking.system.repository.BookingRepository;
+import com.busbooking.system.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Integration test for the group-commit booking pipeline using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "booking.pipeline.enabled=true"})
+public class BookingPipelineTest {
+
+    private static final int THREADS = 32;
+    private static final int CHECKOUTS_PER_THREAD = 40;
+
+    @Autowired
+    private BookingPipeline bookingPipeline;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        cartRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentCheckoutsAreCommitted() throws Exception {
+        run((username, bookings) -> bookingPipeline.submit(username, bookings).join());
+
+        assertEquals(THREADS * CHECKOUTS_PER_THREAD * 2L, bookingRepository.count());
+        assertEquals(0, cartRepository.count());
+        assertTrue(bookingRepository.findAll().stream().allMatch(booking -> booking.getVersion() == 0L));
+    }
+
+    @Test
+    void testFailedCheckoutDoesNotFailItsBatch() {
+        List<CompletableFuture<List<Booking>>> good = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            good.add(bookingPipeline.submit("user" + i, fillCart("user" + i)));
+        }
+        List<Booking> bad = fillCart("broken");
+        bad.get(0).setAdminNotes("x".repeat(2_000));
+        CompletableFuture<List<Booking>> failed = bookingPipeline.submit("broken", bad);
+        for (int i = 10; i < 20; i++) {
+            good.add(bookingPipeline.submit("user" + i, fillCart("user" + i)));
+        }
+
+        assertThrows(CompletionException.class, failed::join);
+        good.forEach(CompletableFuture::join);
+        assertEquals(40, bookingRepository.count());
+        assertEquals(2, cartService.getCartByUser("broken").size());
+    }
+
+    @Test
+    void testStalledWriterTimesOutAndWithdrawsQueuedCheckouts() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            stalled.await();
+            return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+        });
+        BookingRepository repository = mock(BookingRepository.class);
+        BookingPipeline stalling = new BookingPipeline(repository, mock(CartService.class),
+                mock(BookingStatsService.class), transactionTemplate, true, 1, 0, 10, 500);
+        List<Booking> first = List.of(new Booking());
+        List<Booking> second = List.of(new Booking());
+        stalling.start();
+        try {
+            // The writer took the first checkout and hangs in its transaction
+            assertThrows(BookingPipeline.CommitInProgressException.class, () -> stalling.confirm("first", first));
+            // The second never left the queue, so it is withdrawn and its seats can go back
+            RuntimeException withdrawn = assertThrows(RuntimeException.class, () -> stalling.confirm("second", second));
+            assertFalse(withdrawn instanceof BookingPipeline.CommitInProgressException);
+        } finally {
+            stalled.countDown();
+            stalling.stop();
+        }
+
+        verify(repository).saveAll(first);
+        verify(repository, never()).saveAll(second);
+    }
+
+    @Test
+    void benchmarkSynchronousVersusPipeline() throws Exception {
+        long[] sync = run(bookingService::confirmBookings);
+        long[] pipelined = run((username, bookings) -> bookingPipeline.submit(username, bookings).join());
+
+        report("synchronous", sync);
+        report("pipeline", pipelined);
+        assertEquals(2L * THREADS * CHECKOUTS_PER_THREAD * 2, bookingRepository.count());
+    }
+
+    /**
+     * Runs THREADS concurrent users through CHECKOUTS_PER_THREAD two-item checkouts each
+     * @return Per-checkout latencies in nanoseconds, sorted, followed by the wall time
+     */
+    private long[] run(BiConsumer<String, List<Booking>> checkout) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String username = "user" + t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                long[] latencies = new long[CHECKOUTS_PER_THREAD];
+                for (int i = 0; i < CHECKOUTS_PER_THREAD; i++) {
+                    List<Booking> bookings = fillCart(username);
+                    long begin = System.nanoTime();
+                    checkout.accept(username, bookings);
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[THREADS * CHECKOUTS_PER_THREAD + 1];
+        int n = 0;
+        for (Future<long[]> future : futures) {
+            for (long latency : future.get(60, TimeUnit.SECONDS)) {
+                all[n++] = latency;
+            }
+        }
+        all[n] = System.nanoTime() - begin;
+        pool.shutdown();
+        Arrays.sort(all, 0, n);
+        return all;
+    }
+
+    private void report(String mode, long[] result) {
+        int n = result.length - 1;
+        double seconds = result[n] / 1e9;
+        System.out.printf("📊 %s: %.0f checkouts/s, p50 %d µs, p99 %d µs (%d threads)%n",
+                mode, n / seconds, result[n / 2] / 1_000, result[n * 99 / 100] / 1_000, THREADS);
+    }
+
+    private List<Booking> fillCart(String username) {
+        LocalDate travelDate = LocalDate.now().plusDays(1);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            cartService.addToCart(new Cart(username, (long) i, "Bus " + i, "Dublin", "Galway",
+                    travelDate.toString(), 1, 25.0));
+            Booking booking = new Booking(username, "Bus " + i, "Dublin", "Galway", travelDate, 1, 25.0);
+            booking.setBusId((long) i);
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+}
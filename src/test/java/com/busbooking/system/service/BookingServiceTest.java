@@ -1,5 +1,7 @@
 package com.busbooking.system.service;
 
+import com.busbooking.system.dto.BookingFilter;
+import com.busbooking.system.dto.BookingPage;
 import com.busbooking.system.model.Booking;
 import com.busbooking.system.repository.BookingRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +10,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -28,6 +32,12 @@ class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private CartService cartService;
+
+    @Mock
+    private BookingStatsService bookingStatsService;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -76,6 +86,88 @@ class BookingServiceTest {
         verify(bookingRepository, times(1)).save(testBooking1);
     }
 
+    @Test
+    void testConfirmBookings() {
+        // Arrange
+        List<Booking> bookings = Arrays.asList(testBooking1, testBooking2);
+        when(bookingRepository.saveAll(bookings)).thenReturn(bookings);
+
+        // Act
+        List<Booking> saved = bookingService.confirmBookings("user1", bookings);
+
+        // Assert
+        assertEquals(2, saved.size());
+        verify(bookingRepository, times(1)).saveAll(bookings);
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(cartService, times(1)).clearCart("user1");
+    }
+
+    @Test
+    void testConfirmBookingsFailureKeepsCart() {
+        // Arrange
+        List<Booking> bookings = Arrays.asList(testBooking1);
+        when(bookingRepository.saveAll(bookings)).thenThrow(new IllegalStateException("DB down"));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> bookingService.confirmBookings("user1", bookings));
+        verify(cartService, never()).clearCart(any());
+    }
+
+    @Test
+    void testGetBookingPage() {
+        // Arrange: the repository returns one row more than the page size
+        when(bookingRepository.findBy(any(Specification.class), any())).thenReturn(Arrays.asList(testBooking2, testBooking1));
+
+        // Act
+        BookingPage page = bookingService.getBookingPage(BookingFilter.none(), null, 1);
+
+        // Assert
+        assertEquals(1, page.getBookings().size());
+        assertEquals(2L, page.getBookings().get(0).getId());
+        assertTrue(page.isHasNext());
+        assertEquals(2L, page.getNextCursor());
+    }
+
+    @Test
+    void testConfirmBookingsCountsThemInStats() {
+        // Arrange
+        List<Booking> bookings = List.of(testBooking1, testBooking2);
+        when(bookingRepository.saveAll(bookings)).thenReturn(bookings);
+
+        // Act
+        bookingService.confirmBookings("user1", bookings);
+
+        // Assert
+        verify(bookingStatsService, times(1)).recordBookings(bookings);
+        verify(cartService, times(1)).clearCart("user1");
+    }
+
+    @Test
+    void testUpdateBookingMovesStatsFromStoredState() {
+        // Arrange
+        BookingStatsService.Contribution before = BookingStatsService.Contribution.of(testBooking2);
+        testBooking1.setVersion(2L);
+        when(bookingStatsService.storedContribution(1L)).thenReturn(before);
+        when(bookingRepository.save(testBooking1)).thenReturn(testBooking1);
+
+        // Act
+        bookingService.updateBooking(testBooking1, 2L);
+
+        // Assert
+        verify(bookingStatsService, times(1))
+                .recordChange(before, BookingStatsService.Contribution.of(testBooking1));
+    }
+
+    @Test
+    void testUpdateBookingRejectsStaleVersion() {
+        // Arrange
+        testBooking1.setVersion(3L);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> bookingService.updateBooking(testBooking1, 2L));
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
     @Test
     void testGetBookingsByUser() {
         // Arrange
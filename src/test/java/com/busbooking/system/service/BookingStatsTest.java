@@ -0,0 +1,217 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.DailyStats;
+import com.busbooking.system.dto.RouteStats;
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.repository.BookingRepository;
+import com.busbooking.system.repository.CartRepository;
+import com.busbooking.system.repository.RouteDayStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the route/day revenue and ridership counters using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "stats.rebuild-threads=4", "stats.rebuild-slice-days=7"})
+public class BookingStatsTest {
+
+    private static final LocalDate TRAVEL_DATE = LocalDate.now().plusDays(3);
+
+    @Autowired
+    private BookingStatsService bookingStatsService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RouteDayStatsRepository statsRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        cartRepository.deleteAll();
+        statsRepository.deleteAll();
+    }
+
+    @Test
+    void testCheckoutAddsToRouteAndDay() {
+        bookingService.confirmBookings("alice", List.of(
+                booking("alice", "Dublin", "Galway", TRAVEL_DATE, 2, 50.0),
+                booking("alice", "Dublin", "Galway", TRAVEL_DATE, 1, 25.0),
+                booking("alice", "Cork", "Limerick", TRAVEL_DATE, 1, 15.0)));
+
+        RouteStats dublinGalway = route("Dublin", "Galway");
+        assertEquals(2, dublinGalway.getBookings());
+        assertEquals(3, dublinGalway.getPassengers());
+        assertEquals(75.0, dublinGalway.getRevenue(), 0.001);
+        DailyStats day = bookingStatsService.getDailyTotals(TRAVEL_DATE, TRAVEL_DATE).get(0);
+        assertEquals(3, day.getBookings());
+        assertEquals(90.0, day.getRevenue(), 0.001);
+        // Highest revenue first
+        assertEquals("Dublin", bookingStatsService.getTopRoutes(null, null, 5).get(0).getSource());
+    }
+
+    @Test
+    void testEditMovesCountsAndCancelOrDeleteRemovesThem() {
+        Booking saved = bookingService.confirmBookings("bob", List.of(
+                booking("bob", "Dublin", "Galway", TRAVEL_DATE, 2, 50.0))).get(0);
+
+        // Moved to another day with one more passenger
+        Booking edit = bookingService.getBookingById(saved.getId());
+        edit.setTravelDate(TRAVEL_DATE.plusDays(1));
+        edit.setPassengers(3);
+        edit.setTotalPrice(75.0);
+        edit = bookingService.updateBooking(edit, edit.getVersion());
+
+        List<DailyStats> days = bookingStatsService.getDailyTotals(TRAVEL_DATE, TRAVEL_DATE.plusDays(1));
+        assertEquals(1, days.size());
+        assertEquals(TRAVEL_DATE.plusDays(1), days.get(0).getTravelDate());
+        assertEquals(3, days.get(0).getPassengers());
+
+        edit.setStatus(Booking.STATUS_CANCELLED);
+        bookingService.updateBooking(edit, edit.getVersion());
+        assertTrue(bookingStatsService.getTopRoutes(null, null, 5).isEmpty());
+
+        Booking other = bookingService.saveBooking(booking("bob", "Cork", "Limerick", TRAVEL_DATE, 1, 15.0));
+        assertEquals(1, route("Cork", "Limerick").getBookings());
+        bookingService.deleteBooking(other.getId());
+        assertTrue(bookingStatsService.getTopRoutes(null, null, 5).isEmpty());
+        System.out.println("✅ Edits, cancellations and deletes kept the counters in step");
+    }
+
+    @Test
+    void testRebuildCorrectsDriftedCounters() {
+        for (int i = 0; i < 30; i++) {
+            bookingService.saveBooking(booking("carol", "Dublin", "Sligo", TRAVEL_DATE.plusDays(i), 1, 20.0));
+        }
+        assertEquals(0, bookingStatsService.rebuild());
+
+        // Rows written behind the service's back, a lost counter and a stale one
+        bookingRepository.save(booking("carol", "Dublin", "Sligo", TRAVEL_DATE, 4, 80.0));
+        transactionTemplate.executeWithoutResult(status -> {
+            statsRepository.increment("Dublin", "Sligo", TRAVEL_DATE.plusDays(5), 7, 7, 140.0);
+            statsRepository.increment("Dublin", "Sligo", TRAVEL_DATE.plusDays(9), -1, -1, -20.0);
+        });
+        bookingStatsService.recordChange(null, new BookingStatsService.Contribution(
+                "Nowhere", "Else", TRAVEL_DATE, 1, 1.0));
+
+        assertEquals(4, bookingStatsService.rebuild());
+
+        RouteStats dublinSligo = route("Dublin", "Sligo");
+        assertEquals(31, dublinSligo.getBookings());
+        assertEquals(34, dublinSligo.getPassengers());
+        assertEquals(680.0, dublinSligo.getRevenue(), 0.001);
+        assertEquals(1, bookingStatsService.getTopRoutes(null, null, 5).size());
+        assertEquals(0, bookingStatsService.rebuild());
+    }
+
+    @Test
+    void testConcurrentCheckoutsKeepExactTotals() throws Exception {
+        int threads = 8;
+        int checkouts = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String username = "user" + t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < checkouts; i++) {
+                    bookingService.confirmBookings(username, List.of(
+                            booking(username, "Dublin", "Galway", TRAVEL_DATE, 1, 25.0),
+                            booking(username, "Dublin", "Galway", TRAVEL_DATE.plusDays(1), 2, 50.0)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        RouteStats totals = route("Dublin", "Galway");
+        assertEquals(threads * checkouts * 2L, totals.getBookings());
+        assertEquals(threads * checkouts * 3L, totals.getPassengers());
+        assertEquals(threads * checkouts * 75.0, totals.getRevenue(), 0.001);
+        assertEquals(0, bookingStatsService.rebuild());
+    }
+
+    @Test
+    void benchmarkDashboardReadVersusTableScan() {
+        int bookings = 100_000;
+        String[] towns = {"Dublin", "Cork", "Galway", "Limerick", "Sligo", "Athlone", "Derry", "Waterford"};
+        List<Booking> batch = new ArrayList<>(1_000);
+        for (int i = 0; i < bookings; i++) {
+            batch.add(booking("user" + i % 50, towns[i % towns.length], towns[(i / 8 + 1 + i) % towns.length],
+                    TRAVEL_DATE.plusDays(i % 365), 1 + i % 3, 10.0 + i % 40));
+            if (batch.size() == 1_000) {
+                bookingRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+
+        long start = System.nanoTime();
+        int corrected = bookingStatsService.rebuild();
+        long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Warm the query plans before timing
+        bookingStatsService.getTopRoutes(null, null, 5);
+        bookingStatsService.getDailyTotals(TRAVEL_DATE, TRAVEL_DATE.plusDays(6));
+        start = System.nanoTime();
+        List<RouteStats> fromCounters = bookingStatsService.getTopRoutes(null, null, 5);
+        bookingStatsService.getDailyTotals(TRAVEL_DATE, TRAVEL_DATE.plusDays(6));
+        long countersMicros = (System.nanoTime() - start) / 1_000;
+
+        start = System.nanoTime();
+        double scanned = bookingRepository.findAll().stream()
+                .filter(b -> b.getSource().equals(fromCounters.get(0).getSource())
+                        && b.getDestination().equals(fromCounters.get(0).getDestination()))
+                .mapToDouble(Booking::getTotalPrice).sum();
+        long scanMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("📊 Stats over " + bookings + " bookings: rebuild " + rebuildMillis + " ms ("
+                + corrected + " counters), dashboard read " + countersMicros + " µs, table scan "
+                + scanMillis + " ms");
+        assertEquals(scanned, fromCounters.get(0).getRevenue(), 0.01);
+    }
+
+    private RouteStats route(String source, String destination) {
+        return bookingStatsService.getTopRoutes(null, null, 100).stream()
+                .filter(r -> r.getSource().equals(source) && r.getDestination().equals(destination))
+                .findFirst().orElseThrow();
+    }
+
+    private static Booking booking(String username, String source, String destination, LocalDate travelDate,
+                                   int passengers, double totalPrice) {
+        Booking booking = new Booking(username, "Bus 1", source, destination, travelDate, passengers, totalPrice);
+        booking.setBusId(1L);
+        return booking;
+    }
+}
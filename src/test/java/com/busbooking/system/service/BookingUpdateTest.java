@@ -0,0 +1,192 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.controller.BookingManagementController;
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.repository.BookingRepository;
+import com.busbooking.system.repository.BusRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for admin booking edits using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "spring.jpa.properties.hibernate.generate_statistics=true"})
+public class BookingUpdateTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BusService busService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BusRepository busRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private BookingManagementController bookingManagementController;
+
+    @Autowired
+    private TripMaterializer tripMaterializer;
+
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        booking = bookingRepository.save(new Booking("user1", "CityLink Express", "Dublin", "Galway",
+                LocalDate.now().plusDays(1), 2, 51.0));
+    }
+
+    @Test
+    void testNewBookingStartsAtVersionZero() {
+        assertEquals(0L, bookingService.getBookingById(booking.getId()).getVersion());
+    }
+
+    @Test
+    void testConcurrentEditIsRejected() {
+        // Two admins open the edit form on the same booking
+        Booking first = bookingService.getBookingById(booking.getId());
+        Booking second = bookingService.getBookingById(booking.getId());
+
+        first.setPassengers(3);
+        bookingService.updateBooking(first, 0L);
+
+        second.setPassengers(4);
+        assertThrows(OptimisticLockingFailureException.class, () -> bookingService.updateBooking(second, 0L));
+
+        Booking stored = bookingService.getBookingById(booking.getId());
+        assertEquals(3, stored.getPassengers());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    @Test
+    void testStaleFormIsRejected() {
+        Booking edited = bookingService.getBookingById(booking.getId());
+        edited.setStatus(Booking.STATUS_CANCELLED);
+        bookingService.updateBooking(edited, 0L);
+
+        // A form still carrying version 0 must not overwrite the cancellation
+        Booking reloaded = bookingService.getBookingById(booking.getId());
+        reloaded.setPassengers(5);
+        assertThrows(OptimisticLockingFailureException.class, () -> bookingService.updateBooking(reloaded, 0L));
+        assertEquals(Booking.STATUS_CANCELLED, bookingService.getBookingById(booking.getId()).getStatus());
+    }
+
+    @Test
+    void testEditFormQueriesDoNotGrowWithTables() throws Exception {
+        // Trip materialization runs in the background; its SQL must not land in the counts below
+        tripMaterializer.awaitIdle();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long small = editFormStatements(statistics);
+
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            bookings.add(new Booking("user" + i, "Bus", "Dublin", "Cork", LocalDate.now(), 1, 10.0));
+        }
+        bookingRepository.saveAll(bookings);
+        for (int i = 0; i < 20; i++) {
+            busService.saveBus(new Bus("Bus " + i, "Dublin", "Cork",
+                    LocalTime.of(9, 0), LocalTime.of(12, 0), 40, 20.0, "STANDARD"));
+        }
+        tripMaterializer.awaitIdle();
+        long large = editFormStatements(statistics);
+
+        System.out.println("📊 Edit form statements: " + small + " before growth, " + large + " after");
+        assertEquals(small, large);
+        assertEquals(1, large);
+    }
+
+    @Test
+    void testMoveToAFullDepartureKeepsTheOldSeats() {
+        Long from = busService.saveBus(smallBus("Bus A")).getId();
+        Long to = busService.saveBus(smallBus("Bus B")).getId();
+        LocalDate date = LocalDate.now().plusDays(2);
+        Booking booked = bookedOn(from, date, 2);
+        assertTrue(seatInventoryService.reserveSeats(to, date, 3));
+
+        String view = editSeats(booked, to, date, 2);
+
+        assertTrue(view.contains("Not enough seats"), view);
+        assertEquals(2, seatInventoryService.getAvailableSeats(from, date));
+        assertEquals(1, seatInventoryService.getAvailableSeats(to, date));
+        assertEquals(from, bookingService.getBookingById(booked.getId()).getBusId());
+
+        // Once there is room, the seats move and the old departure gets its seats back
+        seatInventoryService.releaseSeats(to, date, 3);
+        assertTrue(editSeats(booked, to, date, 2).contains("success"));
+        assertEquals(4, seatInventoryService.getAvailableSeats(from, date));
+        assertEquals(2, seatInventoryService.getAvailableSeats(to, date));
+    }
+
+    @Test
+    void testEditOnAFullDepartureOnlyMovesTheDifference() {
+        Long busId = busService.saveBus(smallBus("Bus C")).getId();
+        LocalDate date = LocalDate.now().plusDays(2);
+        Booking booked = bookedOn(busId, date, 2);
+        assertTrue(seatInventoryService.reserveSeats(busId, date, 2));
+
+        // Full, yet the booking can keep or drop seats it already holds
+        assertTrue(editSeats(booked, busId, date, 2).contains("success"));
+        assertEquals(0, seatInventoryService.getAvailableSeats(busId, date));
+        assertTrue(editSeats(bookingService.getBookingById(booked.getId()), busId, date, 1).contains("success"));
+        assertEquals(1, seatInventoryService.getAvailableSeats(busId, date));
+        assertTrue(editSeats(bookingService.getBookingById(booked.getId()), busId, date, 3)
+                .contains("Not enough seats"));
+        assertEquals(1, seatInventoryService.getAvailableSeats(busId, date));
+    }
+
+    private Booking bookedOn(Long busId, LocalDate date, int passengers) {
+        Booking booked = new Booking("user1", "Bus", "Dublin", "Cork", date, passengers, 20.0 * passengers);
+        booked.setBusId(busId);
+        assertTrue(seatInventoryService.reserveSeats(busId, date, passengers));
+        return bookingRepository.save(booked);
+    }
+
+    private String editSeats(Booking booked, Long busId, LocalDate date, int passengers) {
+        return bookingManagementController.updateBooking(booked.getId(), booked.getVersion(), busId,
+                date.toString(), passengers, booked.getStatus(), new ExtendedModelMap());
+    }
+
+    private static Bus smallBus(String name) {
+        return new Bus(name, "Dublin", "Cork", LocalTime.of(9, 0), LocalTime.of(12, 0), 4, 20.0, "STANDARD");
+    }
+
+    /**
+     * Statements run by what the edit form loads, once the bus summaries are cached
+     */
+    private long editFormStatements(Statistics statistics) {
+        busService.getBusSummaries();
+        statistics.clear();
+        assertNotNull(bookingService.getBookingById(booking.getId()));
+        assertEquals(busRepository.count(), busService.getBusSummaries().size());
+        // Minus the count above
+        return statistics.getPrepareStatementCount() - 1;
+    }
+}
@@ -0,0 +1,161 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the precompiled bus calendar and date-aware route index
+ */
+class BusCalendarTest {
+
+    private static final String[] DAY_PATTERNS = {
+        "MON,TUE,WED,THU,FRI,SAT,SUN", "MON,TUE,WED,THU,FRI", "SAT,SUN", "MON,WED,FRI", "TUE,THU"
+    };
+
+    private final LocalDate monday = LocalDate.now().plusWeeks(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+    @Test
+    void testParseDays() {
+        assertEquals(BusCalendar.ALL_DAYS, BusCalendar.parseDays(null));
+        assertEquals(BusCalendar.ALL_DAYS, BusCalendar.parseDays(""));
+        assertEquals(BusCalendar.ALL_DAYS, BusCalendar.parseDays("MON,TUE,WED,THU,FRI,SAT,SUN"));
+        assertEquals(0b1100000, BusCalendar.parseDays("sat, sun"));
+        assertEquals(0b0000101, BusCalendar.parseDays("Monday,Wednesday"));
+    }
+
+    @Test
+    void testRunsOnHonoursDaysAndRange() {
+        Bus bus = bus(1L, "MON,WED", monday, monday.plusDays(7));
+        BusCalendar calendar = BusCalendar.of(bus);
+
+        assertTrue(calendar.runsOn(monday));
+        assertFalse(calendar.runsOn(monday.plusDays(1)));
+        assertTrue(calendar.runsOn(monday.plusDays(2)));
+        assertTrue(calendar.runsOn(monday.plusDays(7)));
+        assertFalse(calendar.runsOn(monday.plusDays(9)));
+        assertFalse(calendar.runsOn(monday.minusDays(7)));
+    }
+
+    @Test
+    void testRunsOnWithoutDates() {
+        Bus bus = bus(1L, null, null, null);
+        assertTrue(BusCalendar.of(bus).runsOn(LocalDate.of(1999, 12, 31)));
+    }
+
+    @Test
+    void testRouteIndexFiltersByDate() {
+        BusRouteIndex index = new BusRouteIndex();
+        index.rebuild(List.of(
+            bus(1L, "MON,TUE,WED,THU,FRI", monday, monday.plusMonths(1)),
+            bus(2L, "SAT,SUN", monday, monday.plusMonths(1))));
+
+        assertEquals(Set.of(1L), index.lookup("Dublin", "Galway", monday));
+        assertEquals(Set.of(2L), index.lookup("Dublin", "Galway", monday.plusDays(5)));
+        assertEquals(Set.of(1L, 2L), index.lookup("Dublin", "Galway", null));
+        assertTrue(index.lookup("Dublin", "Galway", monday.plusMonths(2)).isEmpty());
+    }
+
+    @Test
+    void testEditedBusNeverDropsOutOfSearches() throws Exception {
+        BusRouteIndex index = new BusRouteIndex();
+        index.rebuild(List.of(bus(1L, null, null, null), bus(2L, null, null, null)));
+        AtomicBoolean editing = new AtomicBoolean(true);
+
+        Thread editor = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                index.put(bus(1L, null, null, null));
+            }
+            editing.set(false);
+        });
+        editor.start();
+        int searches = 0;
+        while (editing.get()) {
+            assertEquals(Set.of(1L, 2L), index.lookup("Dublin", "Galway", monday));
+            searches++;
+        }
+        editor.join();
+        assertTrue(searches > 0);
+
+        // A bus moved to another route is found there, and only there
+        Bus moved = bus(1L, null, null, null);
+        moved.setDestination("Cork");
+        index.put(moved);
+        assertEquals(Set.of(2L), index.lookup("Dublin", "Galway", null));
+        assertEquals(Set.of(1L), index.lookup("dublin", "CORK", monday));
+        index.remove(2L);
+        assertTrue(index.lookup("Dublin", "Galway", null).isEmpty());
+        assertEquals(Set.of(1L), index.runningOn(monday));
+    }
+
+    @Test
+    void benchmarkFleetDateCheck() {
+        List<Bus> fleet = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            LocalDate start = monday.minusDays(id % 30);
+            fleet.add(bus(id, DAY_PATTERNS[(int) (id % DAY_PATTERNS.length)], start, start.plusDays(20 + id % 60)));
+        }
+        BusRouteIndex index = new BusRouteIndex();
+        index.rebuild(fleet);
+        LocalDate date = monday.plusDays(3);
+
+        Set<Long> expected = streamPath(fleet, date);
+        assertEquals(expected, index.runningOn(date));
+
+        int rounds = 200;
+        for (int i = 0; i < rounds; i++) {
+            streamPath(fleet, date);
+            index.runningOn(date);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            streamPath(fleet, date);
+        }
+        long streamNanos = (System.nanoTime() - start) / rounds;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            index.runningOn(date);
+        }
+        long calendarNanos = (System.nanoTime() - start) / rounds;
+
+        System.out.println("📊 Fleet of " + fleet.size() + " buses, date check per query: stream path "
+            + streamNanos / 1_000 + " µs, precompiled calendar " + calendarNanos / 1_000 + " µs");
+    }
+
+    /**
+     * The per-request string parsing the calendar replaces
+     */
+    private Set<Long> streamPath(List<Bus> fleet, LocalDate date) {
+        String day = date.getDayOfWeek().name().substring(0, 3);
+        return fleet.stream()
+            .filter(Bus::isActive)
+            .filter(b -> b.getStartDate() == null || !date.isBefore(b.getStartDate()))
+            .filter(b -> b.getEndDate() == null || !date.isAfter(b.getEndDate()))
+            .filter(b -> b.getOperatingDays() == null || List.of(b.getOperatingDays().split(",")).contains(day))
+            .map(Bus::getId)
+            .collect(Collectors.toSet());
+    }
+
+    private Bus bus(Long id, String days, LocalDate start, LocalDate end) {
+        Bus bus = new Bus("Bus " + id, "Dublin", "Galway",
+            LocalTime.of(9, 0), LocalTime.of(12, 0), 50, 20.0, "STANDARD");
+        bus.setId(id);
+        bus.setOperatingDays(days);
+        bus.setStartDate(start);
+        bus.setEndDate(end);
+        return bus;
+    }
+}
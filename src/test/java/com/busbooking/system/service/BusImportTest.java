@@ -0,0 +1,209 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.BusImportReport;
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.repository.BusRepository;
+import com.busbooking.system.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for bulk CSV and GTFS bus imports using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "trips.horizon-days=7"})
+public class BusImportTest {
+
+    private static final String HEADER = "busName,source,destination,departureTime,arrivalTime,seats,price,"
+            + "busType,startDate,endDate,operatingDays,active\n";
+
+    @Autowired
+    private BusImportService busImportService;
+
+    @Autowired
+    private BusService busService;
+
+    @Autowired
+    private JourneyPlannerService journeyPlannerService;
+
+    @Autowired
+    private BusRepository busRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripMaterializer tripMaterializer;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tripMaterializer.awaitIdle();
+        tripRepository.deleteAll();
+        busRepository.deleteAll();
+    }
+
+    @Test
+    void testCsvInsertsThenUpdatesByNaturalKey() throws IOException {
+        BusImportReport first = importCsv(HEADER
+                + "CityLink,Dublin,Galway,09:00,12:30,45,25.50,EXPRESS,2025-01-01,2030-12-31,\"MON,TUE,WED\",true\n"
+                + "CityLink,Cork,Limerick,10:00,11:30,50,15,,,,,\n");
+
+        assertEquals(2, first.getInserted());
+        assertEquals(0, first.getFailed());
+        Bus imported = busRepository.findAll().stream()
+                .filter(bus -> bus.getSource().equals("Dublin")).findFirst().orElseThrow();
+        assertEquals("MON,TUE,WED", imported.getOperatingDays());
+        assertEquals(LocalTime.of(12, 30), imported.getArrivalTime());
+
+        // Same name, route and departure (keys are case-insensitive): updated in place
+        BusImportReport second = importCsv(HEADER
+                + "citylink,DUBLIN,galway,9:00,13:00,60,30,PREMIUM,,,Saturday Sunday,yes\n");
+
+        assertEquals(0, second.getInserted());
+        assertEquals(1, second.getUpdated());
+        assertEquals(2, busRepository.count());
+        Bus updated = busRepository.findById(imported.getId()).orElseThrow();
+        assertEquals(60, updated.getSeats());
+        assertEquals("PREMIUM", updated.getBusType());
+        assertEquals("SAT,SUN", updated.getOperatingDays());
+        System.out.println("✅ Import updated bus " + updated.getId() + " in place");
+    }
+
+    @Test
+    void testBadRowsAreReportedWithoutAbortingTheRun() throws IOException {
+        BusImportReport report = importCsv(HEADER
+                + "Good One,Dublin,Galway,09:00,12:30,45,25,,,,,\n"
+                + ",Dublin,Galway,09:00,12:30,45,25,,,,,\n"
+                + "Loop,Cork,cork,09:00,12:30,45,25,,,,,\n"
+                + "Bad Time,Dublin,Cork,25:00,12:30,45,25,,,,,\n"
+                + "Bad Seats,Dublin,Cork,09:00,12:30,0,25,,,,,\n"
+                + "Bad Type,Dublin,Cork,09:00,12:30,45,25,LUXURY,,,,\n"
+                + "Bad Dates,Dublin,Cork,09:00,12:30,45,25,,2025-06-01,2025-01-01,,\n"
+                + "Bad Days,Dublin,Cork,09:00,12:30,45,25,,,,\"MON,FUNDAY\",\n"
+                + "\"Quoted, Name\",Dublin,Sligo,07:15,10:00,40,19.99,,,,,\n");
+
+        assertEquals(9, report.getRowsRead());
+        assertEquals(2, report.getInserted());
+        assertEquals(7, report.getFailed());
+        assertEquals(List.of(3, 4, 5, 6, 7, 8, 9),
+                report.getErrors().stream().map(BusImportReport.RowError::getLine).toList());
+        assertTrue(report.getErrors().get(0).getMessage().contains("busname"));
+        assertTrue(busRepository.findAll().stream().anyMatch(bus -> bus.getBusName().equals("Quoted, Name")));
+    }
+
+    @Test
+    void testMissingRequiredColumnRejectsFile() {
+        IOException e = assertThrows(IOException.class,
+                () -> importCsv("busName,source,destination\nX,Dublin,Cork\n"));
+        assertTrue(e.getMessage().contains("departuretime"));
+        assertEquals(0, busRepository.count());
+    }
+
+    @Test
+    void testImportRefreshesSearchPlannerAndTrips() throws Exception {
+        LocalDate today = LocalDate.now();
+        importCsv(HEADER + "Westlink,Galway,Sligo,08:00,10:30,45,20,,,,,\n"
+                + "Westlink,Sligo,Letterkenny,11:00,13:00,45,18,,,,,\n");
+
+        assertEquals(1, busService.searchBuses("Galway", "Sligo", today.toString()).size());
+        assertTrue(busService.getAllSources().contains("Galway"));
+        assertNotNull(journeyPlannerService.findEarliestArrival("Galway", "Letterkenny", today, LocalTime.of(7, 0)));
+        Bus bus = busService.searchBuses("Galway", "Sligo", today.toString()).get(0);
+        tripMaterializer.awaitIdle();
+        assertEquals(7, tripRepository.findByBusIdAndTravelDateBetween(bus.getId(), today, today.plusDays(6)).size());
+    }
+
+    @Test
+    void testGtfsFeedImportsOneBusPerTrip() throws IOException {
+        Path zip = tempDir.resolve("feed.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            entry(out, "stops.txt", "stop_id,stop_name\nD,Dublin\nA,Athlone\nG,Galway\n");
+            entry(out, "routes.txt", "route_id,route_short_name,route_long_name\nR1,GoBus 20,Dublin - Galway\n");
+            entry(out, "calendar.txt", "service_id,monday,tuesday,wednesday,thursday,friday,saturday,sunday,"
+                    + "start_date,end_date\nWK,1,1,1,1,1,0,0,20250101,20301231\n");
+            entry(out, "trips.txt", "route_id,service_id,trip_id,seats,price\n"
+                    + "R1,WK,T1,49,19.5\nR1,WK,T2,,\nR1,NOPE,T3,,\n");
+            entry(out, "stop_times.txt", "trip_id,arrival_time,departure_time,stop_id,stop_sequence\n"
+                    + "T1,07:00:00,07:00:00,D,1\nT1,08:10:00,08:15:00,A,2\nT1,09:45:00,09:45:00,G,3\n"
+                    + "T2,23:30:00,23:30:00,D,1\nT2,26:05:00,26:05:00,G,2\n"
+                    + "T3,10:00:00,10:00:00,D,1\nT3,12:00:00,12:00:00,G,2\n");
+        }
+
+        BusImportReport report = busImportService.importGtfs(zip);
+
+        assertEquals(3, report.getRowsRead());
+        assertEquals(2, report.getInserted());
+        assertEquals(1, report.getFailed());
+        assertEquals(4, report.getErrors().get(0).getLine());
+        List<Bus> buses = busRepository.findAll();
+        Bus morning = buses.stream().filter(bus -> bus.getSeats() == 49).findFirst().orElseThrow();
+        assertEquals("GoBus 20", morning.getBusName());
+        assertEquals("Dublin", morning.getSource());
+        assertEquals("Galway", morning.getDestination());
+        assertEquals(LocalTime.of(9, 45), morning.getArrivalTime());
+        assertEquals("MON,TUE,WED,THU,FRI", morning.getOperatingDays());
+        Bus night = buses.stream().filter(bus -> bus.getSeats() == GtfsTimetableReader.DEFAULT_SEATS)
+                .findFirst().orElseThrow();
+        assertEquals(LocalTime.of(2, 5), night.getArrivalTime());
+    }
+
+    @Test
+    void benchmarkLargeCsvImport() throws IOException {
+        int rows = 20_000;
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < rows; i++) {
+            // Every 100th row is invalid
+            String seats = i % 100 == 0 ? "none" : "50";
+            csv.append("Bus ").append(i).append(",Town ").append(i % 200).append(",City ").append(i % 150)
+                    .append(',').append(String.format("%02d:%02d", i % 24, i % 60)).append(",23:59,")
+                    .append(seats).append(",25.0,STANDARD,,,\"MON,WED,FRI\",true\n");
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        BusImportReport inserted = busImportService.importCsv(new ByteArrayInputStream(bytes));
+        BusImportReport updated = busImportService.importCsv(new ByteArrayInputStream(bytes));
+
+        System.out.println("📊 " + rows + "-row CSV import: " + inserted.getElapsedMillis() + " ms inserting ("
+                + inserted.getRowsPerSecond() + " rows/s), " + updated.getElapsedMillis() + " ms updating ("
+                + updated.getRowsPerSecond() + " rows/s)");
+        assertEquals(rows / 100, inserted.getFailed());
+        assertEquals(rows - rows / 100, inserted.getInserted());
+        assertEquals(rows - rows / 100, updated.getUpdated());
+        assertEquals(rows / 100, inserted.getErrors().size());
+        assertEquals(rows - rows / 100, busRepository.count());
+    }
+
+    private BusImportReport importCsv(String csv) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))) {
+            return busImportService.importCsv(in);
+        }
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
@@ -1,17 +1,22 @@
 package com.busbooking.system.service;
 
+import com.busbooking.system.dto.BusSummary;
 import com.busbooking.system.model.Bus;
 import com.busbooking.system.repository.BusRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.TestPropertySource;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 /**
  * Integration test for BusService using H2 database
@@ -133,4 +138,119 @@ public class BusServiceTest {
         assertEquals("Test Save Bus", savedBus.getBusName());
         System.out.println("✅ Bus saved successfully: " + savedBus.getBusName());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSearchBuses_RouteIndexIgnoresCase() {
+        System.out.println("🔍 Searching buses: dublin → GALWAY");
+        List<Bus> results = busService.searchBuses(" dublin ", "GALWAY", null);
+        assertEquals(1, results.size());
+        assertEquals("CityLink Express", results.get(0).getBusName());
+        System.out.println("✅ Search found " + results.size() + " buses");
+    }
+
+    @Test
+    void testSearchBuses_RouteIndexFollowsSaveAndDelete() {
+        Bus bus = busService.saveBus(new Bus("Index Bus", "Sligo", "Tralee",
+            LocalTime.of(7, 0), LocalTime.of(11, 0), 40, 30.0, "STANDARD"));
+        assertEquals(1, busService.searchBuses("Sligo", "Tralee", null).size());
+
+        // Moving the bus to another route removes it from the old one
+        bus.setDestination("Ennis");
+        busService.saveBus(bus);
+        assertTrue(busService.searchBuses("Sligo", "Tralee", null).isEmpty());
+        assertEquals(1, busService.searchBuses("Sligo", "Ennis", null).size());
+
+        // Deactivated buses are no longer searchable
+        bus.setActive(false);
+        busService.saveBus(bus);
+        assertTrue(busService.searchBuses("Sligo", "Ennis", null).isEmpty());
+
+        bus.setActive(true);
+        busService.saveBus(bus);
+        busService.deleteBus(bus.getId());
+        assertTrue(busService.searchBuses("Sligo", "Ennis", null).isEmpty());
+        System.out.println("✅ Route index kept in sync with saves and deletes");
+    }
+
+    @Test
+    void testSearchBuses_FiltersByTravelDate() {
+        String tomorrow = LocalDate.now().plusDays(1).toString();
+        String lastYear = LocalDate.now().minusYears(1).toString();
+
+        System.out.println("🔍 Searching buses: Dublin → Galway on " + tomorrow + " and " + lastYear);
+        assertEquals(1, busService.searchBuses("Dublin", "Galway", tomorrow).size());
+        assertTrue(busService.searchBuses("Dublin", "Galway", lastYear).isEmpty());
+        assertEquals(1, busService.searchBuses("Dublin", "Galway", "not-a-date").size());
+        System.out.println("✅ Buses outside their schedule are excluded");
+    }
+
+    @Test
+    void testRepositorySearchActive() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        System.out.println("🔍 Database search: Dublin → Galway on " + tomorrow);
+        assertEquals(1, busRepository.searchActive("dublin", "GALWAY", tomorrow).size());
+        assertEquals(1, busRepository.searchActive(" Dublin ", "galway", null).size());
+        assertEquals("dublin", busRepository.findById(testBus.getId()).orElseThrow().getSourceKey());
+        assertEquals(1, busRepository.searchActive("Dublin", null, null).size());
+        assertTrue(busRepository.searchActive(null, null, tomorrow.minusYears(1)).isEmpty());
+
+        testBus.setActive(false);
+        busService.saveBus(testBus);
+        assertTrue(busRepository.searchActive("Dublin", "Galway", null).isEmpty());
+        assertTrue(busRepository.findByActiveTrueOrderByIdAsc().isEmpty());
+        System.out.println("✅ Route, date range and active flag filtered in the database");
+    }
+
+    @Test
+    void testDistinctLocations() {
+        busService.saveBus(new Bus("Second Express", "Dublin", "Cork",
+            LocalTime.of(10, 0), LocalTime.of(13, 0), 45, 25.0, "EXPRESS"));
+
+        assertEquals(List.of("Dublin"), busService.getAllSources());
+        assertEquals(List.of("Cork", "Galway"), busService.getAllDestinations());
+        System.out.println("✅ Distinct locations served by projection queries");
+    }
+
+    @Test
+    void testLocationsCachedUntilBusesChange() {
+        BusRepository repository = mock(BusRepository.class);
+        when(repository.findDistinctSources()).thenReturn(List.of("Dublin"));
+        when(repository.findDistinctDestinations()).thenReturn(List.of("Galway"));
+        when(repository.save(any(Bus.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        BusServiceImpl service = new BusServiceImpl(repository, mock(ApplicationEventPublisher.class));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(List.of("Dublin"), service.getAllSources());
+            assertEquals(List.of("Galway"), service.getAllDestinations());
+        }
+        verify(repository, times(1)).findDistinctSources();
+        verify(repository, times(1)).findDistinctDestinations();
+
+        when(repository.findDistinctSources()).thenReturn(List.of("Cork", "Dublin"));
+        service.saveBus(testBus);
+        assertEquals(List.of("Cork", "Dublin"), service.getAllSources());
+        verify(repository, times(2)).findDistinctSources();
+
+        // Sources and destinations are reloaded together
+        service.deleteBus(testBus.getId());
+        service.getAllDestinations();
+        verify(repository, times(3)).findDistinctDestinations();
+        System.out.println("✅ Locations served from cache until a bus is saved or deleted");
+    }
+
+    @Test
+    void testBusSummaries() {
+        Bus second = busService.saveBus(new Bus("Second Express", "Dublin", "Cork",
+            LocalTime.of(10, 0), LocalTime.of(13, 0), 45, 25.0, "EXPRESS"));
+
+        List<BusSummary> summaries = busService.getBusSummaries();
+        assertEquals(2, summaries.size());
+        assertEquals(second.getId(), summaries.get(1).getId());
+        assertEquals("Cork", summaries.get(1).getDestination());
+
+        busService.deleteBus(second.getId());
+        assertEquals(1, busService.getBusSummaries().size());
+        System.out.println("✅ Bus summaries cached and refreshed after changes");
+    }
+}
@@ -1,5 +1,6 @@
 package com.busbooking.system.service;
 
+import com.busbooking.system.dto.CartSummary;
 import com.busbooking.system.model.Cart;
 import com.busbooking.system.repository.CartRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,6 +26,9 @@ class CartServiceTest {
     @Mock
     private CartRepository cartRepository;
 
+    @Mock
+    private SeatHoldService seatHoldService;
+
     @InjectMocks
     private CartServiceImpl cartService;
 
@@ -74,13 +78,24 @@ class CartServiceTest {
     @Test
     void testRemoveFromCart() {
         // Arrange
-        doNothing().when(cartRepository).deleteById(1L);
+        when(cartRepository.deleteByIdAndUsername(1L, "user1")).thenReturn(1);
 
         // Act
-        cartService.removeFromCart(1L);
+        boolean removed = cartService.removeFromCart(1L, "user1");
 
         // Assert
-        verify(cartRepository, times(1)).deleteById(1L);
+        assertTrue(removed);
+        verify(cartRepository, times(1)).deleteByIdAndUsername(1L, "user1");
+        verify(seatHoldService, times(1)).release(1L);
+    }
+
+    @Test
+    void testRemoveFromSomeoneElsesCartChangesNothing() {
+        when(cartRepository.deleteByIdAndUsername(1L, "intruder")).thenReturn(0);
+
+        assertFalse(cartService.removeFromCart(1L, "intruder"));
+
+        verify(seatHoldService, never()).release(any());
     }
 
     @Test
@@ -93,6 +108,7 @@ class CartServiceTest {
 
         // Assert
         verify(cartRepository, times(1)).deleteByUsername("user1");
+        verify(seatHoldService, times(1)).releaseAll("user1");
     }
 
     @Test
@@ -120,4 +136,36 @@ class CartServiceTest {
         assertEquals(0.0, total, 0.01);
         verify(cartRepository, times(1)).findByUsername("emptyuser");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetCartSummary() {
+        // Arrange
+        when(cartRepository.findWithTotalsByUsername("user1")).thenReturn(Arrays.asList(
+                new Object[] {testCart1, 80.99, 3L},
+                new Object[] {testCart2, 80.99, 3L}));
+
+        // Act
+        CartSummary summary = cartService.getCartSummary("user1");
+
+        // Assert
+        assertEquals(Arrays.asList(testCart1, testCart2), summary.getItems());
+        assertEquals(80.99, summary.getTotal(), 0.01);
+        assertEquals(2, summary.getItemCount());
+        assertEquals(3, summary.getPassengers());
+        verify(cartRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    void testGetCartSummaryEmpty() {
+        // Arrange
+        when(cartRepository.findWithTotalsByUsername("emptyuser")).thenReturn(Arrays.asList());
+
+        // Act
+        CartSummary summary = cartService.getCartSummary("emptyuser");
+
+        // Assert
+        assertTrue(summary.isEmpty());
+        assertEquals(0.0, summary.getTotal(), 0.01);
+        assertEquals(0, summary.getPassengers());
+    }
+}
@@ -0,0 +1,151 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Booking;
+import com.busbooking.system.model.Cart;
+import com.busbooking.system.repository.CartRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the in-memory cart store with write-behind using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "spring.jpa.properties.hibernate.generate_statistics=true",
+                "cart.store=memory", "cart.store.write-behind=true", "cart.store.flush-ms=3600000",
+                "cart.store.sweep-ms=3600000"})
+public class CartStoreTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private InMemoryCartServiceImpl inMemoryCartService;
+
+    @Autowired
+    private SeatHoldService seatHoldService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TripMaterializer tripMaterializer;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Startup materialization runs in the background; its SQL must not land in the counts below
+        tripMaterializer.awaitIdle();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testBrowsingAndEditingRunNoSql() {
+        assertSame(inMemoryCartService, cartService);
+        cartService.getCartByUser("browser");
+
+        statistics.clear();
+        Cart first = cartService.addToCart(cart("browser", 1L));
+        cartService.addToCart(cart("browser", 2L));
+        assertEquals(2, cartService.getCartByUser("browser").size());
+        assertEquals(50.0, cartService.getCartTotal("browser"));
+        cartService.removeFromCart(first.getId(), "browser");
+        assertEquals(1, cartService.getCartByUser("browser").size());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(cartRepository.findByUsername("browser").isEmpty());
+    }
+
+    @Test
+    void testWriteBehindSurvivesEviction() {
+        cartService.addToCart(cart("saver", 1L));
+        cartService.addToCart(cart("saver", 2L));
+
+        inMemoryCartService.flush();
+        assertEquals(2, cartRepository.findByUsername("saver").size());
+
+        cartService.removeFromCart(cartService.getCartByUser("saver").get(0).getId(), "saver");
+        inMemoryCartService.flush();
+        assertEquals(1, cartRepository.findByUsername("saver").size());
+
+        // A cart missing from memory comes back from the table
+        cartRepository.save(cart("returning", 3L));
+        List<Cart> items = cartService.getCartByUser("returning");
+        assertEquals(1, items.size());
+        assertEquals(3L, items.get(0).getBusId());
+    }
+
+    @Test
+    void testCheckoutClearsTheCartOnCommit() {
+        LocalDate travelDate = LocalDate.now().plusDays(1);
+        Cart item = cartService.addToCart(cart("buyer", 1L));
+        inMemoryCartService.flush();
+        Booking booking = new Booking("buyer", item.getBusName(), item.getSource(), item.getDestination(),
+                travelDate, item.getPassengers(), item.getTotalPrice());
+        booking.setBusId(item.getBusId());
+
+        bookingService.confirmBookings("buyer", List.of(booking));
+        assertTrue(cartService.getCartByUser("buyer").isEmpty());
+
+        inMemoryCartService.flush();
+        assertTrue(cartRepository.findByUsername("buyer").isEmpty());
+    }
+
+    @Test
+    void benchmarkCartPageAgainstTheTable() {
+        int rounds = 500;
+        CartService jpa = new CartServiceImpl(cartRepository, seatHoldService);
+        long[] tableNanos = new long[rounds];
+        long[] memoryNanos = new long[rounds];
+        long tableStatements = run(jpa, "tableuser", tableNanos);
+        long memoryStatements = run(cartService, "memoryuser", memoryNanos);
+        Arrays.sort(tableNanos);
+        Arrays.sort(memoryNanos);
+
+        System.out.println("📊 add, view and remove over " + rounds + " rounds: cart table median "
+                + tableNanos[rounds / 2] / 1_000 + " µs (" + tableStatements + " statements), memory median "
+                + memoryNanos[rounds / 2] / 1_000 + " µs (" + memoryStatements + " statements)");
+        assertEquals(0, memoryStatements);
+    }
+
+    /**
+     * One round is what a shopper does: add an item, view the cart as the cart page used to, remove it
+     */
+    private long run(CartService service, String username, long[] nanos) {
+        service.getCartByUser(username);
+        statistics.clear();
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            Cart item = service.addToCart(cart(username, (long) i));
+            service.getCartByUser(username);
+            service.getCartTotal(username);
+            service.removeFromCart(item.getId(), username);
+            nanos[i] = System.nanoTime() - start;
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Cart cart(String username, Long busId) {
+        return new Cart(username, busId, "Bus " + busId, "Dublin", "Galway",
+                LocalDate.now().plusDays(1).toString(), 1, 25.0);
+    }
+}
@@ -0,0 +1,165 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.CartSummary;
+import com.busbooking.system.model.Cart;
+import com.busbooking.system.repository.CartRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the single-query cart summary on the cart table using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "spring.jpa.properties.hibernate.generate_statistics=true",
+                "cart.store=jpa"})
+public class CartSummaryTest {
+
+    private static final int USERS = 8;
+    private static final int VIEWS_PER_USER = 250;
+    private static final int CART_SIZE = 5;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TripMaterializer tripMaterializer;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Trip materialization runs in the background; its SQL must not land in the counts below
+        tripMaterializer.awaitIdle();
+        cartRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testSummaryIsOneQuery() {
+        cartService.addToCart(cart("user1", 1L, 2, 50.0));
+        cartService.addToCart(cart("user1", 2L, 3, 75.5));
+        cartService.addToCart(cart("user2", 1L, 1, 25.0));
+
+        statistics.clear();
+        CartSummary summary = cartService.getCartSummary("user1");
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, summary.getItemCount());
+        assertEquals(125.5, summary.getTotal(), 0.001);
+        assertEquals(5, summary.getPassengers());
+        assertEquals(1L, summary.getItems().get(0).getBusId());
+        assertTrue(cartService.getCartSummary("nobody").isEmpty());
+    }
+
+    @Test
+    void testCartLookupUsesTheUsernameIndex() {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT * FROM cart WHERE username = 'user1'", String.class);
+
+        assertTrue(plan.contains("IDX_CART_USERNAME"), plan);
+    }
+
+    @Test
+    void benchmarkCartPageUnderConcurrentUsers() throws Exception {
+        for (int u = 0; u < USERS; u++) {
+            for (int i = 0; i < CART_SIZE; i++) {
+                cartService.addToCart(cart("shopper" + u, (long) i, 1, 25.0));
+            }
+        }
+        // Some other carts, so the index has something to skip
+        for (int u = 0; u < 500; u++) {
+            cartService.addToCart(cart("other" + u, 1L, 1, 25.0));
+        }
+
+        // What the cart page did before: the rows, then the rows again for the total
+        Consumer<String> rowsThenTotal = username -> {
+            cartService.getCartByUser(username);
+            cartService.getCartTotal(username);
+        };
+        Consumer<String> summaryView = username -> assertEquals(CART_SIZE * 25.0,
+                cartService.getCartSummary(username).getTotal(), 0.001);
+        // Warm both paths up first, so neither pays for the JIT
+        run(rowsThenTotal);
+        run(summaryView);
+
+        long[] twoQueries = run(rowsThenTotal);
+        long twoQueryStatements = statistics.getPrepareStatementCount();
+        long[] summary = run(summaryView);
+        long summaryStatements = statistics.getPrepareStatementCount();
+
+        int views = USERS * VIEWS_PER_USER;
+        System.out.printf("📊 %d users viewing a %d-item cart %d times each: rows then total %.1f queries and "
+                        + "p50 %d µs p99 %d µs per view, summary %.1f queries and p50 %d µs p99 %d µs per view%n",
+                USERS, CART_SIZE, VIEWS_PER_USER, (double) twoQueryStatements / views,
+                twoQueries[views / 2] / 1_000, twoQueries[views * 99 / 100] / 1_000,
+                (double) summaryStatements / views, summary[views / 2] / 1_000, summary[views * 99 / 100] / 1_000);
+        assertEquals(views, summaryStatements);
+        assertEquals(2L * views, twoQueryStatements);
+    }
+
+    /**
+     * Every user views their cart VIEWS_PER_USER times on their own thread
+     * @return Per-view latencies in nanoseconds, sorted
+     */
+    private long[] run(Consumer<String> view) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(USERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            String username = "shopper" + u;
+            futures.add(pool.submit(() -> {
+                start.await();
+                long[] nanos = new long[VIEWS_PER_USER];
+                for (int i = 0; i < VIEWS_PER_USER; i++) {
+                    long begin = System.nanoTime();
+                    view.accept(username);
+                    nanos[i] = System.nanoTime() - begin;
+                }
+                return nanos;
+            }));
+        }
+        statistics.clear();
+        start.countDown();
+        long[] all = new long[USERS * VIEWS_PER_USER];
+        for (int u = 0; u < USERS; u++) {
+            System.arraycopy(futures.get(u).get(60, TimeUnit.SECONDS), 0, all, u * VIEWS_PER_USER, VIEWS_PER_USER);
+        }
+        pool.shutdown();
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static Cart cart(String username, Long busId, int passengers, double totalPrice) {
+        return new Cart(username, busId, "Bus " + busId, "Dublin", "Galway",
+                LocalDate.now().plusDays(1).toString(), passengers, totalPrice);
+    }
+}
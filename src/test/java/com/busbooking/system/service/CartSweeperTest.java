@@ -0,0 +1,124 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Cart;
+import com.busbooking.system.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the abandoned-cart sweeper using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "cart.store=jpa", "cart.sweep.cron=-",
+                "cart.sweep.idle-days=7", "cart.sweep.batch-size=100"})
+public class CartSweeperTest {
+
+    @Autowired
+    private CartSweeper cartSweeper;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String tomorrow = LocalDate.now().plusDays(1).toString();
+
+    @BeforeEach
+    void setUp() {
+        cartRepository.deleteAll();
+    }
+
+    @Test
+    void testIdleAndPastCartsArePurged() {
+        Cart fresh = cartRepository.save(cart("fresh", tomorrow, LocalDateTime.now()));
+        cartRepository.save(cart("idle", tomorrow, LocalDateTime.now().minusDays(8)));
+        cartRepository.save(cart("departed", LocalDate.now().minusDays(1).toString(), LocalDateTime.now()));
+
+        CartSweeper.Metrics before = cartSweeper.getMetrics();
+        assertEquals(2, cartSweeper.sweep());
+
+        assertEquals(List.of(fresh.getId()), cartRepository.findAll().stream().map(Cart::getId).toList());
+        CartSweeper.Metrics after = cartSweeper.getMetrics();
+        assertEquals(before.runs() + 1, after.runs());
+        assertEquals(before.rowsPurged() + 2, after.rowsPurged());
+        assertEquals(2, after.lastRunRows());
+        assertNotNull(after.lastRunAt());
+        assertEquals(0, cartSweeper.sweep());
+    }
+
+    @Test
+    void testCartsWithoutATimestampGetAFullIdlePeriod() {
+        Cart legacy = cartRepository.save(cart("legacy", tomorrow, null));
+
+        LocalDateTime sweptAt = LocalDateTime.now();
+        assertEquals(0, cartSweeper.sweep());
+        LocalDateTime stamped = cartRepository.findById(legacy.getId()).orElseThrow().getCreatedAt();
+        assertNotNull(stamped);
+        assertFalse(stamped.isBefore(sweptAt.minusSeconds(1)));
+
+        // Purged like any cart once the idle period has passed since it was stamped
+        jdbcTemplate.update("UPDATE cart SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(stamped.minusDays(8)), legacy.getId());
+        assertEquals(1, cartSweeper.sweep());
+        assertEquals(0, cartRepository.count());
+    }
+
+    @Test
+    void testSweepFindsRowsThroughIndexes() {
+        String idle = jdbcTemplate.queryForObject("EXPLAIN SELECT id FROM cart WHERE created_at < "
+                + "TIMESTAMP '2020-01-01 00:00:00' FETCH FIRST 100 ROWS ONLY", String.class);
+        String past = jdbcTemplate.queryForObject("EXPLAIN SELECT id FROM cart WHERE travel_date < '2020-01-01' "
+                + "FETCH FIRST 100 ROWS ONLY", String.class);
+
+        assertTrue(idle.contains("IDX_CART_CREATED_AT"), idle);
+        assertTrue(past.contains("IDX_CART_TRAVEL_DATE"), past);
+    }
+
+    @Test
+    void benchmarkBatchedPurge() {
+        int stale = 20_000;
+        int live = 2_000;
+        Timestamp idle = Timestamp.valueOf(LocalDateTime.now().minusDays(30));
+        Timestamp recent = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < stale + live; i++) {
+            rows.add(new Object[] {"user" + i, (long) i % 50, tomorrow, i < stale ? idle : recent});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cart (username, bus_id, bus_name, source, destination, travel_date, "
+                + "passengers, total_price, created_at) VALUES (?, ?, 'Bus', 'Dublin', 'Galway', ?, 1, 25.0, ?)", rows);
+
+        long longestBefore = cartSweeper.getMetrics().longestBatchMillis();
+        long start = System.nanoTime();
+        int purged = cartSweeper.sweep();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        CartSweeper.Metrics metrics = cartSweeper.getMetrics();
+
+        System.out.println("📊 Purged " + purged + " of " + (stale + live) + " cart rows in " + millis + " ms, "
+                + (stale + 99) / 100 + " batches of up to 100, longest batch " + metrics.longestBatchMillis() + " ms");
+        assertEquals(stale, purged);
+        assertEquals(live, cartRepository.count());
+        assertTrue(metrics.longestBatchMillis() >= longestBefore);
+        // Every user's remaining lookup still goes through the username index
+        assertEquals(1, cartRepository.findByUsername("user" + stale).size());
+    }
+
+    private static Cart cart(String username, String travelDate, LocalDateTime createdAt) {
+        Cart cart = new Cart(username, 1L, "Bus 1", "Dublin", "Galway", travelDate, 1, 25.0);
+        cart.setCreatedAt(createdAt);
+        return cart;
+    }
+}
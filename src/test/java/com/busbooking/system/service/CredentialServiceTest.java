@@ -0,0 +1,242 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.User;
+import com.busbooking.system.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for password hashing and the bounded verification pool
+ */
+@ExtendWith(MockitoExtension.class)
+class CredentialServiceTest {
+
+    private static final int ITERATIONS = 1_000;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final PasswordHasher passwordHasher = new PasswordHasher(ITERATIONS);
+    private final List<CredentialServiceImpl> services = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(CredentialServiceImpl::shutdown);
+    }
+
+    @Test
+    void testHashesAreSaltedAndVerify() {
+        String first = passwordHasher.hash("secret");
+        String second = passwordHasher.hash("secret");
+
+        assertNotEquals(first, second);
+        assertTrue(first.startsWith("pbkdf2$1000$"));
+        assertTrue(passwordHasher.matches("secret", first));
+        assertFalse(passwordHasher.matches("Secret", first));
+        assertTrue(passwordHasher.isHashed(first));
+        assertFalse(passwordHasher.needsRehash(first));
+        assertTrue(new PasswordHasher(ITERATIONS * 2).needsRehash(first));
+        // A plain-text password that happens to look like a hash is not mistaken for one
+        assertFalse(passwordHasher.isHashed("pbkdf2$many$salt$hash"));
+    }
+
+    @Test
+    void testLoginIsOneLookup() {
+        CredentialServiceImpl credentialService = service(1, 8);
+        User user = user(passwordHasher.hash("secret"));
+        when(userRepository.findFirstByUsername("user1")).thenReturn(Optional.of(user));
+
+        assertEquals(Optional.of(user), credentialService.authenticate("user1", "secret").join());
+        assertEquals(Optional.empty(), credentialService.authenticate("user1", "wrong").join());
+
+        // The second attempt is answered from the user cache
+        verify(userRepository, times(1)).findFirstByUsername("user1");
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(userRepository, never()).updatePassword(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void testUnknownUserIsRejected() {
+        CredentialServiceImpl credentialService = service(1, 8);
+        when(userRepository.findFirstByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), credentialService.authenticate("ghost", "secret").join());
+    }
+
+    @Test
+    void testPlainTextPasswordIsUpgradedOnLogin() {
+        CredentialServiceImpl credentialService = service(1, 8);
+        when(userRepository.findFirstByUsername("user1")).thenReturn(Optional.of(user("secret")));
+        when(userRepository.updatePassword(eq(1L), eq("secret"), anyString())).thenReturn(1);
+
+        User user = credentialService.authenticate("user1", "secret").join().orElseThrow();
+
+        ArgumentCaptor<String> upgraded = ArgumentCaptor.forClass(String.class);
+        verify(userRepository).updatePassword(eq(1L), eq("secret"), upgraded.capture());
+        assertTrue(passwordHasher.matches("secret", upgraded.getValue()));
+        assertEquals(upgraded.getValue(), user.getPassword());
+    }
+
+    @Test
+    void testPlainTextPasswordsAreHashedInBatchesAtStartup() throws Exception {
+        CredentialServiceImpl credentialService = service(1, 8);
+        List<User> plain = new ArrayList<>();
+        for (long id = 1; id <= 15; id++) {
+            User user = user("secret" + id);
+            user.setId(id);
+            plain.add(user);
+        }
+        when(userRepository.findPlainTextPasswords(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            int max = invocation.<Limit>getArgument(1).max();
+            return plain.stream().filter(user -> user.getId() > after).limit(max).toList();
+        });
+        when(userRepository.updatePassword(anyLong(), anyString(), anyString())).thenReturn(1);
+
+        assertEquals(15, credentialService.migratePlainTextPasswords().get(1, TimeUnit.MINUTES));
+
+        ArgumentCaptor<String> hashes = ArgumentCaptor.forClass(String.class);
+        verify(userRepository, times(15)).updatePassword(anyLong(), anyString(), hashes.capture());
+        verify(userRepository).updatePassword(eq(7L), eq("secret7"), anyString());
+        assertTrue(hashes.getAllValues().stream().allMatch(passwordHasher::isHashed));
+        // Two batches of up to ten, then one that finds nothing left
+        verify(userRepository, times(3)).findPlainTextPasswords(anyLong(), any(Limit.class));
+        verify(userRepository).findPlainTextPasswords(eq(10L), any(Limit.class));
+    }
+
+    @Test
+    void testCheaperHashIsUpgradedOnLogin() {
+        CredentialServiceImpl credentialService = service(1, 8);
+        String cheap = new PasswordHasher(ITERATIONS / 2).hash("secret");
+        when(userRepository.findFirstByUsername("user1")).thenReturn(Optional.of(user(cheap)));
+        when(userRepository.updatePassword(eq(1L), eq(cheap), anyString())).thenReturn(1);
+
+        assertTrue(credentialService.authenticate("user1", "secret").join().isPresent());
+        verify(userRepository).updatePassword(eq(1L), eq(cheap), startsWith("pbkdf2$1000$"));
+    }
+
+    @Test
+    void testFullQueueTurnsLoginsAway() throws Exception {
+        CredentialServiceImpl credentialService = service(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(userRepository.findFirstByUsername("slow")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+
+        CompletableFuture<Optional<User>> running = credentialService.authenticate("slow", "x");
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Optional<User>> queued = credentialService.authenticate("slow", "x");
+        CompletableFuture<Optional<User>> turnedAway = credentialService.authenticate("slow", "x");
+
+        CompletionException e = assertThrows(CompletionException.class, turnedAway::join);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        CredentialService.Metrics metrics = credentialService.getMetrics();
+        assertEquals(1, metrics.active());
+        assertEquals(1, metrics.queued());
+        assertEquals(1, metrics.peakQueued());
+        assertEquals(1, metrics.rejected());
+
+        release.countDown();
+        assertTrue(running.join().isEmpty());
+        assertTrue(queued.join().isEmpty());
+    }
+
+    @Test
+    void benchmarkLoginStorm() throws Exception {
+        int callers = 32;
+        int loginsPerCaller = 10;
+        // A fortieth of the production cost, so the storm finishes quickly
+        PasswordHasher realisticHasher = new PasswordHasher(5_000);
+        CredentialServiceImpl credentialService = new CredentialServiceImpl(userRepository,
+                new UserCache(userRepository, realisticHasher, 100, Long.MAX_VALUE, System::nanoTime), realisticHasher, 1, 16);
+        services.add(credentialService);
+        User user = user(realisticHasher.hash("secret"));
+        when(userRepository.findFirstByUsername("user1")).thenReturn(Optional.of(user));
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < callers; c++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                // How long the request thread is held: only until the check is queued or turned away
+                long[] handOff = new long[loginsPerCaller];
+                List<CompletableFuture<Optional<User>>> logins = new ArrayList<>();
+                for (int i = 0; i < loginsPerCaller; i++) {
+                    long begin = System.nanoTime();
+                    logins.add(credentialService.authenticate("user1", "secret"));
+                    handOff[i] = System.nanoTime() - begin;
+                    Thread.sleep(5);
+                }
+                for (CompletableFuture<Optional<User>> login : logins) {
+                    try {
+                        assertTrue(login.join().isPresent());
+                    } catch (CompletionException e) {
+                        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+                    }
+                }
+                return handOff;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] handOffs = new long[callers * loginsPerCaller];
+        for (int c = 0; c < callers; c++) {
+            System.arraycopy(futures.get(c).get(120, TimeUnit.SECONDS), 0, handOffs, c * loginsPerCaller,
+                    loginsPerCaller);
+        }
+        long wallMillis = (System.nanoTime() - begin) / 1_000_000;
+        pool.shutdown();
+        Arrays.sort(handOffs);
+        CredentialService.Metrics metrics = credentialService.getMetrics();
+
+        System.out.println("📊 " + handOffs.length + " logins from " + callers + " threads against 1 verifier: "
+                + metrics.completed() + " checked, " + metrics.rejected() + " turned away, peak queue "
+                + metrics.peakQueued() + "/" + metrics.queueCapacity() + ", hand-off p99 "
+                + handOffs[handOffs.length * 99 / 100] / 1_000 + " µs, " + wallMillis + " ms in all");
+        assertEquals(handOffs.length, metrics.completed() + metrics.rejected());
+        assertTrue(metrics.peakQueued() <= metrics.queueCapacity());
+    }
+
+    private CredentialServiceImpl service(int threads, int queueCapacity) {
+        CredentialServiceImpl credentialService = new CredentialServiceImpl(userRepository,
+                new UserCache(userRepository, passwordHasher, 100, Long.MAX_VALUE, System::nanoTime), passwordHasher,
+                threads, queueCapacity);
+        services.add(credentialService);
+        return credentialService;
+    }
+
+    private static User user(String password) {
+        User user = new User("user1", password, "USER");
+        user.setId(1L);
+        return user;
+    }
+}
@@ -0,0 +1,194 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.BusImportReport;
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.repository.BusRepository;
+import com.busbooking.system.repository.TripRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the cached GTFS feed using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "trips.horizon-days=1",
+                "spring.jpa.properties.hibernate.generate_statistics=true"})
+public class GtfsFeedTest {
+
+    @Autowired
+    private GtfsFeedService gtfsFeedService;
+
+    @Autowired
+    private BusImportService busImportService;
+
+    @Autowired
+    private BusService busService;
+
+    @Autowired
+    private BusRepository busRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TripMaterializer tripMaterializer;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tripMaterializer.awaitIdle();
+        tripRepository.deleteAll();
+        for (Bus bus : busRepository.findAll()) {
+            busService.deleteBus(bus.getId());
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testFeedMapsScheduleOntoGtfsFiles() throws IOException {
+        Bus bus = overnightBus("Dublin", "Cork");
+        bus.setBusName("Night Link, 22");
+        bus = busService.saveBus(bus);
+
+        GtfsFeedService.Feed feed = gtfsFeedService.getFeed();
+
+        String trip = "bus-" + bus.getId();
+        assertEquals("stop_id,stop_name\nCork,Cork\nDublin,Dublin\n", read(feed.file(), "stops.txt"));
+        assertTrue(read(feed.file(), "routes.txt").contains("\"Night Link, 22\",1,\"Night Link, 22\",3"));
+        assertTrue(read(feed.file(), "calendar.txt").contains(trip + ",0,0,0,0,1,1,0,20250301,20251031"));
+        assertTrue(read(feed.file(), "stop_times.txt").contains(trip + ",23:15:00,23:15:00,Dublin,1\n"
+                + trip + ",26:40:00,26:40:00,Cork,2"));
+        assertTrue(read(feed.file(), "agency.txt").contains("Europe/Dublin"));
+    }
+
+    @Test
+    void testUnchangedTimetableServesCachedArtifact() throws Exception {
+        Bus first = busService.saveBus(overnightBus("Dublin", "Cork"));
+        busService.saveBus(overnightBus("Galway", "Sligo"));
+        GtfsFeedService.Feed built = gtfsFeedService.getFeed();
+
+        assertSame(built, gtfsFeedService.getFeed());
+
+        // Seats are in the feed; a new seat count builds a new file that re-renders only that bus
+        first.setSeats(20);
+        busService.saveBus(first);
+        // Trips are written in the background; let that finish before counting loads
+        tripMaterializer.awaitIdle();
+        statistics.clear();
+        GtfsFeedService.Feed rebuilt = gtfsFeedService.getFeed();
+
+        assertNotEquals(built.etag(), rebuilt.etag());
+        assertNotEquals(built.file(), rebuilt.file());
+        assertEquals(1, statistics.getEntityLoadCount());
+        assertTrue(read(rebuilt.file(), "trips.txt").contains(",20,"));
+
+        // Saving without changes keeps the artifact
+        busService.saveBus(first);
+        assertEquals(rebuilt.file(), gtfsFeedService.getFeed().file());
+    }
+
+    @Test
+    void testInactiveAndDeletedBusesLeaveTheFeed() throws IOException {
+        Bus inactive = busService.saveBus(overnightBus("Dublin", "Cork"));
+        Bus deleted = busService.saveBus(overnightBus("Galway", "Sligo"));
+        gtfsFeedService.getFeed();
+
+        inactive.setActive(false);
+        busService.saveBus(inactive);
+        busService.deleteBus(deleted.getId());
+
+        assertEquals("trip_id,arrival_time,departure_time,stop_id,stop_sequence\n",
+                read(gtfsFeedService.getFeed().file(), "stop_times.txt"));
+    }
+
+    @Test
+    void testFeedImportsBackIntoTheSameTimetable() throws IOException {
+        busService.saveBus(overnightBus("Dublin", "Cork"));
+        busService.saveBus(overnightBus("Galway", "Sligo"));
+        Path file = gtfsFeedService.getFeed().file();
+
+        BusImportReport report = busImportService.importGtfs(file);
+
+        assertEquals(0, report.getFailed());
+        assertEquals(0, report.getInserted());
+        assertEquals(2, report.getUpdated());
+    }
+
+    @Test
+    @DirtiesContext
+    void benchmarkFullVersusIncrementalBuild() throws IOException {
+        int buses = 20_000;
+        List<Bus> fleet = new ArrayList<>(buses);
+        for (int i = 0; i < buses; i++) {
+            Bus bus = overnightBus("Town " + i % 300, "City " + i % 250);
+            bus.setBusName("Route " + i % 400);
+            bus.setDepartureTime(LocalTime.of(i % 24, i % 60));
+            fleet.add(bus);
+        }
+        // As a bulk import would: one event for the whole fleet, so every bus is rendered
+        busRepository.saveAll(fleet);
+        eventPublisher.publishEvent(new BusesImportedEvent(fleet.stream().map(Bus::getId).toList()));
+        long start = System.nanoTime();
+        GtfsFeedService.Feed full = gtfsFeedService.getFeed();
+        long fullMillis = (System.nanoTime() - start) / 1_000_000;
+
+        Bus changed = fleet.get(0);
+        changed.setPrice(99.0);
+        busService.saveBus(changed);
+        start = System.nanoTime();
+        GtfsFeedService.Feed incremental = gtfsFeedService.getFeed();
+        long incrementalMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        GtfsFeedService.Feed cached = gtfsFeedService.getFeed();
+        long cachedMicros = (System.nanoTime() - start) / 1_000;
+
+        System.out.println("📊 GTFS feed for " + buses + " buses (" + full.size() / 1024 + " KB): first build "
+                + fullMillis + " ms, rebuild after one change " + incrementalMillis + " ms, unchanged "
+                + cachedMicros + " µs");
+        assertNotEquals(full.etag(), incremental.etag());
+        assertSame(incremental, cached);
+    }
+
+    private static Bus overnightBus(String source, String destination) {
+        Bus bus = new Bus("Night Link", source, destination,
+                LocalTime.of(23, 15), LocalTime.of(2, 40), 45, 25.0, "EXPRESS");
+        bus.setOperatingDays("FRI,SAT");
+        bus.setStartDate(LocalDate.of(2025, 3, 1));
+        bus.setEndDate(LocalDate.of(2025, 10, 31));
+        return bus;
+    }
+
+    private static String read(Path zip, String name) throws IOException {
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            return new String(file.getInputStream(file.getEntry(name)).readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
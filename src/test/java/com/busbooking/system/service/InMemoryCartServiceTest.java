@@ -0,0 +1,257 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Cart;
+import com.busbooking.system.repository.CartRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for InMemoryCartServiceImpl on a fake clock
+ */
+@ExtendWith(MockitoExtension.class)
+class InMemoryCartServiceTest {
+
+    private static final long IDLE = TimeUnit.MINUTES.toNanos(30);
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private SeatHoldService seatHoldService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private InMemoryCartServiceImpl cartService;
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @BeforeEach
+    void setUp() {
+        cartService = store(1_000, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartService.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testBrowsingAndEditingNeverTouchTheDatabase() {
+        Cart first = cartService.addToCart(cart("user1", 1L, 25.0));
+        Cart second = cartService.addToCart(cart("user1", 2L, 30.0));
+        cartService.addToCart(cart("user2", 1L, 25.0));
+
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(2, cartService.getCartByUser("user1").size());
+        assertEquals(55.0, cartService.getCartTotal("user1"));
+        assertEquals(55.0, cartService.getCartSummary("user1").getTotal());
+        assertEquals(2, cartService.getCartSummary("user1").getPassengers());
+
+        // An item id alone is not enough: it has to be in the caller's own cart
+        assertFalse(cartService.removeFromCart(first.getId(), "user2"));
+        assertTrue(cartService.removeFromCart(first.getId(), "user1"));
+        assertEquals(List.of(second), cartService.getCartByUser("user1"));
+        verify(seatHoldService).release(first.getId());
+
+        cartService.clearCart("user1");
+        assertTrue(cartService.getCartByUser("user1").isEmpty());
+        assertEquals(1, cartService.getCartByUser("user2").size());
+        assertTrue(cartService.getCartByUser("nobody").isEmpty());
+        verifyNoInteractions(cartRepository, jdbcTemplate, transactionTemplate);
+    }
+
+    @Test
+    void testIdleCartsAreEvictedAndTheirHoldsReleased() {
+        cartService.addToCart(cart("idle", 1L, 25.0));
+        now.addAndGet(IDLE / 2);
+        cartService.addToCart(cart("active", 1L, 25.0));
+
+        now.addAndGet(IDLE / 2);
+        cartService.evictCarts();
+
+        assertTrue(cartService.getCartByUser("idle").isEmpty());
+        assertEquals(1, cartService.getCartByUser("active").size());
+        verify(seatHoldService).releaseAll("idle");
+        verify(seatHoldService, never()).releaseAll("active");
+    }
+
+    @Test
+    void testLeastRecentlyUsedCartsGoFirstOverTheCap() throws Exception {
+        cartService = store(100, false);
+        for (int i = 0; i < 100; i++) {
+            cartService.addToCart(cart("user" + i, 1L, 25.0));
+            now.addAndGet(1_000);
+        }
+        // Reading a cart counts as using it
+        cartService.getCartByUser("user0");
+        now.addAndGet(1_000);
+
+        cartService.addToCart(cart("newcomer", 1L, 25.0));
+        // The add only queues the eviction; it runs in the background
+        cartService.awaitEviction();
+
+        assertEquals(90, cartService.getCartCount());
+        assertEquals(1, cartService.getCartByUser("user0").size());
+        assertEquals(1, cartService.getCartByUser("newcomer").size());
+        assertTrue(cartService.getCartByUser("user1").isEmpty());
+        assertTrue(cartService.getCartByUser("user11").isEmpty());
+        assertEquals(1, cartService.getCartByUser("user12").size());
+    }
+
+    @Test
+    void testClearInsideATransactionWaitsForCommit() {
+        cartService.addToCart(cart("user1", 1L, 25.0));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cartService.clearCart("user1");
+        assertEquals(1, cartService.getCartByUser("user1").size());
+        verify(seatHoldService, never()).releaseAll(anyString());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(cartService.getCartByUser("user1").isEmpty());
+        verify(seatHoldService).releaseAll("user1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWriteBehindFlushesChangesAndReloadsOnMiss() {
+        cartService = store(1_000, true);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        Cart saved = cart("user1", 7L, 40.0);
+        saved.setId(1L);
+        when(cartRepository.findByUsername("user1")).thenReturn(List.of(saved));
+
+        // The first touch loads the saved cart, with ids from the store's own sequence
+        cartService.addToCart(cart("user1", 8L, 25.0));
+        List<Cart> items = cartService.getCartByUser("user1");
+        assertEquals(2, items.size());
+        assertEquals(65.0, cartService.getCartTotal("user1"));
+        assertNotSame(saved, items.get(0));
+        assertEquals(1L, saved.getId());
+        verify(cartRepository, times(1)).findByUsername("user1");
+
+        cartService.flush();
+        verify(jdbcTemplate).update(anyString(), eq("user1"));
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList(), eq(2), any());
+
+        // Nothing changed since, so nothing to write
+        cartService.flush();
+        verify(jdbcTemplate, times(1)).update(anyString(), eq("user1"));
+
+        // An evicted cart is written out first if it changed since the last flush
+        cartService.removeFromCart(items.get(0).getId(), "user1");
+        now.addAndGet(IDLE);
+        cartService.evictCarts();
+        verify(jdbcTemplate, times(2)).update(anyString(), eq("user1"));
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList(), eq(1), any());
+        assertEquals(0, cartService.getCartCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEvictedCartIsWrittenOutsideItsLockAndReloadedFromTheCopy() {
+        cartService = store(1_000, true);
+        cartService.addToCart(cart("user1", 7L, 40.0));
+        List<List<Cart>> reloaded = new ArrayList<>();
+        doAnswer(invocation -> {
+            // A request for the cart while its copy is being written: no lock is held, and the table is not read
+            reloaded.add(cartService.getCartByUser("user1"));
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        now.addAndGet(IDLE);
+        cartService.evictCarts();
+
+        assertEquals(1, reloaded.size());
+        assertEquals(1, reloaded.get(0).size());
+        assertEquals(7L, reloaded.get(0).get(0).getBusId());
+        verify(cartRepository, times(1)).findByUsername("user1");
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList(), eq(1), any());
+    }
+
+    @Test
+    void testConcurrentEditsKeepEveryCartConsistent() throws Exception {
+        int threads = 8;
+        int rounds = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String username = "user" + t % 4;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < rounds; i++) {
+                    Cart kept = cartService.addToCart(cart(username, 1L, 1.0));
+                    Cart removed = cartService.addToCart(cart(username, 2L, 1.0));
+                    cartService.removeFromCart(removed.getId(), username);
+                    assertTrue(cartService.getCartByUser(username).contains(kept));
+                    if (i % 100 == 0) {
+                        cartService.evictCarts();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (int u = 0; u < 4; u++) {
+            List<Cart> items = cartService.getCartByUser("user" + u);
+            assertEquals(2 * rounds, items.size());
+            assertTrue(items.stream().allMatch(item -> item.getBusId() == 1L));
+        }
+        verify(seatHoldService, never()).releaseAll(anyString());
+        verify(seatHoldService, times(threads * rounds)).release(any());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any());
+    }
+
+    private InMemoryCartServiceImpl store(int maxCarts, boolean writeBehind) {
+        return new InMemoryCartServiceImpl(cartRepository, seatHoldService, jdbcTemplate, transactionTemplate,
+                maxCarts, IDLE, writeBehind, now::get);
+    }
+
+    private static Cart cart(String username, Long busId, double totalPrice) {
+        return new Cart(username, busId, "Bus " + busId, "Dublin", "Galway", "2030-01-01", 1, totalPrice);
+    }
+}
@@ -0,0 +1,187 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.dto.Journey;
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.repository.BusRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the connection-scan journey planner
+ */
+@ExtendWith(MockitoExtension.class)
+class JourneyPlannerServiceTest {
+
+    @Mock
+    private BusRepository busRepository;
+
+    private JourneyPlannerServiceImpl planner;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void setUp() {
+        planner = new JourneyPlannerServiceImpl(busRepository, 15);
+    }
+
+    @Test
+    void testDirectBus() {
+        load(bus(1L, "Dublin", "Galway", 9, 0, 12, 30));
+
+        Journey journey = planner.findEarliestArrival("dublin", "Galway", travelDate, null);
+
+        assertNotNull(journey);
+        assertEquals(0, journey.getTransfers());
+        assertEquals(travelDate.atTime(12, 30), journey.getArrival());
+    }
+
+    @Test
+    void testConnectionThroughGalway() {
+        load(bus(1L, "Dublin", "Galway", 9, 0, 12, 30),
+             bus(2L, "Galway", "Limerick", 12, 40, 14, 0),   // too tight to catch
+             bus(3L, "Galway", "Limerick", 13, 0, 14, 30),
+             bus(4L, "Galway", "Limerick", 16, 0, 17, 30));
+
+        Journey journey = planner.findEarliestArrival("Dublin", "Limerick", travelDate, null);
+
+        assertNotNull(journey);
+        assertEquals(1, journey.getTransfers());
+        assertEquals(List.of(1L, 3L), journey.getLegs().stream().map(leg -> leg.getBusId()).toList());
+        assertEquals(travelDate.atTime(9, 0), journey.getDeparture());
+        assertEquals(travelDate.atTime(14, 30), journey.getArrival());
+    }
+
+    @Test
+    void testRespectsEarliestDepartureAndContinuesNextDay() {
+        load(bus(1L, "Dublin", "Galway", 9, 0, 12, 30));
+
+        Journey journey = planner.findEarliestArrival("Dublin", "Galway", travelDate, LocalTime.of(10, 0));
+
+        assertNotNull(journey);
+        assertEquals(travelDate.plusDays(1), journey.getLegs().get(0).getTravelDate());
+        assertEquals(travelDate.plusDays(1).atTime(12, 30), journey.getArrival());
+    }
+
+    @Test
+    void testSkipsBusesNotRunningThatDay() {
+        Bus bus = bus(1L, "Dublin", "Galway", 9, 0, 12, 30);
+        bus.setOperatingDays(travelDate.getDayOfWeek().plus(1).name().substring(0, 3));
+        load(bus);
+
+        Journey journey = planner.findEarliestArrival("Dublin", "Galway", travelDate, null);
+
+        assertNotNull(journey);
+        assertEquals(travelDate.plusDays(1), journey.getLegs().get(0).getTravelDate());
+    }
+
+    @Test
+    void testOvernightBus() {
+        load(bus(1L, "Dublin", "Cork", 23, 0, 2, 0),
+             bus(2L, "Cork", "Tralee", 6, 0, 8, 0));
+
+        Journey journey = planner.findEarliestArrival("Dublin", "Tralee", travelDate, null);
+
+        assertNotNull(journey);
+        assertEquals(travelDate.plusDays(1).atTime(8, 0), journey.getArrival());
+    }
+
+    @Test
+    void testUnreachable() {
+        load(bus(1L, "Dublin", "Galway", 9, 0, 12, 30));
+
+        assertNull(planner.findEarliestArrival("Galway", "Dublin", travelDate, null));
+        assertNull(planner.findEarliestArrival("Dublin", "Nowhere", travelDate, null));
+    }
+
+    @Test
+    void testIncrementalUpdates() {
+        load(bus(1L, "Dublin", "Galway", 9, 0, 12, 30));
+
+        Bus connection = bus(2L, "Galway", "Sligo", 13, 0, 15, 0);
+        planner.onBusChanged(new BusChangedEvent(2L, connection));
+        assertEquals(travelDate.atTime(15, 0),
+                planner.findEarliestArrival("Dublin", "Sligo", travelDate, null).getArrival());
+
+        Bus faster = bus(1L, "Dublin", "Galway", 8, 0, 10, 0);
+        Bus earlier = bus(2L, "Galway", "Sligo", 10, 30, 12, 0);
+        planner.onBusChanged(new BusChangedEvent(1L, faster));
+        planner.onBusChanged(new BusChangedEvent(2L, earlier));
+        assertEquals(travelDate.atTime(12, 0),
+                planner.findEarliestArrival("Dublin", "Sligo", travelDate, null).getArrival());
+
+        planner.onBusChanged(new BusChangedEvent(2L, null));
+        assertNull(planner.findEarliestArrival("Dublin", "Sligo", travelDate, null));
+    }
+
+    @Test
+    void benchmarkSyntheticNetwork() {
+        Random random = new Random(42);
+        int stops = 300;
+        List<Bus> network = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            int from = random.nextInt(stops);
+            int to = (from + 1 + random.nextInt(stops - 1)) % stops;
+            int departure = random.nextInt(24 * 60);
+            int duration = 20 + random.nextInt(240);
+            int arrival = (departure + duration) % (24 * 60);
+            network.add(bus(id, "Stop " + from, "Stop " + to,
+                    departure / 60, departure % 60, arrival / 60, arrival % 60));
+        }
+        when(busRepository.findByActiveTrueOrderByIdAsc()).thenReturn(network);
+
+        long buildStart = System.nanoTime();
+        planner.rebuild();
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        int queries = 2_000;
+        long[] nanos = new long[queries];
+        int found = 0;
+        for (int i = 0; i < queries; i++) {
+            String from = "Stop " + random.nextInt(stops);
+            String to = "Stop " + random.nextInt(stops);
+            LocalTime earliest = LocalTime.of(random.nextInt(24), 0);
+            long start = System.nanoTime();
+            Journey journey = planner.findEarliestArrival(from, to, travelDate, earliest);
+            nanos[i] = System.nanoTime() - start;
+            if (journey != null) {
+                found++;
+                assertFalse(journey.getArrival().isBefore(travelDate.atTime(earliest)));
+                assertTrue(journey.getArrival().isBefore(LocalDateTime.of(travelDate.plusDays(3), LocalTime.MIDNIGHT)));
+            }
+        }
+        Arrays.sort(nanos);
+
+        System.out.println("📊 10k-trip network built in " + buildMillis + " ms; " + found + "/" + queries
+                + " journeys found; median " + nanos[queries / 2] / 1_000 + " µs, p99 "
+                + nanos[queries * 99 / 100] / 1_000 + " µs per query");
+        assertTrue(found > 0);
+    }
+
+    private void load(Bus... buses) {
+        when(busRepository.findByActiveTrueOrderByIdAsc()).thenReturn(List.of(buses));
+        planner.rebuild();
+    }
+
+    private Bus bus(Long id, String source, String destination, int depHour, int depMinute, int arrHour, int arrMinute) {
+        Bus bus = new Bus("Bus " + id, source, destination,
+                LocalTime.of(depHour, depMinute), LocalTime.of(arrHour, arrMinute), 50, 20.0, "STANDARD");
+        bus.setId(id);
+        bus.setStartDate(LocalDate.now());
+        bus.setEndDate(LocalDate.now().plusMonths(1));
+        return bus;
+    }
+}
@@ -0,0 +1,248 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the live occupancy stream over a real HTTP connection using H2 database
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false", "occupancy.tick-ms=3600000",
+                "spring.jpa.properties.hibernate.generate_statistics=true"})
+public class OccupancyFeedTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OccupancyFeedServiceImpl occupancyFeedService;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private BusService busService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TripMaterializer tripMaterializer;
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<Watcher> watchers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        watchers.forEach(Watcher::close);
+    }
+
+    @Test
+    void testChangesWithinATickArriveAsOneUpdate() throws Exception {
+        Long busId = busService.saveBus(bus("Dublin", "Galway")).getId();
+        LocalDate travelDate = LocalDate.now().plusDays(2);
+        Watcher watcher = watch();
+        assertEquals("snapshot", watcher.next()[0]);
+
+        for (int i = 0; i < 30; i++) {
+            assertTrue(seatInventoryService.reserveSeats(busId, travelDate, 1));
+        }
+        seatInventoryService.releaseSeats(busId, travelDate, 5);
+        occupancyFeedService.tick();
+
+        String[] event = watcher.next();
+        assertEquals("occupancy", event[0]);
+        JsonNode departures = JSON.readTree(event[1]).get("departures");
+        assertEquals(1, departures.size());
+        JsonNode departure = departures.get(0);
+        assertEquals(busId.longValue(), departure.get("busId").asLong());
+        assertEquals(travelDate.toString(), departure.get("travelDate").asText());
+        assertEquals(25, departure.get("seatsBooked").asInt());
+        assertEquals(45, departure.get("capacity").asInt());
+        assertEquals(25, departure.get("seatsDelta").asInt());
+        assertEquals(30, departure.get("reservations").asInt());
+        assertEquals(1, departure.get("releases").asInt());
+
+        // A quiet tick sends no update
+        occupancyFeedService.tick();
+        seatInventoryService.reserveSeats(busId, travelDate, 2);
+        occupancyFeedService.tick();
+        assertEquals(27, JSON.readTree(watcher.next()[1]).get("departures").get(0).get("seatsBooked").asInt());
+        System.out.println("✅ 32 seat changes reached the watcher as 2 updates");
+    }
+
+    @Test
+    void testLateWatcherStartsFromSnapshot() throws Exception {
+        Long busId = busService.saveBus(bus("Cork", "Limerick")).getId();
+        LocalDate travelDate = LocalDate.now().plusDays(1);
+        seatInventoryService.reserveSeats(busId, travelDate, 12);
+        occupancyFeedService.tick();
+
+        String[] snapshot = watch().next();
+
+        assertEquals("snapshot", snapshot[0]);
+        JsonNode departure = findDeparture(JSON.readTree(snapshot[1]), busId);
+        assertEquals(12, departure.get("seatsBooked").asInt());
+        assertEquals(0, departure.get("seatsDelta").asInt());
+    }
+
+    @Test
+    void benchmarkManyWatchersCostNoQueries() throws Exception {
+        int watcherCount = 200;
+        int ticks = 10;
+        int changesPerTick = 500;
+        List<Long> busIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            busIds.add(busService.saveBus(bus("Town " + i, "City " + i)).getId());
+        }
+        LocalDate travelDate = LocalDate.now().plusDays(3);
+        for (int i = 0; i < watcherCount; i++) {
+            watch();
+        }
+        for (Watcher watcher : watchers) {
+            assertEquals("snapshot", watcher.next()[0]);
+        }
+        // Watchers closed by earlier tests stay registered until a send finds them gone
+        assertTrue(occupancyFeedService.getSubscriberCount() >= watcherCount);
+
+        // The new buses' trips are materialized in the background; wait so their SQL is not counted
+        tripMaterializer.awaitIdle();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long[] tickNanos = new long[ticks];
+        long queries = 0;
+        for (int t = 0; t < ticks; t++) {
+            for (int i = 0; i < changesPerTick; i++) {
+                Long busId = busIds.get(i % busIds.size());
+                if (!seatInventoryService.reserveSeats(busId, travelDate, 1)) {
+                    seatInventoryService.releaseSeats(busId, travelDate, 40);
+                }
+            }
+            statistics.clear();
+            long start = System.nanoTime();
+            occupancyFeedService.tick();
+            tickNanos[t] = System.nanoTime() - start;
+            queries += statistics.getPrepareStatementCount();
+        }
+        for (Watcher watcher : watchers) {
+            for (int t = 0; t < ticks; t++) {
+                assertEquals("occupancy", watcher.next()[0]);
+            }
+        }
+        Arrays.sort(tickNanos);
+
+        System.out.println("📊 " + watcherCount + " watchers, " + ticks * changesPerTick + " seat changes over "
+                + ticks + " ticks: " + ticks + " messages per watcher, broadcast p50 "
+                + tickNanos[ticks / 2] / 1_000 + " µs, max " + tickNanos[ticks - 1] / 1_000 + " µs, "
+                + queries + " SQL statements (refreshing the dashboard once per tick would run "
+                + 2L * watcherCount * ticks + ")");
+        assertEquals(0, queries);
+    }
+
+    private Watcher watch() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/admin/occupancy/stream"))
+                .header("Accept", "text/event-stream")
+                .header("Cookie", SessionTokenService.COOKIE_NAME + "=" + sessionTokenService.issue("admin", "ADMIN"))
+                .build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        Watcher watcher = new Watcher(response.body());
+        watchers.add(watcher);
+        return watcher;
+    }
+
+    private static JsonNode findDeparture(JsonNode departures, Long busId) {
+        for (JsonNode departure : departures) {
+            if (departure.get("busId").asLong() == busId) {
+                return departure;
+            }
+        }
+        throw new AssertionError("No departure for bus " + busId);
+    }
+
+    private static Bus bus(String source, String destination) {
+        return new Bus("Live Link", source, destination, LocalTime.of(9, 0), LocalTime.of(12, 0), 45, 20.0, "STANDARD");
+    }
+
+    /**
+     * Reads one SSE stream on a virtual thread, queueing (event name, data) pairs
+     */
+    private static final class Watcher {
+        private final InputStream body;
+        private final BlockingQueue<String[]> events = new LinkedBlockingQueue<>();
+
+        Watcher(InputStream body) {
+            this.body = body;
+            Thread.ofVirtual().start(this::read);
+        }
+
+        private void read() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                String name = null;
+                StringBuilder data = new StringBuilder();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("event:")) {
+                        name = line.substring(6);
+                    } else if (line.startsWith("data:")) {
+                        data.append(line.substring(5));
+                    } else if (line.isEmpty() && name != null) {
+                        events.add(new String[] {name, data.toString()});
+                        name = null;
+                        data.setLength(0);
+                    }
+                }
+            } catch (Exception e) {
+                // Stream closed by the test
+            }
+        }
+
+        String[] next() throws InterruptedException {
+            String[] event = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event, "No event within 10 s");
+            return event;
+        }
+
+        void close() {
+            try {
+                body.close();
+            } catch (Exception e) {
+                // Already closed
+            }
+        }
+    }
+}
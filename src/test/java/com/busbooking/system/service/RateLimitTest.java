@@ -0,0 +1,117 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.config.RateLimitInterceptor;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Integration test for the rate limits on login and checkout
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false",
+                "rate-limit.login.ip.per-minute=0",
+                "rate-limit.login.user.per-minute=1", "rate-limit.login.user.burst=2",
+                "rate-limit.payment.ip.per-minute=1", "rate-limit.payment.ip.burst=1"})
+public class RateLimitTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @SpyBean
+    private CredentialService credentialService;
+
+    @SpyBean
+    private CartService cartService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void testLoginAttemptsPerUsernameAreLimited() throws Exception {
+        assertEquals(200, post("/login", "username=target&password=guess1", null).statusCode());
+        assertEquals(200, post("/login", "username=target&password=guess2", null).statusCode());
+
+        HttpResponse<String> denied = post("/login", "username=target&password=guess3", null);
+
+        assertEquals(429, denied.statusCode());
+        assertTrue(Long.parseLong(denied.headers().firstValue("Retry-After").orElseThrow()) > 0);
+        // Turned away before the password check
+        verify(credentialService, times(2)).authenticate(eq("target"), anyString());
+        // Other accounts are not held up, as the per-IP limit is off here
+        assertEquals(200, post("/login", "username=someone-else&password=x", null).statusCode());
+    }
+
+    @Test
+    void testCheckoutsPerClientAreLimited() throws Exception {
+        String token = sessionTokenService.issue("buyer", "USER");
+        String form = "username=buyer&total=25.0&paymentMethod=credit-card";
+
+        // An empty cart sends the first one back to the cart page
+        assertEquals(302, post("/process-payment", form, token).statusCode());
+        assertEquals(429, post("/process-payment", form, token).statusCode());
+
+        verify(cartService, times(1)).getCartByUser("buyer");
+        RateLimiter.Metrics checkoutsPerIp = rateLimiter.getMetrics().stream()
+                .filter(metrics -> metrics.name().equals("Checkout per IP"))
+                .findFirst().orElseThrow();
+        assertEquals(1, checkoutsPerIp.denied());
+        assertTrue(rateLimiter.getMetrics().stream().noneMatch(metrics -> metrics.name().equals("Login per IP")));
+    }
+
+    @Test
+    void testCheckoutsCountAgainstTheSignedInUserOnly() throws Exception {
+        RateLimiter limiter = mock(RateLimiter.class);
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(limiter, sessionTokenService);
+
+        // No session: naming a victim spends none of the victim's tokens
+        MockHttpServletRequest anonymous = checkout("victim");
+        assertTrue(interceptor.preHandle(anonymous, new MockHttpServletResponse(), null));
+        verify(limiter).checkPayment("127.0.0.1", null);
+
+        // A session counts against its own user, whatever the parameter says
+        MockHttpServletRequest signedIn = checkout("victim");
+        signedIn.setCookies(new Cookie(SessionTokenService.COOKIE_NAME, sessionTokenService.issue("buyer", "USER")));
+        assertTrue(interceptor.preHandle(signedIn, new MockHttpServletResponse(), null));
+        verify(limiter).checkPayment("127.0.0.1", "buyer");
+        verify(limiter, never()).checkPayment(anyString(), eq("victim"));
+    }
+
+    private static MockHttpServletRequest checkout(String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/process-payment");
+        request.setServletPath("/process-payment");
+        request.setParameter("username", username);
+        return request;
+    }
+
+    private HttpResponse<String> post(String path, String form, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form));
+        if (token != null) {
+            request.header("Cookie", SessionTokenService.COOKIE_NAME + "=" + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
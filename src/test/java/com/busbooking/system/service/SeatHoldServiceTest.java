@@ -0,0 +1,257 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.model.Cart;
+import com.busbooking.system.model.SeatInventory;
+import com.busbooking.system.repository.BusRepository;
+import com.busbooking.system.repository.SeatInventoryRepository;
+import com.busbooking.system.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit and concurrency tests for SeatHoldService on a fake clock
+ */
+@ExtendWith(MockitoExtension.class)
+class SeatHoldServiceTest {
+
+    private static final int CAPACITY = 45;
+    private static final long TTL = TimeUnit.MINUTES.toNanos(15);
+    private static final long TICK = TimeUnit.SECONDS.toNanos(1);
+
+    @Mock
+    private SeatInventoryRepository seatInventoryRepository;
+
+    @Mock
+    private BusRepository busRepository;
+
+    @Mock
+    private TripRepository tripRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SeatInventoryServiceImpl seatInventoryService;
+    private SeatHoldServiceImpl seatHoldService;
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final AtomicLong cartIds = new AtomicLong();
+    private final AtomicInteger persisted = new AtomicInteger();
+    private final LocalDate travelDate = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void setUp() {
+        seatInventoryService = new SeatInventoryServiceImpl(seatInventoryRepository, busRepository, tripRepository,
+                eventPublisher);
+        seatHoldService = new SeatHoldServiceImpl(seatInventoryService, TTL, TICK, now::get);
+
+        lenient().when(seatInventoryRepository.findByBusIdAndTravelDate(anyLong(), any(LocalDate.class)))
+                .thenReturn(Optional.empty());
+        lenient().when(seatInventoryRepository.save(any(SeatInventory.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(busRepository.findById(anyLong())).thenReturn(Optional.of(new Bus("CityLink", "Dublin",
+                "Galway", LocalTime.of(9, 0), LocalTime.of(12, 0), CAPACITY, 25.0, "EXPRESS")));
+        lenient().when(seatInventoryRepository.releaseSeats(anyLong(), any(LocalDate.class), anyInt()))
+                .thenAnswer(invocation -> {
+                    persisted.addAndGet(-invocation.<Integer>getArgument(2));
+                    return 1;
+                });
+        lenient().when(seatInventoryRepository.claimSeats(anyLong(), any(LocalDate.class), anyInt()))
+                .thenAnswer(invocation -> {
+                    persisted.addAndGet(invocation.getArgument(2));
+                    return 1;
+                });
+    }
+
+    @Test
+    void testHoldClaimsSeatsWithoutWritingTheLedger() {
+        Cart cart = cart("user1", 1L, 40);
+
+        assertTrue(seatHoldService.hold(cart));
+        assertEquals(5, seatInventoryService.getAvailableSeats(1L, travelDate));
+        assertFalse(seatHoldService.hold(cart("user2", 1L, 6)));
+        assertTrue(seatHoldService.isHeld(cart.getId()));
+        assertNotNull(seatHoldService.getExpiry(cart.getId()));
+        assertEquals(0, persisted.get());
+    }
+
+    @Test
+    void testHoldExpiresAfterTtl() {
+        Cart cart = cart("user1", 1L, 40);
+        seatHoldService.hold(cart);
+
+        advance(TTL - TICK);
+        assertTrue(seatHoldService.isHeld(cart.getId()));
+
+        advance(2 * TICK);
+        assertFalse(seatHoldService.isHeld(cart.getId()));
+        assertEquals(CAPACITY, seatInventoryService.getAvailableSeats(1L, travelDate));
+        assertFalse(seatHoldService.confirm(cart.getId()));
+    }
+
+    @Test
+    void testConfirmPersistsAndStopsExpiry() {
+        Cart cart = cart("user1", 1L, 3);
+        seatHoldService.hold(cart);
+
+        assertTrue(seatHoldService.confirm(cart.getId()));
+        assertEquals(3, persisted.get());
+
+        advance(TTL + TICK);
+        assertEquals(CAPACITY - 3, seatInventoryService.getAvailableSeats(1L, travelDate));
+        assertFalse(seatHoldService.confirm(cart.getId()));
+    }
+
+    @Test
+    void testReleaseAndReleaseAll() {
+        Cart first = cart("user1", 1L, 10);
+        Cart second = cart("user1", 1L, 10);
+        Cart other = cart("user2", 1L, 10);
+        seatHoldService.hold(first);
+        seatHoldService.hold(second);
+        seatHoldService.hold(other);
+
+        seatHoldService.release(first.getId());
+        assertEquals(CAPACITY - 20, seatInventoryService.getAvailableSeats(1L, travelDate));
+
+        seatHoldService.releaseAll("user1");
+        assertEquals(CAPACITY - 10, seatInventoryService.getAvailableSeats(1L, travelDate));
+        assertEquals(1, seatHoldService.getActiveHoldCount());
+        verify(seatInventoryRepository, never()).releaseSeats(anyLong(), any(LocalDate.class), anyInt());
+    }
+
+    @Test
+    void testHoldsBeyondOneTurnOfTheWheelWaitTheirTurn() {
+        // 512 one-second slots; a 15 minute hold goes round the wheel more than once
+        Cart cart = cart("user1", 1L, 1);
+        seatHoldService.hold(cart);
+
+        advance(TimeUnit.SECONDS.toNanos(512 + 10));
+        assertTrue(seatHoldService.isHeld(cart.getId()));
+        advance(TTL);
+        assertFalse(seatHoldService.isHeld(cart.getId()));
+    }
+
+    @Test
+    void testEachHoldIsSettledExactlyOnce() throws Exception {
+        int holds = 1_600;
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < holds; i++) {
+            Cart cart = cart("user" + i % 50, 100L + i % 40, 1);
+            assertTrue(seatHoldService.hold(cart));
+            carts.add(cart);
+        }
+        advance(TTL - TICK);
+
+        // Confirm, release and expiry race for every hold
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger confirmed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        futures.add(pool.submit(() -> {
+            start.await();
+            carts.forEach(cart -> {
+                if (seatHoldService.confirm(cart.getId())) {
+                    confirmed.incrementAndGet();
+                }
+            });
+            return null;
+        }));
+        futures.add(pool.submit(() -> {
+            start.await();
+            carts.forEach(cart -> seatHoldService.release(cart.getId()));
+            return null;
+        }));
+        futures.add(pool.submit(() -> {
+            start.await();
+            advance(2 * TICK);
+            return null;
+        }));
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int available = 0;
+        for (long bus = 100; bus < 140; bus++) {
+            available += seatInventoryService.getAvailableSeats(bus, travelDate);
+        }
+        assertEquals(0, seatHoldService.getActiveHoldCount());
+        assertEquals(confirmed.get(), persisted.get());
+        assertEquals(40 * CAPACITY - confirmed.get(), available);
+    }
+
+    @Test
+    void benchmarkExpiryTickCost() {
+        int holds = 50_000;
+        // A publisher mock would record every event
+        seatInventoryService = new SeatInventoryServiceImpl(seatInventoryRepository, busRepository, tripRepository,
+                event -> { });
+        seatHoldService = new SeatHoldServiceImpl(seatInventoryService, TTL, TICK, now::get);
+        long holdNanos = 0;
+        for (int i = 0; i < holds; i++) {
+            Cart cart = cart("user" + i, (long) i % 2_000, 1);
+            long start = System.nanoTime();
+            assertTrue(seatHoldService.hold(cart));
+            holdNanos += System.nanoTime() - start;
+            // Spread the holds over ten minutes of add-to-cart traffic, ticking as the scheduler would
+            if (i % 100 == 99) {
+                advance(TimeUnit.MILLISECONDS.toNanos(1_200));
+            }
+        }
+
+        long quiet = System.nanoTime();
+        advance(TICK);
+        long quietNanos = System.nanoTime() - quiet;
+
+        List<Long> expiryTicks = new ArrayList<>();
+        while (seatHoldService.getActiveHoldCount() > 0) {
+            long tick = System.nanoTime();
+            advance(TICK);
+            expiryTicks.add(System.nanoTime() - tick);
+        }
+        expiryTicks.sort(null);
+
+        System.out.printf("📊 %d holds: %.1f µs per hold, quiet tick %d µs, tick p50 %d µs and max %d µs "
+                        + "while they expire over %d ticks%n", holds, holdNanos / 1e3 / holds, quietNanos / 1_000,
+                expiryTicks.get(expiryTicks.size() / 2) / 1_000, expiryTicks.get(expiryTicks.size() - 1) / 1_000,
+                expiryTicks.size());
+        assertEquals(0, seatHoldService.getActiveHoldCount());
+    }
+
+    private void advance(long nanos) {
+        now.addAndGet(nanos);
+        seatHoldService.expireHolds();
+    }
+
+    private Cart cart(String username, Long busId, int passengers) {
+        Cart cart = new Cart(username, busId, "CityLink", "Dublin", "Galway", travelDate.toString(),
+                passengers, 25.0 * passengers);
+        cart.setId(cartIds.incrementAndGet());
+        return cart;
+    }
+}
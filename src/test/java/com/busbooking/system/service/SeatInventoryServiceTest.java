@@ -0,0 +1,265 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.model.SeatInventory;
+import com.busbooking.system.model.Trip;
+import com.busbooking.system.repository.BusRepository;
+import com.busbooking.system.repository.SeatInventoryRepository;
+import com.busbooking.system.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit and concurrency tests for SeatInventoryService
+ */
+@ExtendWith(MockitoExtension.class)
+class SeatInventoryServiceTest {
+
+    private static final int CAPACITY = 45;
+
+    @Mock
+    private SeatInventoryRepository seatInventoryRepository;
+
+    @Mock
+    private BusRepository busRepository;
+
+    @Mock
+    private TripRepository tripRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SeatInventoryServiceImpl seatInventoryService;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(1);
+
+    // Seats persisted per bus through claimSeats and releaseSeats
+    private final ConcurrentHashMap<Long, AtomicInteger> persisted = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        seatInventoryService = new SeatInventoryServiceImpl(seatInventoryRepository, busRepository, tripRepository,
+                eventPublisher);
+
+        lenient().when(seatInventoryRepository.findByBusIdAndTravelDate(anyLong(), any(LocalDate.class)))
+                .thenReturn(Optional.empty());
+        lenient().when(seatInventoryRepository.save(any(SeatInventory.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(busRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Bus bus = new Bus("CityLink Express", "Dublin", "Galway",
+                    LocalTime.of(9, 0), LocalTime.of(12, 30), CAPACITY, 25.50, "EXPRESS");
+            bus.setId(invocation.getArgument(0));
+            return Optional.of(bus);
+        });
+        lenient().when(seatInventoryRepository.releaseSeats(anyLong(), any(LocalDate.class), anyInt()))
+                .thenAnswer(invocation -> {
+                    persisted.computeIfAbsent(invocation.getArgument(0), id -> new AtomicInteger())
+                            .addAndGet(-invocation.<Integer>getArgument(2));
+                    return 1;
+                });
+        lenient().when(seatInventoryRepository.claimSeats(anyLong(), any(LocalDate.class), anyInt()))
+                .thenAnswer(invocation -> {
+                    persisted.computeIfAbsent(invocation.getArgument(0), id -> new AtomicInteger())
+                            .addAndGet(invocation.getArgument(2));
+                    return 1;
+                });
+    }
+
+    @Test
+    void testReserveAndRelease() {
+        assertTrue(seatInventoryService.reserveSeats(1L, travelDate, 40));
+        assertEquals(5, seatInventoryService.getAvailableSeats(1L, travelDate));
+
+        assertFalse(seatInventoryService.reserveSeats(1L, travelDate, 6));
+        assertEquals(5, seatInventoryService.getAvailableSeats(1L, travelDate));
+
+        seatInventoryService.releaseSeats(1L, travelDate, 10);
+        assertEquals(15, seatInventoryService.getAvailableSeats(1L, travelDate));
+        assertEquals(30, persisted.get(1L).get());
+    }
+
+    @Test
+    void testChangesArePublishedButRefusalsAreNot() {
+        seatInventoryService.reserveSeats(1L, travelDate, 40);
+        seatInventoryService.reserveSeats(1L, travelDate, 6);
+        seatInventoryService.releaseSeats(1L, travelDate, 10);
+
+        verify(eventPublisher).publishEvent(new SeatsChangedEvent(1L, travelDate, 40, 40, CAPACITY));
+        verify(eventPublisher).publishEvent(new SeatsChangedEvent(1L, travelDate, -10, 30, CAPACITY));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void testDeparturesAreIndependent() {
+        assertTrue(seatInventoryService.reserveSeats(1L, travelDate, CAPACITY));
+        assertTrue(seatInventoryService.reserveSeats(1L, travelDate.plusDays(1), CAPACITY));
+        assertTrue(seatInventoryService.reserveSeats(2L, travelDate, CAPACITY));
+        assertFalse(seatInventoryService.reserveSeats(1L, travelDate, 1));
+    }
+
+    @Test
+    void testLoadsExistingLedgerRow() {
+        SeatInventory row = new SeatInventory(7L, travelDate, 10);
+        row.setSeatsBooked(8);
+        when(seatInventoryRepository.findByBusIdAndTravelDate(7L, travelDate)).thenReturn(Optional.of(row));
+
+        assertEquals(2, seatInventoryService.getAvailableSeats(7L, travelDate));
+        assertFalse(seatInventoryService.reserveSeats(7L, travelDate, 3));
+        verify(busRepository, never()).findById(7L);
+    }
+
+    @Test
+    void testCapacityFromMaterializedTrip() {
+        Trip trip = new Trip(8L, travelDate);
+        trip.setCapacity(12);
+        when(tripRepository.findByBusIdAndTravelDate(8L, travelDate)).thenReturn(Optional.of(trip));
+
+        assertEquals(12, seatInventoryService.getAvailableSeats(8L, travelDate));
+        verify(busRepository, never()).findById(8L);
+    }
+
+    @Test
+    void testLedgerHasTheLastWordOverSeatsSoldElsewhere() {
+        SeatInventory row = new SeatInventory(9L, travelDate, 10);
+        when(seatInventoryRepository.findByBusIdAndTravelDate(9L, travelDate)).thenReturn(Optional.of(row));
+        assertEquals(10, seatInventoryService.getAvailableSeats(9L, travelDate));
+
+        // Another instance sells 8 seats; only the guarded update notices
+        row.setSeatsBooked(8);
+        when(seatInventoryRepository.claimSeats(9L, travelDate, 5)).thenReturn(0);
+        assertFalse(seatInventoryService.reserveSeats(9L, travelDate, 5));
+        assertEquals(2, seatInventoryService.getAvailableSeats(9L, travelDate));
+
+        // ...and seats it gives back are found once this counter says no
+        row.setSeatsBooked(3);
+        when(seatInventoryRepository.claimSeats(9L, travelDate, 5)).thenReturn(1);
+        assertTrue(seatInventoryService.reserveSeats(9L, travelDate, 5));
+        assertEquals(2, seatInventoryService.getAvailableSeats(9L, travelDate));
+    }
+
+    @Test
+    void testReleaseTheLedgerDoesNotHoldIsIgnored() {
+        SeatInventory row = new SeatInventory(9L, travelDate, 10);
+        row.setSeatsBooked(4);
+        when(seatInventoryRepository.findByBusIdAndTravelDate(9L, travelDate)).thenReturn(Optional.of(row));
+        assertEquals(6, seatInventoryService.getAvailableSeats(9L, travelDate));
+
+        // The same 4 seats given back twice: the guarded update refuses the second
+        when(seatInventoryRepository.releaseSeats(9L, travelDate, 4)).thenReturn(1, 0);
+        seatInventoryService.releaseSeats(9L, travelDate, 4);
+        row.setSeatsBooked(0);
+        seatInventoryService.releaseSeats(9L, travelDate, 4);
+
+        assertEquals(10, seatInventoryService.getAvailableSeats(9L, travelDate));
+        assertTrue(seatInventoryService.reserveSeats(9L, travelDate, 10));
+        row.setSeatsBooked(10);
+        assertFalse(seatInventoryService.reserveSeats(9L, travelDate, 1));
+    }
+
+    @Test
+    void testPastDeparturesArePruned() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        seatInventoryService.reserveSeats(1L, yesterday, 2);
+        seatInventoryService.reserveSeats(1L, LocalDate.now(), 2);
+        seatInventoryService.reserveSeats(1L, travelDate, 2);
+
+        seatInventoryService.pruneCounters();
+
+        assertEquals(2, seatInventoryService.getCounterCount());
+        assertEquals(CAPACITY - 2, seatInventoryService.getAvailableSeats(1L, travelDate));
+    }
+
+    @Test
+    void testBusEditsChangeUpcomingCapacity() {
+        seatInventoryService.reserveSeats(1L, travelDate, 40);
+        Bus bigger = new Bus("CityLink Express", "Dublin", "Galway",
+                LocalTime.of(9, 0), LocalTime.of(12, 30), 60, 25.50, "EXPRESS");
+        bigger.setId(1L);
+
+        seatInventoryService.onBusChanged(new BusChangedEvent(1L, bigger));
+
+        assertEquals(20, seatInventoryService.getAvailableSeats(1L, travelDate));
+        verify(seatInventoryRepository).updateCapacity(1L, LocalDate.now(), 60);
+        verify(eventPublisher).publishEvent(new SeatsChangedEvent(1L, travelDate, 0, 40, 60));
+    }
+
+    @Test
+    void testRejectsInvalidRequests() {
+        assertFalse(seatInventoryService.reserveSeats(null, travelDate, 1));
+        assertFalse(seatInventoryService.reserveSeats(1L, null, 1));
+        assertFalse(seatInventoryService.reserveSeats(1L, travelDate, 0));
+    }
+
+    @Test
+    void testNoOversellUnderContention() throws Exception {
+        int threads = 64;
+        int attemptsPerThread = 200;
+        long[] buses = {1L, 2L, 3L, 4L};
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentHashMap<Long, AtomicInteger> granted = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    long busId = buses[random.nextInt(buses.length)];
+                    int seats = 1 + random.nextInt(3);
+                    if (seatInventoryService.reserveSeats(busId, travelDate, seats)) {
+                        granted.computeIfAbsent(busId, id -> new AtomicInteger()).addAndGet(seats);
+                        // Some buyers give their seats back, freeing capacity for others
+                        if (random.nextInt(10) == 0) {
+                            seatInventoryService.releaseSeats(busId, travelDate, seats);
+                            granted.get(busId).addAndGet(-seats);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+        pool.shutdown();
+
+        for (long busId : buses) {
+            int sold = granted.get(busId).get();
+            assertTrue(sold <= CAPACITY, "Bus " + busId + " oversold: " + sold);
+            assertEquals(sold, persisted.get(busId).get(), "Ledger out of sync for bus " + busId);
+            assertEquals(CAPACITY - sold, seatInventoryService.getAvailableSeats(busId, travelDate));
+        }
+        System.out.println("✅ " + threads * attemptsPerThread + " concurrent reservations in "
+                + elapsedMillis + " ms without oversell");
+    }
+}
@@ -0,0 +1,114 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Cart;
+import com.busbooking.system.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the session cookie on login and on the pages behind it
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"spring.jpa.show-sql=false"})
+public class SessionCheckTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CartService cartService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void testLoginIssuesASessionThatOpensUserPages() throws Exception {
+        userService.register(new User("rider1", "secret1", "USER"));
+
+        HttpResponse<String> login = client.send(HttpRequest.newBuilder(uri("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("username=rider1&password="
+                        + URLEncoder.encode("secret1", StandardCharsets.UTF_8)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(302, login.statusCode());
+        assertTrue(login.headers().firstValue("Location").orElseThrow().endsWith("/dashboard?username=rider1"));
+        String cookie = login.headers().firstValue("Set-Cookie").orElseThrow();
+        assertTrue(cookie.startsWith(SessionTokenService.COOKIE_NAME + "="), cookie);
+        assertTrue(cookie.contains("HttpOnly"), cookie);
+        assertTrue(cookie.contains("SameSite=Lax"), cookie);
+        String token = cookie.substring(cookie.indexOf('=') + 1, cookie.indexOf(';'));
+
+        assertEquals(200, get("/dashboard?username=rider1", token).statusCode());
+    }
+
+    @Test
+    void testPagesNeedAValidSession() throws Exception {
+        HttpResponse<String> anonymous = get("/my-requests?username=rider1", null);
+        assertEquals(302, anonymous.statusCode());
+        assertTrue(anonymous.headers().firstValue("Location").orElseThrow().endsWith("/login"));
+
+        String token = sessionTokenService.issue("rider1", "USER");
+        assertEquals(302, get("/my-requests?username=rider1", token + "x").statusCode());
+        // Someone else's username in the query string is no longer enough
+        assertEquals(403, get("/my-requests?username=rider2", token).statusCode());
+        assertEquals(403, get("/admin/dashboard", token).statusCode());
+        assertEquals(200, get("/admin/dashboard", sessionTokenService.issue("admin", "ADMIN")).statusCode());
+        assertEquals(200, get("/login", null).statusCode());
+    }
+
+    @Test
+    void testCartItemsCanOnlyBeRemovedByTheirOwner() throws Exception {
+        Cart item = cartService.addToCart(new Cart("rider1", 1L, "CityLink", "Dublin", "Galway",
+                LocalDate.now().plusDays(1).toString(), 1, 25.0));
+
+        // A valid session of another user, naming itself, still cannot reach rider1's item
+        String path = "/remove-from-cart/" + item.getId() + "?username=";
+        assertEquals(302, get(path + "rider2", sessionTokenService.issue("rider2", "USER")).statusCode());
+        assertEquals(1, cartService.getCartByUser("rider1").size());
+
+        assertEquals(302, get(path + "rider1", sessionTokenService.issue("rider1", "USER")).statusCode());
+        assertTrue(cartService.getCartByUser("rider1").isEmpty());
+    }
+
+    @Test
+    void testLogoutClearsTheCookie() throws Exception {
+        HttpResponse<String> logout = get("/logout", sessionTokenService.issue("rider1", "USER"));
+
+        assertEquals(302, logout.statusCode());
+        String cookie = logout.headers().firstValue("Set-Cookie").orElseThrow();
+        assertTrue(cookie.startsWith(SessionTokenService.COOKIE_NAME + "=;"), cookie);
+        assertTrue(cookie.contains("Max-Age=0"), cookie);
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path));
+        if (token != null) {
+            request.header("Cookie", SessionTokenService.COOKIE_NAME + "=" + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
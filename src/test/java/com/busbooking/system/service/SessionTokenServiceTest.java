@@ -0,0 +1,146 @@
+package com.busbooking.system.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for signed session tokens
+ */
+class SessionTokenServiceTest {
+
+    private static final String OLD_KEY = "k1:" + secret(1);
+    private static final String NEW_KEY = "k2:" + secret(2);
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000L);
+
+    @Test
+    void testTokenCarriesTheSession() {
+        SessionTokenServiceImpl tokens = service(OLD_KEY);
+
+        SessionTokenService.Session session = tokens.verify(tokens.issue("user|1", "USER")).orElseThrow();
+
+        assertEquals("user|1", session.username());
+        assertEquals("USER", session.role());
+        assertFalse(session.isAdmin());
+        assertEquals(Instant.ofEpochSecond(now.get() + 3_600), session.expiresAt());
+        assertTrue(tokens.verify(tokens.issue("admin", "ADMIN")).orElseThrow().isAdmin());
+    }
+
+    @Test
+    void testSignatureIsStandardHmacSha256() throws Exception {
+        String token = service(OLD_KEY).issue("user1", "USER");
+        Base64.Decoder base64 = Base64.getUrlDecoder();
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode(secret(1)), "HmacSHA256"));
+
+        byte[] expected = mac.doFinal(base64.decode(token.substring(0, token.indexOf('.'))));
+        assertArrayEquals(expected, base64.decode(token.substring(token.indexOf('.') + 1)));
+    }
+
+    @Test
+    void testTamperedTokensAreRejected() {
+        SessionTokenServiceImpl tokens = service(OLD_KEY);
+        String token = tokens.issue("user1", "USER");
+        String payload = token.substring(0, token.indexOf('.'));
+        String signature = token.substring(token.indexOf('.') + 1);
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("k1|user1|ADMIN|" + (now.get() + 3_600)).getBytes());
+
+        assertEquals(Optional.empty(), tokens.verify(forged + "." + signature));
+        assertEquals(Optional.empty(), tokens.verify(payload + "." + signature.substring(1)));
+        assertEquals(Optional.empty(), tokens.verify(payload));
+        assertEquals(Optional.empty(), tokens.verify("not.a.token"));
+        assertEquals(Optional.empty(), tokens.verify("%%%.%%%"));
+        assertEquals(Optional.empty(), tokens.verify(null));
+        // Signed by another deployment with the same key id
+        assertEquals(Optional.empty(), service("k1:" + secret(9)).verify(token));
+    }
+
+    @Test
+    void testTokensExpire() {
+        SessionTokenServiceImpl tokens = service(OLD_KEY);
+        String token = tokens.issue("user1", "USER");
+
+        now.addAndGet(3_599);
+        assertTrue(tokens.verify(token).isPresent());
+        now.addAndGet(1);
+        assertEquals(Optional.empty(), tokens.verify(token));
+    }
+
+    @Test
+    void testKeyRotation() {
+        String oldToken = service(OLD_KEY).issue("user1", "USER");
+
+        // The new key goes first: it signs from now on, while tokens from the old one still verify
+        SessionTokenServiceImpl rotating = service(NEW_KEY + "," + OLD_KEY);
+        String newToken = rotating.issue("user1", "USER");
+        assertTrue(rotating.verify(oldToken).isPresent());
+        assertTrue(rotating.verify(newToken).isPresent());
+        assertTrue(new String(Base64.getUrlDecoder().decode(newToken.substring(0, newToken.indexOf('.'))))
+                .startsWith("k2|"));
+
+        // Once the old key is dropped its tokens stop working
+        SessionTokenServiceImpl rotated = service(NEW_KEY);
+        assertEquals(Optional.empty(), rotated.verify(oldToken));
+        assertTrue(rotated.verify(newToken).isPresent());
+    }
+
+    @Test
+    void testBadKeysFailAtStartup() {
+        assertThrows(IllegalStateException.class, () -> service("nokid"));
+        assertThrows(IllegalStateException.class, () -> service("k1:short"));
+        assertThrows(IllegalStateException.class, () -> service(OLD_KEY + "," + OLD_KEY));
+        // Without keys a random one is used, so tokens still round-trip on this node
+        SessionTokenServiceImpl local = service("");
+        assertTrue(local.verify(local.issue("user1", "USER")).isPresent());
+    }
+
+    @Test
+    void benchmarkVerification() {
+        SessionTokenServiceImpl tokens = service(NEW_KEY + "," + OLD_KEY);
+        String token = tokens.issue("rider1042@example.com", "USER");
+        int rounds = 50_000;
+
+        // Warm up the JIT before timing
+        for (int i = 0; i < 4 * rounds; i++) {
+            assertTrue(tokens.verify(token).isPresent());
+        }
+        // Best of several short runs, so a burst of other work on the machine does not count against it
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 10; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                if (tokens.verify(token).isEmpty()) {
+                    fail("Token stopped verifying");
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double nanosPerCheck = (double) best / rounds;
+
+        // Reported, not asserted: wall-clock time depends on the machine and the coverage agent
+        System.out.printf("📊 Session token check: %.0f ns per request (%d-char token, no lookup)%n",
+                nanosPerCheck, token.length());
+    }
+
+    private SessionTokenServiceImpl service(String keys) {
+        return new SessionTokenServiceImpl(keys, 60, now::get);
+    }
+
+    private static String secret(int seed) {
+        byte[] secret = new byte[32];
+        for (int i = 0; i < secret.length; i++) {
+            secret[i] = (byte) (seed * 31 + i);
+        }
+        return Base64.getEncoder().encodeToString(secret);
+    }
+}
@@ -0,0 +1,165 @@
+package com.busbooking.system.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the striped token buckets behind the rate limits
+ */
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void testBurstThenSteadyRate() {
+        // 3 at once, then one every 10 seconds
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 6, 1_000, 4, now::get);
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(10 * SECOND, limiter.tryAcquire("10.0.0.1"));
+        // Other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("10.0.0.2"));
+
+        now.addAndGet(4 * SECOND);
+        assertEquals(6 * SECOND, limiter.tryAcquire("10.0.0.1"));
+        now.addAndGet(6 * SECOND);
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+
+        // Refilled lazily: after a quiet spell the whole burst is back, and no more
+        now.addAndGet(60 * SECOND);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+        assertEquals(4, limiter.denied());
+        assertEquals(8, limiter.allowed());
+    }
+
+    @Test
+    void testSweepDropsOnlyRefilledBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 6, 1_000, 4, now::get);
+        limiter.tryAcquire("quiet");
+        limiter.tryAcquire("busy");
+        limiter.tryAcquire("busy");
+
+        now.addAndGet(15 * SECOND);
+        limiter.sweep();
+
+        // "quiet" had refilled, so dropping it changes nothing; "busy" still owes a token
+        assertEquals(1, limiter.size());
+        assertEquals(1, limiter.evicted());
+        assertEquals(0, limiter.tryAcquire("busy"));
+        assertTrue(limiter.tryAcquire("busy") > 0);
+    }
+
+    @Test
+    void testKeyFloodStaysBounded() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 6, 1_000, 8, now::get);
+
+        for (int i = 0; i < 100_000; i++) {
+            limiter.tryAcquire("10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255));
+        }
+
+        assertTrue(limiter.size() <= 1_000, "Buckets kept: " + limiter.size());
+        assertTrue(limiter.evicted() >= 99_000);
+        assertEquals(100_000, limiter.allowed());
+    }
+
+    @Test
+    void testOverlongKeysShareOneBucket() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 6, 1_000, 4, now::get);
+        String longName = "x".repeat(10_000);
+
+        assertEquals(0, limiter.tryAcquire(longName));
+        assertTrue(limiter.tryAcquire(longName + "y") > 0);
+    }
+
+    @Test
+    void testConcurrentCallersNeverGetMoreThanTheBurst() throws Exception {
+        int burst = 1_000;
+        int threads = 8;
+        int attemptsPerThread = 1_000;
+        // The clock stands still, so no token comes back during the race
+        TokenBucketLimiter limiter = new TokenBucketLimiter(burst, 1, 1_000, 4, now::get);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int granted = 0;
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (limiter.tryAcquire("shared") == 0) {
+                        granted++;
+                    }
+                }
+                return granted;
+            }));
+        }
+        start.countDown();
+        int granted = 0;
+        for (Future<Integer> result : results) {
+            granted += result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(burst, granted);
+        assertEquals(threads * attemptsPerThread - burst, limiter.denied());
+    }
+
+    @Test
+    void benchmarkDenials() throws Exception {
+        int threads = 4;
+        int attempts = 500_000;
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 30, 100_000, 16, System::nanoTime);
+        String[] clients = new String[64];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = "192.168.0." + i;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < attempts; i++) {
+                    limiter.tryAcquire(clients[(i + offset) & 63]);
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        long wallNanos = System.nanoTime() - begin;
+        pool.shutdown();
+
+        long total = (long) threads * attempts;
+        System.out.println("📊 " + total + " attempts from 64 clients on " + threads + " threads: "
+                + limiter.allowed() + " allowed, " + limiter.denied() + " turned away, "
+                + wallNanos / total + " ns per check on " + Runtime.getRuntime().availableProcessors()
+                + " CPU(s), " + limiter.size() + " buckets");
+        assertEquals(total, limiter.allowed() + limiter.denied());
+        assertTrue(limiter.denied() > limiter.allowed());
+    }
+}
@@ -0,0 +1,116 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.Bus;
+import com.busbooking.system.model.Trip;
+import com.busbooking.system.repository.BusRepository;
+import com.busbooking.system.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for trip materialization using H2 database
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "trips.horizon-days=28")
+public class TripMaterializerTest {
+
+    @Autowired
+    private BusService busService;
+
+    @Autowired
+    private BusRepository busRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripMaterializer tripMaterializer;
+
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate horizonEnd = today.plusDays(27);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tripMaterializer.awaitIdle();
+        busRepository.deleteAll();
+        tripRepository.deleteAll();
+    }
+
+    @Test
+    void testWeekdayBusMaterializesWeekdayTrips() throws Exception {
+        Bus bus = busService.saveBus(weekdayBus("Dublin", "Galway"));
+        tripMaterializer.awaitIdle();
+
+        List<Trip> trips = tripRepository.findByBusIdAndTravelDateBetween(bus.getId(), today, horizonEnd);
+
+        assertEquals(20, trips.size());
+        assertTrue(trips.stream().allMatch(trip -> isWeekday(trip.getTravelDate())));
+        assertEquals(45, trips.get(0).getCapacity());
+        assertEquals("Galway", trips.get(0).getDestination());
+        System.out.println("✅ " + trips.size() + " weekday trips materialized for bus " + bus.getId());
+    }
+
+    @Test
+    void testEditRegeneratesOnlyThatBus() throws Exception {
+        Bus edited = busService.saveBus(weekdayBus("Dublin", "Galway"));
+        Bus other = busService.saveBus(weekdayBus("Cork", "Limerick"));
+
+        edited.setOperatingDays("SAT,SUN");
+        edited.setPrice(30.0);
+        busService.saveBus(edited);
+        tripMaterializer.awaitIdle();
+
+        List<Trip> weekend = tripRepository.findByBusIdAndTravelDateBetween(edited.getId(), today, horizonEnd);
+        assertEquals(8, weekend.size());
+        assertTrue(weekend.stream().noneMatch(trip -> isWeekday(trip.getTravelDate())));
+        assertTrue(weekend.stream().allMatch(trip -> trip.getPrice() == 30.0));
+        assertEquals(20, tripRepository.findByBusIdAndTravelDateBetween(other.getId(), today, horizonEnd).size());
+    }
+
+    @Test
+    void testRerunWritesNothingWhenUnchanged() throws Exception {
+        Bus bus = busService.saveBus(weekdayBus("Dublin", "Galway"));
+        tripMaterializer.awaitIdle();
+
+        assertEquals(0, tripMaterializer.materialize(bus, today));
+        // Rolling the horizon forward a week only adds that week's five weekdays
+        assertEquals(5, tripMaterializer.materialize(bus, today.plusDays(7)));
+    }
+
+    @Test
+    void testDeactivateAndDeleteRemoveUpcomingTrips() throws Exception {
+        Bus deactivated = busService.saveBus(weekdayBus("Dublin", "Galway"));
+        Bus deleted = busService.saveBus(weekdayBus("Cork", "Limerick"));
+
+        deactivated.setActive(false);
+        busService.saveBus(deactivated);
+        busService.deleteBus(deleted.getId());
+        tripMaterializer.awaitIdle();
+
+        assertTrue(tripRepository.findByBusIdAndTravelDateBetween(deactivated.getId(), today, horizonEnd).isEmpty());
+        assertTrue(tripRepository.findByBusIdAndTravelDateBetween(deleted.getId(), today, horizonEnd).isEmpty());
+    }
+
+    private Bus weekdayBus(String source, String destination) {
+        Bus bus = new Bus("CityLink Express", source, destination,
+                LocalTime.of(9, 0), LocalTime.of(12, 30), 45, 25.50, "EXPRESS");
+        bus.setActive(true);
+        bus.setOperatingDays("MON,TUE,WED,THU,FRI");
+        return bus;
+    }
+
+    private static boolean isWeekday(LocalDate date) {
+        return date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY;
+    }
+}
@@ -0,0 +1,207 @@
+package com.busbooking.system.service;
+
+import com.busbooking.system.model.User;
+import com.busbooking.system.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the read-through user cache
+ */
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+    private static final long TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final PasswordHasher passwordHasher = new PasswordHasher(1_000);
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testRepeatedLookupsAreServedFromTheCache() {
+        UserCache cache = cache(10);
+        when(userRepository.findFirstByUsername("user1")).thenReturn(Optional.of(user(1L, "user1", hashed())));
+
+        User first = cache.get("user1").orElseThrow();
+        User second = cache.get("user1").orElseThrow();
+        second.setEmail("changed@example.com");
+
+        assertEquals("user1", second.getUsername());
+        assertEquals(first.getPassword(), second.getPassword());
+        // Every read is a fresh copy, so changing one does not change the cache
+        assertNull(cache.get("user1").orElseThrow().getEmail());
+        verify(userRepository, times(1)).findFirstByUsername("user1");
+        UserCache.Metrics metrics = cache.getMetrics();
+        assertEquals(2, metrics.hits());
+        assertEquals(1, metrics.misses());
+        assertEquals(2.0 / 3, metrics.hitRatio(), 1e-9);
+    }
+
+    @Test
+    void testPlainTextPasswordsAndUnknownUsersAreNotCached() {
+        UserCache cache = cache(10);
+        when(userRepository.findFirstByUsername("legacy")).thenReturn(Optional.of(user(1L, "legacy", "secret")));
+        when(userRepository.findFirstByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertEquals("secret", cache.get("legacy").orElseThrow().getPassword());
+        cache.get("legacy");
+        assertTrue(cache.get("ghost").isEmpty());
+        cache.get("ghost");
+
+        verify(userRepository, times(2)).findFirstByUsername("legacy");
+        verify(userRepository, times(2)).findFirstByUsername("ghost");
+        assertEquals(0, cache.getMetrics().size());
+    }
+
+    @Test
+    void testEntriesExpire() {
+        UserCache cache = cache(10);
+        when(userRepository.findFirstByUsername("user1")).thenReturn(Optional.of(user(1L, "user1", hashed())));
+
+        cache.get("user1");
+        now.addAndGet(TTL_NANOS - 1);
+        cache.get("user1");
+        now.addAndGet(1);
+        cache.get("user1");
+
+        verify(userRepository, times(2)).findFirstByUsername("user1");
+        assertEquals(1, cache.getMetrics().expirations());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        UserCache cache = cache(2);
+        String hash = hashed();
+        when(userRepository.findFirstByUsername(anyString()))
+                .thenAnswer(invocation -> Optional.of(user(1L, invocation.getArgument(0), hash)));
+
+        cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c");
+        cache.get("a");
+        cache.get("b");
+
+        // b was the least recently used when c arrived, so it is the only one loaded twice
+        verify(userRepository, times(2)).findFirstByUsername("b");
+        verify(userRepository, times(1)).findFirstByUsername("a");
+        UserCache.Metrics metrics = cache.getMetrics();
+        assertEquals(2, metrics.size());
+        assertEquals(2, metrics.evictions());
+    }
+
+    @Test
+    void testInvalidation() {
+        UserCache cache = cache(10);
+        when(userRepository.findFirstByUsername("user1")).thenReturn(Optional.of(user(7L, "user1", hashed())));
+
+        cache.get("user1");
+        cache.invalidate("user1");
+        cache.get("user1");
+        cache.invalidateId(7L);
+        cache.get("user1");
+
+        verify(userRepository, times(3)).findFirstByUsername("user1");
+        assertEquals(2, cache.getMetrics().invalidations());
+    }
+
+    @Test
+    void testLoadRacingAnInvalidationIsNotCached() {
+        UserCache cache = cache(10);
+        String hash = hashed();
+        when(userRepository.findFirstByUsername("user1")).thenAnswer(invocation -> {
+            // The user changes while the old row is on its way back
+            cache.invalidate("user1");
+            return Optional.of(user(1L, "user1", hash));
+        });
+
+        cache.get("user1");
+
+        assertEquals(0, cache.getMetrics().size());
+    }
+
+    @Test
+    void benchmarkSizingForSkewedLogins() {
+        int users = 20_000;
+        int logins = 200_000;
+        String hash = hashed();
+        // Stub-only, so hundreds of thousands of calls are not recorded for verification
+        UserRepository repository = mock(UserRepository.class, withSettings().stubOnly());
+        when(repository.findFirstByUsername(anyString()))
+                .thenAnswer(invocation -> Optional.of(user(1L, invocation.getArgument(0), hash)));
+
+        StringBuilder report = new StringBuilder("📊 " + logins + " logins over " + users + " users (Zipf s=1):");
+        double previousRatio = 0;
+        for (int maxEntries : new int[] {500, 2_000, 10_000}) {
+            UserCache cache = new UserCache(repository, passwordHasher, maxEntries, TTL_NANOS, now::get);
+            Random random = new Random(42);
+            double[] cumulative = zipf(users);
+            for (int i = 0; i < logins; i++) {
+                cache.get("user" + pick(cumulative, random.nextDouble()));
+            }
+            UserCache.Metrics metrics = cache.getMetrics();
+            report.append(String.format(" %d entries -> %.1f%% hits, %d database lookups, %d evictions;",
+                    maxEntries, metrics.hitRatio() * 100, metrics.misses(), metrics.evictions()));
+
+            assertEquals(logins, metrics.hits() + metrics.misses());
+            assertTrue(metrics.size() <= maxEntries);
+            assertTrue(metrics.hitRatio() > previousRatio);
+            previousRatio = metrics.hitRatio();
+        }
+        System.out.println(report);
+    }
+
+    private UserCache cache(int maxEntries) {
+        return new UserCache(userRepository, passwordHasher, maxEntries, TTL_NANOS, now::get);
+    }
+
+    private String hashed() {
+        return passwordHasher.hash("secret");
+    }
+
+    private static User user(Long id, String username, String password) {
+        User user = new User(username, password, "USER");
+        user.setId(id);
+        return user;
+    }
+
+    private static double[] zipf(int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, double u) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 
 import java.util.Arrays;
@@ -27,6 +28,12 @@ public class UserServiceTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UsernameFilter usernameFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private User testUser;
 
     @BeforeEach
@@ -174,4 +181,50 @@ public class UserServiceTest {
         assertNull(result);
         System.out.println("❌ User not found: unknown");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCachedUserFollowsEditsAndDeletes() {
+        User cached = userService.findByUsername("testuser");
+        assertTrue(cached.getPassword().startsWith("pbkdf2$"));
+
+        // An admin edit may rename the user
+        User edited = userService.getUserById(cached.getId());
+        edited.setUsername("renameduser");
+        edited.setEmail("renamed@example.com");
+        userService.saveUser(edited);
+
+        assertNull(userService.findByUsername("testuser"));
+        assertEquals("renamed@example.com", userService.findByUsername("renameduser").getEmail());
+        assertTrue(userService.validateUser("renameduser", "testpass"));
+
+        userService.deleteUser(cached.getId());
+        assertNull(userService.findByUsername("renameduser"));
+        assertFalse(userService.validateUser("renameduser", "testpass"));
+    }
+
+    @Test
+    void testUsernameAvailability() {
+        long missesBefore = usernameFilter.getMetrics().definiteMisses();
+
+        assertFalse(userService.isUsernameAvailable("testuser"));
+        assertTrue(userService.isUsernameAvailable("brand-new-name"));
+        assertFalse(userService.isUsernameAvailable(" "));
+
+        // The free name was answered by the filter alone
+        assertEquals(missesBefore + 1, usernameFilter.getMetrics().definiteMisses());
+        User duplicate = new User("testuser", "otherpass", "USER");
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> userService.register(duplicate));
+        assertEquals("Username already exists", e.getMessage());
+    }
+
+    @Test
+    void testUniqueConstraintSettlesWhatTheFilterMissed() {
+        // Written behind the service's back, as another node would, so this node's filter has not seen it
+        jdbcTemplate.update("INSERT INTO users (username, password, role, email_verified) VALUES (?, ?, ?, ?)",
+                "elsewhere", "pbkdf2$1$AAAA$AAAA", "USER", false);
+
+        User racer = new User("elsewhere", "secret", "USER");
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> userService.register(racer));
+        assertEquals("Username already exists", e.getMessage());
+    }
+}
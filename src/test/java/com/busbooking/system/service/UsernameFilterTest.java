@@ -0,0 +1,149 @@
+package com.busbooking.system.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the counting Bloom filter of usernames
+ */
+class UsernameFilterTest {
+
+    @Test
+    void testEverythingIsAMaybeUntilSeeded() {
+        UsernameFilter filter = new UsernameFilter(mock(JdbcTemplate.class), 1_000, 0.01);
+
+        assertTrue(filter.mightContain("anyone"));
+        assertFalse(filter.getMetrics().seeded());
+
+        filter.seed();
+        assertFalse(filter.mightContain("anyone"));
+        assertTrue(filter.getMetrics().seeded());
+    }
+
+    @Test
+    void testAddedNamesAreNeverMissed() {
+        UsernameFilter filter = seeded(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add("user" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        assertEquals(1_000, filter.getMetrics().usernames());
+    }
+
+    @Test
+    void testRemovedNameIsFreeAgainWithoutDisturbingOthers() {
+        UsernameFilter filter = seeded(1_000, 0.01);
+        for (int i = 0; i < 500; i++) {
+            filter.add("user" + i);
+        }
+
+        filter.remove("user7");
+
+        assertFalse(filter.mightContain("user7"));
+        for (int i = 0; i < 500; i++) {
+            if (i != 7) {
+                assertTrue(filter.mightContain("user" + i));
+            }
+        }
+    }
+
+    @Test
+    void testRemovingANameItNeverSawLeavesOthersAlone() {
+        UsernameFilter filter = seeded(1_000, 0.01);
+        for (int i = 0; i < 500; i++) {
+            filter.add("user" + i);
+        }
+
+        // Registered on another instance, so never added here
+        for (int i = 0; i < 500; i++) {
+            if (!filter.mightContain("elsewhere" + i)) {
+                filter.remove("elsewhere" + i);
+            }
+        }
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        assertEquals(500, filter.getMetrics().usernames());
+    }
+
+    @Test
+    void testReseedPicksUpNamesAddedElsewhere() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        UsernameFilter filter = new UsernameFilter(jdbcTemplate, 1_000, 0.01);
+        filter.seed();
+        assertFalse(filter.mightContain("remote"));
+
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString(1)).thenReturn("remote");
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        filter.seed();
+
+        assertTrue(filter.mightContain("remote"));
+        assertEquals(1, filter.getMetrics().usernames());
+    }
+
+    @Test
+    void testSaturatedCountersStaySet() {
+        // One counter and one hash: every name lands on the same slot
+        UsernameFilter filter = seeded(1, 0.7);
+        assertEquals(1, filter.getMetrics().counters());
+        for (int i = 0; i < 300; i++) {
+            filter.add("user" + i);
+        }
+        for (int i = 0; i < 300; i++) {
+            filter.remove("user" + i);
+        }
+
+        // The slot lost count of its names at 255, so it can only answer "maybe" from then on
+        assertTrue(filter.mightContain("user0"));
+    }
+
+    @Test
+    void benchmarkFalsePositiveRate() {
+        int users = 100_000;
+        double target = 0.01;
+        UsernameFilter filter = seeded(users, target);
+        for (int i = 0; i < users; i++) {
+            filter.add("rider" + i);
+        }
+
+        int probes = 200_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("newcomer" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        UsernameFilter.Metrics metrics = filter.getMetrics();
+
+        System.out.printf("📊 Username filter: %d names in %d KB (%d hashes), %.2f%% of %d free names need a query "
+                        + "(target %.0f%%)%n", users, metrics.counters() / 1024, metrics.hashes(), rate * 100, probes,
+                target * 100);
+        assertTrue(rate < target * 1.5, "False-positive rate " + rate);
+        assertEquals(probes - falsePositives, metrics.definiteMisses());
+    }
+
+    private static UsernameFilter seeded(long expectedUsernames, double falsePositiveRate) {
+        UsernameFilter filter = new UsernameFilter(mock(JdbcTemplate.class), expectedUsernames, falsePositiveRate);
+        filter.seed();
+        return filter;
+    }
+}